@@ -0,0 +1,76 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.benchmarks;
+
+import com.agateau.pixelwheels.Assets;
+import com.agateau.pixelwheels.Constants;
+import com.agateau.pixelwheels.headless.HeadlessGdx;
+import com.agateau.pixelwheels.map.LapPositionTable;
+import com.agateau.pixelwheels.map.Track;
+import com.badlogic.gdx.math.Vector2;
+import java.io.File;
+import java.util.Random;
+
+/**
+ * Helpers shared by the benchmarks.
+ *
+ * <p>Benchmarks must be run from the assets directory, since they load the real tracks.
+ */
+class BenchmarkUtils {
+    /** Number of positions returned by createTrackPositions(), a power of 2 */
+    static final int POSITION_COUNT = 1024;
+
+    private static Assets sAssets;
+
+    static synchronized Assets getAssets() {
+        if (sAssets == null) {
+            HeadlessGdx.init(new File("."));
+            sAssets = Assets.createHeadless();
+        }
+        return sAssets;
+    }
+
+    static Track loadTrack(String trackId) {
+        HeadlessGdx.init(new File("."));
+        Track track = new Track(trackId, trackId);
+        track.init();
+        return track;
+    }
+
+    /**
+     * Returns POSITION_COUNT random positions, in pixels, which are on the track. Always returns
+     * the same positions for a given track, so that runs can be compared.
+     */
+    static Vector2[] createTrackPositions(Track track) {
+        LapPositionTable table = track.getLapPositionTable();
+        Random random = new Random(12);
+        int width = (int) (track.getMapWidth() / Constants.UNIT_FOR_PIXEL);
+        int height = (int) (track.getMapHeight() / Constants.UNIT_FOR_PIXEL);
+        Vector2[] positions = new Vector2[POSITION_COUNT];
+        for (int idx = 0; idx < POSITION_COUNT; ) {
+            int x = random.nextInt(width);
+            int y = random.nextInt(height);
+            if (table.get(x, y) != null) {
+                positions[idx] = new Vector2(x, y);
+                ++idx;
+            }
+        }
+        return positions;
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.benchmarks;
+
+import com.agateau.pixelwheels.Assets;
+import com.agateau.pixelwheels.GamePlay;
+import com.agateau.pixelwheels.GameWorld;
+import com.agateau.pixelwheels.headless.HeadlessRaceRunner;
+import com.agateau.pixelwheels.map.Track;
+import com.agateau.pixelwheels.racescreen.GameWorldImpl;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.PerformanceCounter;
+import com.badlogic.gdx.utils.PerformanceCounters;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+
+/**
+ * Runs a fixed-seed AI-only race on each track and reports, for each subsystem, the time spent per
+ * step, as well as the number of bytes allocated per step.
+ *
+ * <p>Results are written as JSON. If a baseline file, written by a previous run, is given, the
+ * results are compared to it and the program exits with a non-zero status if a metric got worse by
+ * more than the threshold.
+ *
+ * <p>Must be run from the assets directory. Since this is not where the JSON files are usually
+ * stored, their paths must be absolute.
+ */
+public class RaceBenchmark {
+    private static final long SEED = 1234;
+    /** Simulated duration of the races, count down included */
+    private static final float RACE_DURATION = 120;
+    /** Simulated duration of the race run on each track before measuring, to warm up the JIT */
+    private static final float WARMUP_DURATION = 10;
+
+    private static final float DEFAULT_THRESHOLD = 0.2f;
+
+    private static final String STEP_COUNTER_NAME = "GameWorld.act";
+    private static final String ALLOCATED_BYTES_KEY = "allocatedBytes";
+
+    private final Assets mAssets;
+    private final HeadlessRaceRunner mRunner;
+    private final com.sun.management.ThreadMXBean mThreadMXBean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private RaceBenchmark() {
+        mAssets = BenchmarkUtils.getAssets();
+        mRunner = new HeadlessRaceRunner(mAssets);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: RaceBenchmark <output.json> [baseline.json] [threshold]");
+            System.exit(1);
+        }
+        File outputFile = getAbsoluteFile(args[0]);
+        File baselineFile = args.length > 1 ? getAbsoluteFile(args[1]) : null;
+        float threshold = args.length > 2 ? Float.parseFloat(args[2]) : DEFAULT_THRESHOLD;
+
+        RaceBenchmark benchmark = new RaceBenchmark();
+        for (Track track : benchmark.mAssets.tracks) {
+            benchmark.runRace(track.getId(), WARMUP_DURATION);
+        }
+        JsonObject results = new JsonObject();
+        for (Track track : benchmark.mAssets.tracks) {
+            JsonObject trackResults = benchmark.runRace(track.getId(), RACE_DURATION);
+            printTrackResults(track.getId(), trackResults);
+            results.add(track.getId(), trackResults);
+        }
+
+        Gson gson = new GsonBuilder().setPrettyPrinting().create();
+        try (Writer writer = new FileWriter(outputFile)) {
+            gson.toJson(results, writer);
+        }
+
+        int exitCode = 0;
+        if (baselineFile != null) {
+            JsonObject baseline;
+            try (Reader reader = new FileReader(baselineFile)) {
+                baseline = new JsonParser().parse(reader).getAsJsonObject();
+            }
+            if (!checkRegressions(baseline, results, threshold)) {
+                exitCode = 1;
+            }
+        }
+        System.exit(exitCode);
+    }
+
+    /** Exits with an error if path is not absolute, returns a File for it otherwise */
+    private static File getAbsoluteFile(String path) {
+        File file = new File(path);
+        if (!file.isAbsolute()) {
+            System.err.println(
+                    "Invalid path '" + path + "': paths must be absolute, since the benchmark runs"
+                            + " from the assets directory");
+            System.exit(1);
+        }
+        return file;
+    }
+
+    /**
+     * Races for duration seconds on trackId and returns the metrics, as a JSON object mapping the
+     * metric names to their value per step
+     */
+    private JsonObject runRace(String trackId, float duration) {
+        Array<String> vehicleIds = new Array<>();
+        for (int idx = 0; idx < GamePlay.instance.racerCount; ++idx) {
+            vehicleIds.add(mAssets.vehicleDefs.get(idx % mAssets.vehicleDefs.size).id);
+        }
+        PerformanceCounters counters = new PerformanceCounters();
+        PerformanceCounter stepCounter = counters.add(STEP_COUNTER_NAME);
+        GameWorldImpl world =
+                mRunner.createWorld(new Track(trackId, trackId), vehicleIds, counters);
+        world.setSeed(SEED);
+
+        long threadId = Thread.currentThread().getId();
+        long allocatedBytes = mThreadMXBean.getThreadAllocatedBytes(threadId);
+        int stepCount = 0;
+        for (float time = 0; time < duration; time += GameWorld.BOX2D_TIME_STEP) {
+            stepCounter.start();
+            world.act(GameWorld.BOX2D_TIME_STEP);
+            stepCounter.stop();
+            counters.tick(GameWorld.BOX2D_TIME_STEP);
+            ++stepCount;
+        }
+        allocatedBytes = mThreadMXBean.getThreadAllocatedBytes(threadId) - allocatedBytes;
+        mRunner.disposeWorld(world);
+
+        JsonObject trackResults = new JsonObject();
+        for (PerformanceCounter counter : counters.counters) {
+            // PerformanceCounter times are in seconds
+            trackResults.addProperty(getMetricName(counter), counter.time.total * 1e9f / stepCount);
+        }
+        trackResults.addProperty(ALLOCATED_BYTES_KEY, (float) allocatedBytes / stepCount);
+        return trackResults;
+    }
+
+    /** Turns the "- box2d" counter names used in the debug HUD into "box2d" */
+    private static String getMetricName(PerformanceCounter counter) {
+        return counter.name.startsWith("- ") ? counter.name.substring(2) : counter.name;
+    }
+
+    private static void printTrackResults(String trackId, JsonObject trackResults) {
+        System.out.println(trackId);
+        for (Map.Entry<String, JsonElement> entry : trackResults.entrySet()) {
+            String unit = entry.getKey().equals(ALLOCATED_BYTES_KEY) ? "bytes" : "ns";
+            System.out.printf(
+                    "  %-16s %12.1f %s/step\n",
+                    entry.getKey(), entry.getValue().getAsFloat(), unit);
+        }
+    }
+
+    /**
+     * Returns false if a metric of results is more than threshold (a ratio) above the same metric
+     * in baseline. Metrics which are not in baseline are ignored.
+     */
+    private static boolean checkRegressions(
+            JsonObject baseline, JsonObject results, float threshold) {
+        boolean ok = true;
+        for (Map.Entry<String, JsonElement> trackEntry : results.entrySet()) {
+            String trackId = trackEntry.getKey();
+            if (!baseline.has(trackId)) {
+                continue;
+            }
+            JsonObject baselineTrack = baseline.getAsJsonObject(trackId);
+            for (Map.Entry<String, JsonElement> entry :
+                    trackEntry.getValue().getAsJsonObject().entrySet()) {
+                String metric = entry.getKey();
+                if (!baselineTrack.has(metric)) {
+                    continue;
+                }
+                float expected = baselineTrack.get(metric).getAsFloat();
+                float actual = entry.getValue().getAsFloat();
+                if (actual > expected * (1 + threshold)) {
+                    System.out.printf(
+                            "REGRESSION %s %s: %.1f, baseline: %.1f (+%.0f%%)\n",
+                            trackId,
+                            metric,
+                            actual,
+                            expected,
+                            expected > 0 ? (actual / expected - 1) * 100 : 100);
+                    ok = false;
+                }
+            }
+        }
+        return ok;
+    }
+}
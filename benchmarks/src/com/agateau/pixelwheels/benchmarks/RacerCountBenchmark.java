@@ -0,0 +1,120 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.benchmarks;
+
+import com.agateau.pixelwheels.Assets;
+import com.agateau.pixelwheels.GameWorld;
+import com.agateau.pixelwheels.headless.HeadlessRaceRunner;
+import com.agateau.pixelwheels.map.Track;
+import com.agateau.pixelwheels.racescreen.GameWorldImpl;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.PerformanceCounter;
+import com.badlogic.gdx.utils.PerformanceCounters;
+
+/**
+ * Runs a fixed-seed AI-only race on a track with an increasing number of racers and reports, for
+ * each racer count, the time spent per step in each subsystem. This shows which subsystem stops
+ * scaling first when the grid gets larger.
+ *
+ * <p>The "other" column is the time spent in GameWorld.act() outside of the other subsystems, it
+ * includes the racer ranking and the spatial index updates. The "frame" column is the share of a 60
+ * FPS frame used by GameWorld.act(), rendering is not included.
+ *
+ * <p>Must be run from the assets directory.
+ */
+public class RacerCountBenchmark {
+    private static final long SEED = 1234;
+    private static final int[] RACER_COUNTS = {6, 16, 32, 48, 64};
+    private static final String DEFAULT_TRACK_ID = "race";
+    /** Simulated duration of the races, count down included */
+    private static final float DEFAULT_RACE_DURATION = 60;
+    /** Simulated duration of the race run before measuring, to warm up the JIT */
+    private static final float WARMUP_DURATION = 10;
+
+    private static final float FRAME_DURATION = 1 / 60f;
+
+    private static final String STEP_COUNTER_NAME = "GameWorld.act";
+
+    private final Assets mAssets;
+    private final HeadlessRaceRunner mRunner;
+
+    private RacerCountBenchmark() {
+        mAssets = BenchmarkUtils.getAssets();
+        mRunner = new HeadlessRaceRunner(mAssets);
+    }
+
+    public static void main(String[] args) {
+        String trackId = args.length > 0 ? args[0] : DEFAULT_TRACK_ID;
+        float duration = args.length > 1 ? Float.parseFloat(args[1]) : DEFAULT_RACE_DURATION;
+
+        RacerCountBenchmark benchmark = new RacerCountBenchmark();
+        benchmark.runRace(trackId, RACER_COUNTS[RACER_COUNTS.length - 1], WARMUP_DURATION);
+
+        System.out.println(trackId + ", times in us/step");
+        System.out.printf(
+                "%7s %10s %10s %10s %10s %8s\n", "racers", "act", "box2d", "g.o", "other", "frame");
+        for (int racerCount : RACER_COUNTS) {
+            PerformanceCounters counters = benchmark.runRace(trackId, racerCount, duration);
+            float act = getTimePerStep(counters, STEP_COUNTER_NAME);
+            float box2d = getTimePerStep(counters, "- box2d");
+            float gameObjects = getTimePerStep(counters, "- g.o");
+            System.out.printf(
+                    "%7d %10.1f %10.1f %10.1f %10.1f %7.1f%%\n",
+                    racerCount,
+                    act * 1e6f,
+                    box2d * 1e6f,
+                    gameObjects * 1e6f,
+                    (act - box2d - gameObjects) * 1e6f,
+                    act / FRAME_DURATION * 100);
+        }
+    }
+
+    /** Races for duration seconds on trackId and returns the performance counters of the race */
+    private PerformanceCounters runRace(String trackId, int racerCount, float duration) {
+        Array<String> vehicleIds = new Array<>();
+        for (int idx = 0; idx < racerCount; ++idx) {
+            vehicleIds.add(mAssets.vehicleDefs.get(idx % mAssets.vehicleDefs.size).id);
+        }
+        PerformanceCounters counters = new PerformanceCounters();
+        PerformanceCounter stepCounter = counters.add(STEP_COUNTER_NAME);
+        GameWorldImpl world =
+                mRunner.createWorld(new Track(trackId, trackId), vehicleIds, counters);
+        world.setSeed(SEED);
+
+        for (float time = 0; time < duration; time += GameWorld.BOX2D_TIME_STEP) {
+            stepCounter.start();
+            world.act(GameWorld.BOX2D_TIME_STEP);
+            stepCounter.stop();
+            counters.tick(GameWorld.BOX2D_TIME_STEP);
+        }
+        mRunner.disposeWorld(world);
+        return counters;
+    }
+
+    /** Returns the average time per step of the counter called name, in seconds */
+    private static float getTimePerStep(PerformanceCounters counters, String name) {
+        for (PerformanceCounter counter : counters.counters) {
+            if (counter.name.equals(name)) {
+                // PerformanceCounters are ticked once per step
+                return counter.time.total / counter.time.count;
+            }
+        }
+        throw new IllegalArgumentException("No counter named " + name);
+    }
+}
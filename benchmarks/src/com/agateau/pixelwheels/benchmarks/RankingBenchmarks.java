@@ -0,0 +1,169 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.benchmarks;
+
+import com.agateau.pixelwheels.Assets;
+import com.agateau.pixelwheels.gamesetup.GameInfo;
+import com.agateau.pixelwheels.headless.HeadlessRaceRunner;
+import com.agateau.pixelwheels.map.Track;
+import com.agateau.pixelwheels.map.WaypointStore;
+import com.agateau.pixelwheels.racer.Racer;
+import com.agateau.pixelwheels.racer.RacerComparator;
+import com.agateau.pixelwheels.racer.RacerRanking;
+import com.agateau.pixelwheels.racer.Vehicle;
+import com.agateau.pixelwheels.racescreen.GameWorldImpl;
+import com.agateau.pixelwheels.sound.AudioManager;
+import com.agateau.pixelwheels.sound.DefaultAudioManager;
+import com.agateau.pixelwheels.vehicledef.VehicleCreator;
+import com.agateau.pixelwheels.vehicledef.VehicleDef;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Sort;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the per-step racer ranking work: sorting the racers and looking up their ranks.
+ *
+ * <p>Racers are spread along the waypoints of the track. Each sort invocation swaps two racers next
+ * to each other, as when a racer overtakes another one, then sorts the racers again. Each lookup
+ * invocation looks up the rank of every racer, as the AI pilots and the hud do.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RankingBenchmarks {
+    @Param({"6", "64"})
+    public int racerCount;
+
+    private HeadlessRaceRunner mRunner;
+    private GameWorldImpl mWorld;
+
+    private final Array<Racer> mRacers = new Array<>(Racer.class);
+    private final RacerRanking mRacerRanking = new RacerRanking();
+    private final Sort mSort = new Sort();
+    private final RacerComparator mRacerComparator = new RacerComparator();
+    private int mSwapIndex = 0;
+
+    @Setup
+    public void setup() {
+        Assets assets = BenchmarkUtils.getAssets();
+        AudioManager audioManager = new DefaultAudioManager();
+        audioManager.setMuted(true);
+        Array<String> vehicleIds = new Array<>();
+        vehicleIds.add(assets.vehicleDefs.first().id);
+        mRunner = new HeadlessRaceRunner(assets);
+        mWorld = mRunner.createWorld(new Track("race", "race"), vehicleIds);
+
+        // Create the racers outside of the world, so that there can be more racers than start
+        // positions. The world is never stepped, so it does not matter that they overlap.
+        WaypointStore store = mWorld.getTrack().getWaypointStore();
+        VehicleCreator creator = new VehicleCreator(assets, mWorld);
+        Vector2 position = new Vector2();
+        Vector2 nextWaypoint = new Vector2();
+        for (int idx = 0; idx < racerCount; ++idx) {
+            // Spread the racers along the waypoints, the last racer being on the first waypoint
+            float waypointPosition = (racerCount - 1 - idx) * store.getCount() / (float) racerCount;
+            int waypointIdx = (int) waypointPosition;
+            store.getWaypoint(waypointIdx, position)
+                    .lerp(
+                            store.getWaypoint(store.getNextIndex(waypointIdx), nextWaypoint),
+                            waypointPosition - waypointIdx);
+
+            VehicleDef vehicleDef = assets.vehicleDefs.get(idx % assets.vehicleDefs.size);
+            Vehicle vehicle = creator.create(vehicleDef, position, 90);
+            GameInfo.Entrant entrant = new GameInfo.Entrant(vehicleDef.id);
+            Racer racer = new Racer(assets, audioManager, mWorld, vehicle, entrant);
+            racer.getLapPositionComponent().act(0);
+            mRacers.add(racer);
+        }
+        mRacerRanking.update(mRacers);
+    }
+
+    @TearDown
+    public void tearDown() {
+        for (Racer racer : mRacers) {
+            racer.dispose();
+        }
+        mRunner.disposeWorld(mWorld);
+    }
+
+    /** Swaps two racers next to each other, so that the list is almost sorted */
+    private void swapRacers() {
+        mSwapIndex = (mSwapIndex + 1) % (mRacers.size - 1);
+        mRacers.swap(mSwapIndex, mSwapIndex + 1);
+    }
+
+    @Benchmark
+    public Racer racerRankingUpdate() {
+        swapRacers();
+        mRacerRanking.update(mRacers);
+        return mRacers.first();
+    }
+
+    /** How racers used to be sorted */
+    @Benchmark
+    public Racer racerSort() {
+        swapRacers();
+        mSort.sort(mRacers.items, mRacerComparator, 0, mRacers.size);
+        return mRacers.first();
+    }
+
+    @Benchmark
+    public int racerGetRank() {
+        int sum = 0;
+        for (int idx = 0; idx < mRacers.size; ++idx) {
+            sum += mRacers.get(idx).getRank();
+        }
+        return sum;
+    }
+
+    /** How ranks used to be looked up: by looking for the racer in the sorted list */
+    @Benchmark
+    public int racerFindRank() {
+        int sum = 0;
+        for (int idx = 0; idx < mRacers.size; ++idx) {
+            sum += findRank(mRacers.get(idx));
+        }
+        return sum;
+    }
+
+    private int findRank(Racer racer) {
+        for (int idx = mRacers.size - 1; idx >= 0; --idx) {
+            if (mRacers.get(idx) == racer) {
+                return idx + 1;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.benchmarks;
+
+import com.agateau.pixelwheels.Constants;
+import com.agateau.pixelwheels.map.LapPosition;
+import com.agateau.pixelwheels.map.LapPositionTable;
+import com.agateau.pixelwheels.map.Material;
+import com.agateau.pixelwheels.map.Track;
+import com.agateau.pixelwheels.map.Warper;
+import com.agateau.pixelwheels.utils.OrientedPoint;
+import com.badlogic.gdx.math.Polygon;
+import com.badlogic.gdx.math.Vector2;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the track lookups done for each racer at each step: lap position, material and
+ * waypoints.
+ *
+ * <p>Each invocation looks up the next one of a fixed set of positions spread over the track.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TrackBenchmarks {
+    @Param({"race", "snow2", "be", "tiny-sur-mer"})
+    public String trackId;
+
+    private Track mTrack;
+    /** A copy of the track lap position table, without the precomputed grid */
+    private final LapPositionTable mGridlessTable = new LapPositionTable();
+
+    private final Warper mWarper = new Warper();
+    /** Positions in pixels, as used by LapPositionTable */
+    private Vector2[] mPositions;
+    /** mPositions in world units */
+    private Vector2[] mWorldPositions;
+
+    private float[] mLapDistances;
+    /** mLapDistances sorted, to simulate a racer going around the track */
+    private float[] mSortedLapDistances;
+
+    private int mIndex = 0;
+    private int mWaypointIndexHint = -1;
+
+    @Setup
+    public void setup() {
+        mTrack = BenchmarkUtils.loadTrack(trackId);
+        LapPositionTable table = mTrack.getLapPositionTable();
+        for (int idx = 0; idx < table.getSectionCount(); ++idx) {
+            mGridlessTable.addSection(idx, table.getSectionPolygon(idx));
+        }
+
+        mPositions = BenchmarkUtils.createTrackPositions(mTrack);
+        mWorldPositions = new Vector2[mPositions.length];
+        mLapDistances = new float[mPositions.length];
+        for (int idx = 0; idx < mPositions.length; ++idx) {
+            Vector2 pos = mPositions[idx];
+            mWorldPositions[idx] = pos.cpy().scl(Constants.UNIT_FOR_PIXEL);
+            mLapDistances[idx] = table.get((int) pos.x, (int) pos.y).getLapDistance();
+        }
+        mSortedLapDistances = mLapDistances.clone();
+        Arrays.sort(mSortedLapDistances);
+
+        // Same setup as the warpers of LapPositionTable sections
+        Polygon polygon = table.getSectionPolygon(0);
+        float[] vertices = polygon.getTransformedVertices();
+        mWarper.setSource(
+                vertices[0], vertices[1],
+                vertices[2], vertices[3],
+                vertices[4], vertices[5],
+                vertices[6], vertices[7]);
+        mWarper.setDestination(
+                0, -1,
+                1, -1,
+                1, 1,
+                0, 1);
+    }
+
+    @TearDown
+    public void tearDown() {
+        mTrack.dispose();
+    }
+
+    private int nextIndex() {
+        mIndex = (mIndex + 1) & (BenchmarkUtils.POSITION_COUNT - 1);
+        return mIndex;
+    }
+
+    @Benchmark
+    public LapPosition lapPositionTableGet() {
+        Vector2 pos = mPositions[nextIndex()];
+        return mTrack.getLapPositionTable().get((int) pos.x, (int) pos.y);
+    }
+
+    @Benchmark
+    public LapPosition lapPositionTableGetWithoutGrid() {
+        Vector2 pos = mPositions[nextIndex()];
+        return mGridlessTable.get((int) pos.x, (int) pos.y);
+    }
+
+    @Benchmark
+    public Vector2 warperWarp() {
+        Vector2 pos = mPositions[nextIndex()];
+        return mWarper.warp(pos.x, pos.y);
+    }
+
+    @Benchmark
+    public Material trackGetMaterialAt() {
+        return mTrack.getMaterialAt(mWorldPositions[nextIndex()]);
+    }
+
+    @Benchmark
+    public int waypointStoreGetWaypointIndex() {
+        return mTrack.getWaypointStore().getWaypointIndex(mLapDistances[nextIndex()]);
+    }
+
+    @Benchmark
+    public int waypointStoreGetWaypointIndexWithHint() {
+        mWaypointIndexHint =
+                mTrack.getWaypointStore()
+                        .getWaypointIndex(mSortedLapDistances[nextIndex()], mWaypointIndexHint);
+        return mWaypointIndexHint;
+    }
+
+    @Benchmark
+    public OrientedPoint waypointStoreGetValidPosition() {
+        int idx = nextIndex();
+        return mTrack.getWaypointStore().getValidPosition(mWorldPositions[idx], mLapDistances[idx]);
+    }
+}
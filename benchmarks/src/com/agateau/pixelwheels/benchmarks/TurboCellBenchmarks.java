@@ -0,0 +1,105 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.benchmarks;
+
+import com.agateau.pixelwheels.GameWorld;
+import com.agateau.pixelwheels.racer.TurboCellTimers;
+import com.badlogic.gdx.utils.ArrayMap;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the turbo cell checks a vehicle does at each step, with TurboCellTimers and with the
+ * ArrayMap it replaced.
+ *
+ * <p>Each invocation checks the cells under the 4 wheels of a vehicle driving over a line of turbo
+ * cells, then updates the timers. Run with `-prof gc` to check the allocation rate: the
+ * gc.alloc.rate.norm value of turboCellTimers must be 0.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TurboCellBenchmarks {
+    private static final int WHEEL_COUNT = 4;
+    // Same value as GamePlay.turboDuration
+    private static final float TURBO_DURATION = 0.5f;
+    /** Number of steps spent by a wheel on a cell */
+    private static final int STEPS_PER_CELL = 8;
+    /** Number of cells of the line of turbo cells, a power of 2 */
+    private static final int CELL_COUNT = 256;
+
+    private final TurboCellTimers mTurboCellTimers = new TurboCellTimers(8);
+    private final ArrayMap<Long, Float> mTurboCellMap = new ArrayMap<>(8);
+    private int mStep = 0;
+
+    /** Returns the ID of the cell under wheel at the current step */
+    private long getCellId(int wheel) {
+        int x = ((mStep + wheel) / STEPS_PER_CELL) & (CELL_COUNT - 1);
+        int y = wheel / 2;
+        return y * CELL_COUNT + x;
+    }
+
+    @Benchmark
+    public int turboCellTimers() {
+        ++mStep;
+        int triggerCount = 0;
+        for (int wheel = 0; wheel < WHEEL_COUNT; ++wheel) {
+            long cellId = getCellId(wheel);
+            if (!mTurboCellTimers.contains(cellId)) {
+                ++triggerCount;
+                mTurboCellTimers.add(cellId, TURBO_DURATION);
+            }
+        }
+        mTurboCellTimers.update(GameWorld.BOX2D_TIME_STEP);
+        return triggerCount;
+    }
+
+    @Benchmark
+    public int arrayMap() {
+        ++mStep;
+        int triggerCount = 0;
+        for (int wheel = 0; wheel < WHEEL_COUNT; ++wheel) {
+            long cellId = getCellId(wheel);
+            if (!mTurboCellMap.containsKey(cellId)) {
+                ++triggerCount;
+                mTurboCellMap.put(cellId, TURBO_DURATION);
+            }
+        }
+        for (int idx = mTurboCellMap.size - 1; idx >= 0; --idx) {
+            float duration = mTurboCellMap.getValueAt(idx) - GameWorld.BOX2D_TIME_STEP;
+            if (duration <= 0) {
+                mTurboCellMap.removeIndex(idx);
+            } else {
+                mTurboCellMap.setValue(idx, duration);
+            }
+        }
+        return triggerCount;
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.benchmarks;
+
+import com.agateau.pixelwheels.Assets;
+import com.agateau.pixelwheels.GamePlay;
+import com.agateau.pixelwheels.GameWorld;
+import com.agateau.pixelwheels.bonus.ClosestRacerFinder;
+import com.agateau.pixelwheels.headless.HeadlessRaceRunner;
+import com.agateau.pixelwheels.map.Track;
+import com.agateau.pixelwheels.map.WaypointStore;
+import com.agateau.pixelwheels.racer.Racer;
+import com.agateau.pixelwheels.racer.RacerComparator;
+import com.agateau.pixelwheels.racer.Vehicle;
+import com.agateau.pixelwheels.racescreen.GameWorldImpl;
+import com.agateau.pixelwheels.utils.ClosestBodyFinder;
+import com.agateau.pixelwheels.utils.StaticBodyFinder;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Sort;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the queries racers and bonuses run against the game world.
+ *
+ * <p>The world is an AI-only race, advanced by RACE_DURATION seconds so that racers are spread over
+ * the track. Each invocation runs its query from the next racer position.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WorldBenchmarks {
+    private static final float RACE_DURATION = 20;
+    // Same values as Missile
+    private static final float FINDER_DEPTH = 40;
+    private static final float FINDER_ARC = 120;
+
+    @Param({"race", "snow2", "be", "tiny-sur-mer"})
+    public String trackId;
+
+    private HeadlessRaceRunner mRunner;
+    private GameWorldImpl mWorld;
+
+    private final Sort mSort = new Sort();
+    private final RacerComparator mRacerComparator = new RacerComparator();
+    private final Array<Racer> mSortedRacers = new Array<>(Racer.class);
+    private final Array<Racer> mReversedRacers = new Array<>(Racer.class);
+    private final Array<Racer> mWorkRacers = new Array<>(Racer.class);
+
+    private final ClosestBodyFinder mClosestBodyFinder =
+            new ClosestBodyFinder(FINDER_DEPTH, FINDER_ARC);
+    private final ClosestRacerFinder mClosestRacerFinder =
+            new ClosestRacerFinder(FINDER_DEPTH, FINDER_ARC);
+    private final StaticBodyFinder mStaticBodyFinder = new StaticBodyFinder();
+    /** For each racer, the position of the waypoint it is heading to */
+    private Vector2[] mTargetWaypoints;
+
+    private int mIndex = 0;
+
+    @Setup
+    public void setup() {
+        Assets assets = BenchmarkUtils.getAssets();
+        Array<String> vehicleIds = new Array<>();
+        for (int idx = 0; idx < GamePlay.instance.racerCount; ++idx) {
+            vehicleIds.add(assets.vehicleDefs.get(idx % assets.vehicleDefs.size).id);
+        }
+        mRunner = new HeadlessRaceRunner(assets);
+        mWorld = mRunner.createWorld(new Track(trackId, trackId), vehicleIds);
+        for (float time = 0; time < RACE_DURATION; time += GameWorld.BOX2D_TIME_STEP) {
+            mWorld.act(GameWorld.BOX2D_TIME_STEP);
+        }
+
+        Array<Racer> racers = mWorld.getRacers();
+        mSortedRacers.addAll(racers);
+        mReversedRacers.addAll(racers);
+        mReversedRacers.reverse();
+
+        WaypointStore store = mWorld.getTrack().getWaypointStore();
+        mTargetWaypoints = new Vector2[racers.size];
+        for (int idx = 0; idx < racers.size; ++idx) {
+            float lapDistance = racers.get(idx).getLapPositionComponent().getLapDistance();
+            mTargetWaypoints[idx] =
+                    store.getWaypoint(store.getWaypointIndex(lapDistance), new Vector2());
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        mRunner.disposeWorld(mWorld);
+    }
+
+    private int nextIndex() {
+        mIndex = (mIndex + 1) % mSortedRacers.size;
+        return mIndex;
+    }
+
+    /** The common case: racer ranks rarely change between two steps */
+    @Benchmark
+    public Racer racerSortSorted() {
+        mWorkRacers.clear();
+        mWorkRacers.addAll(mSortedRacers);
+        mSort.sort(mWorkRacers.items, mRacerComparator, 0, mWorkRacers.size);
+        return mWorkRacers.first();
+    }
+
+    @Benchmark
+    public Racer racerSortReversed() {
+        mWorkRacers.clear();
+        mWorkRacers.addAll(mReversedRacers);
+        mSort.sort(mWorkRacers.items, mRacerComparator, 0, mWorkRacers.size);
+        return mWorkRacers.first();
+    }
+
+    @Benchmark
+    public Body closestBodyFinderFind() {
+        Vehicle vehicle = mSortedRacers.get(nextIndex()).getVehicle();
+        return mClosestBodyFinder.find(
+                mWorld.getBox2DWorld(), vehicle.getPosition(), vehicle.getAngle());
+    }
+
+    @Benchmark
+    public Racer closestRacerFinderFind() {
+        Racer racer = mSortedRacers.get(nextIndex());
+        Vehicle vehicle = racer.getVehicle();
+        mClosestRacerFinder.setIgnoredRacer(racer);
+        return mClosestRacerFinder.find(mWorld, vehicle.getPosition(), vehicle.getAngle());
+    }
+
+    @Benchmark
+    public Body staticBodyFinderFind() {
+        int idx = nextIndex();
+        Vehicle vehicle = mSortedRacers.get(idx).getVehicle();
+        return mStaticBodyFinder.find(
+                mWorld.getBox2DWorld(), vehicle.getPosition(), mTargetWaypoints[idx]);
+    }
+}
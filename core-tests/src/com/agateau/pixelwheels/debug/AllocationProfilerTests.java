@@ -0,0 +1,75 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.debug;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class AllocationProfilerTests {
+    /** A fake source which allocates 8 bytes each time it is read */
+    private static class FakeSource implements AllocationProfiler.AllocatedBytesSource {
+        long bytes = 0;
+
+        @Override
+        public long getAllocatedBytes() {
+            bytes += 8;
+            return bytes;
+        }
+    }
+
+    @After
+    public void tearDown() {
+        AllocationProfiler.setAllocatedBytesSource(null);
+    }
+
+    @Test
+    public void testNestedSections() {
+        // GIVEN a profiler with two nested sections
+        FakeSource source = new FakeSource();
+        AllocationProfiler.setAllocatedBytesSource(source);
+        AllocationProfiler profiler = new AllocationProfiler(true);
+        AllocationProfiler.Section outer = profiler.add("outer");
+        AllocationProfiler.Section inner = profiler.add("inner");
+
+        // WHEN 100 bytes are allocated in the outer section and 1000 in the inner one
+        outer.start();
+        source.bytes += 100;
+        inner.start();
+        source.bytes += 1000;
+        inner.stop();
+        outer.stop();
+        profiler.tick(1);
+
+        // THEN the bytes allocated by the source are not counted
+        assertThat(DebugStringMap.getMap().get("Alloc outer"), is("1100 B"));
+        assertThat(DebugStringMap.getMap().get("Alloc inner"), is("1000 B"));
+    }
+
+    @Test
+    public void testDisabledWithoutSource() {
+        AllocationProfiler profiler = new AllocationProfiler(true);
+        assertThat(profiler.isEnabled(), is(false));
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.gameobjet;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.agateau.pixelwheels.ZLevel;
+import com.badlogic.gdx.utils.Array;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class ZLevelBucketsTests {
+    @Test
+    public void testObjectsAreOnlyInTheirLevels() {
+        // GIVEN two objects drawing at different levels
+        GameObject ground = createObject(ZLevel.GROUND);
+        GameObject both = createObject(ZLevel.GROUND, ZLevel.FLYING);
+
+        // WHEN they are added
+        ZLevelBuckets buckets = new ZLevelBuckets();
+        buckets.add(ground);
+        buckets.add(both);
+
+        // THEN each level only contains the objects drawing at it, in the order they were added
+        assertThat(buckets.get(ZLevel.GROUND), is(Array.with(ground, both)));
+        assertThat(buckets.get(ZLevel.FLYING), is(Array.with(both)));
+        assertThat(buckets.get(ZLevel.VEHICLES).size, is(0));
+    }
+
+    @Test
+    public void testRemoveKeepsOrder() {
+        // GIVEN three objects drawing at the same level
+        GameObject obj1 = createObject(ZLevel.OBSTACLES);
+        GameObject obj2 = createObject(ZLevel.OBSTACLES);
+        GameObject obj3 = createObject(ZLevel.OBSTACLES);
+        ZLevelBuckets buckets = new ZLevelBuckets();
+        buckets.add(obj1);
+        buckets.add(obj2);
+        buckets.add(obj3);
+
+        // WHEN the one in the middle is removed
+        buckets.remove(obj2);
+
+        // THEN the others are still drawn in the same order
+        assertThat(buckets.get(ZLevel.OBSTACLES), is(Array.with(obj1, obj3)));
+    }
+
+    private static GameObject createObject(ZLevel... zLevels) {
+        GameObject object = mock(GameObject.class);
+        when(object.getZLevels()).thenReturn(zLevels);
+        return object;
+    }
+}
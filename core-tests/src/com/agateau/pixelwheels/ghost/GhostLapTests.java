@@ -0,0 +1,127 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.ghost;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.notNullValue;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+
+import com.agateau.utils.AgcMathUtils;
+import com.badlogic.gdx.files.FileHandle;
+import java.nio.ByteBuffer;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class GhostLapTests {
+    private static final float EPSILON = 0.01f;
+
+    @Rule public TemporaryFolder mTemporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testGetPoseInterpolates() {
+        // GIVEN a lap with two samples
+        GhostLap lap = new GhostLap(10);
+        lap.addSample(10, 20, 350, -4);
+        lap.addSample(12, 18, 10, 4);
+
+        // WHEN I get the pose between the two samples
+        GhostLap.Pose pose = new GhostLap.Pose();
+        boolean found = lap.getPose(GhostLap.SAMPLE_INTERVAL / 2, pose);
+
+        // THEN it is interpolated, going through 0 for the angle
+        assertThat(found, is(true));
+        assertEquals(11, pose.x, EPSILON);
+        assertEquals(19, pose.y, EPSILON);
+        assertEquals(0, AgcMathUtils.normalizeAngle180(pose.angle), EPSILON);
+        assertEquals(0, pose.steerAngle, EPSILON);
+    }
+
+    @Test
+    public void testGetPoseOutsideOfLap() {
+        // GIVEN a lap with two samples
+        GhostLap lap = new GhostLap(10);
+        lap.addSample(10, 20, 0, 0);
+        lap.addSample(12, 18, 0, 0);
+
+        // WHEN I get the pose after the end of the lap
+        // THEN there is none
+        assertThat(lap.getPose(GhostLap.SAMPLE_INTERVAL * 2, new GhostLap.Pose()), is(false));
+    }
+
+    @Test
+    public void testReadWrite() {
+        // GIVEN a lap
+        GhostLap lap = new GhostLap(10);
+        lap.setVehicleId("red");
+        lap.setLapTime(12.5f);
+        lap.addSample(10, 20, 90, 2);
+        lap.addSample(12, 18, 92, 3);
+
+        // WHEN I write it and read it back
+        FileHandle file = new FileHandle(mTemporaryFolder.getRoot() + "/lap.ghost");
+        GhostIO.write(lap, file);
+        GhostLap lap2 = GhostIO.read(file);
+
+        // THEN the read lap is the same
+        assertThat(lap2, is(notNullValue()));
+        assertThat(lap2.getVehicleId(), is("red"));
+        assertThat(lap2.getLapTime(), is(12.5f));
+        assertThat(lap2.getSampleCount(), is(2));
+        GhostLap.Pose pose = new GhostLap.Pose();
+        lap2.getPose(GhostLap.SAMPLE_INTERVAL, pose);
+        assertEquals(12, pose.x, EPSILON);
+        assertEquals(92, pose.angle, EPSILON);
+        assertThat(pose.steerAngle, is(3f));
+    }
+
+    @Test
+    public void testReadDirectory() {
+        // GIVEN a path which is a directory
+        FileHandle file = new FileHandle(mTemporaryFolder.getRoot());
+
+        // WHEN I read it
+        // THEN no lap is returned
+        assertThat(GhostIO.read(file), is(nullValue()));
+    }
+
+    @Test
+    public void testReadTooLargeSampleCount() {
+        // GIVEN a lap file whose sample count does not fit in the file
+        GhostLap lap = new GhostLap(10);
+        lap.setVehicleId("red");
+        lap.addSample(10, 20, 90, 2);
+        FileHandle file = new FileHandle(mTemporaryFolder.getRoot() + "/lap.ghost");
+        GhostIO.write(lap, file);
+        byte[] bytes = file.readBytes();
+        // The sample count comes after the magic, the version, the vehicle id and the lap time
+        int sampleCountOffset = 4 + 4 + (2 + "red".length()) + 4;
+        ByteBuffer.wrap(bytes).putInt(sampleCountOffset, Integer.MAX_VALUE);
+        file.writeBytes(bytes, false /* append */);
+
+        // WHEN I read it
+        // THEN no lap is returned
+        assertThat(GhostIO.read(file), is(nullValue()));
+    }
+}
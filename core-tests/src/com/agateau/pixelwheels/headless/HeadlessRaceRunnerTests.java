@@ -0,0 +1,111 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.headless;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNot.not;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+import com.agateau.pixelwheels.Assets;
+import com.agateau.pixelwheels.GameWorld;
+import com.agateau.pixelwheels.map.Track;
+import com.agateau.pixelwheels.racer.Racer;
+import com.agateau.pixelwheels.racescreen.GameWorldImpl;
+import com.badlogic.gdx.utils.Array;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class HeadlessRaceRunnerTests {
+    // Long enough for the count down to finish and the racers to overtake each other
+    private static final int STEP_COUNT = 1200;
+
+    private static Assets sAssets;
+
+    @BeforeClass
+    public static void setUpClass() {
+        // The sprites are generated from core/assets-src, skip the tests if they have not been
+        File assetsDir = new File(System.getProperty("pixelwheels.assetsDir", "../android/assets"));
+        assumeTrue(new File(assetsDir, "sprites/sprites.atlas").exists());
+        HeadlessGdx.init(assetsDir);
+        sAssets = Assets.createHeadless();
+    }
+
+    @Test
+    public void testSameSeedGivesSameRace() {
+        // GIVEN two worlds with the same track, vehicles and seed
+        // WHEN they are run for the same number of steps
+        List<String> states1 = runWorld(12);
+        List<String> states2 = runWorld(12);
+
+        // THEN the racers have the same positions, angles and ranks
+        assertThat(states1, is(states2));
+    }
+
+    @Test
+    public void testDifferentSeedGivesDifferentRace() {
+        // GIVEN two worlds with the same track and vehicles, but different seeds
+        // WHEN they are run for the same number of steps
+        List<String> states1 = runWorld(12);
+        List<String> states2 = runWorld(13);
+
+        // THEN the racers do not have the same positions, angles and ranks
+        assertThat(states1, is(not(states2)));
+    }
+
+    /**
+     * Runs a world for STEP_COUNT steps, and returns the state of its racers, sorted by rank. The
+     * states are strings so that the assertion failures tell which racer differs.
+     */
+    private static List<String> runWorld(long seed) {
+        HeadlessRaceRunner runner = new HeadlessRaceRunner(sAssets);
+        Track templateTrack = sAssets.tracks.get(0);
+        Track track = new Track(templateTrack.getId(), templateTrack.getMapName());
+        Array<String> vehicleIds = new Array<>();
+        for (int idx = 0; idx < 4; ++idx) {
+            vehicleIds.add(sAssets.vehicleDefs.get(idx).id);
+        }
+
+        GameWorldImpl world = runner.createWorld(track, vehicleIds);
+        world.setSeed(seed);
+        for (int step = 0; step < STEP_COUNT; ++step) {
+            world.act(GameWorld.BOX2D_TIME_STEP);
+        }
+
+        List<String> states = new ArrayList<>();
+        for (Racer racer : world.getRacers()) {
+            states.add(
+                    String.format(
+                            "%d %s (%s, %s) %s",
+                            world.getRacerRank(racer),
+                            racer.getVehicle().getId(),
+                            racer.getPosition().x,
+                            racer.getPosition().y,
+                            racer.getVehicle().getAngle()));
+        }
+        runner.disposeWorld(world);
+        return states;
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.map;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+
+import com.badlogic.gdx.math.Polygon;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class LapPositionTableTests {
+    private static final int WIDTH = 120;
+    private static final int HEIGHT = 60;
+
+    @Test
+    public void testGridMatchesPolygonLookup() {
+        // GIVEN two tables with the same sections, one of them with a precomputed grid
+        LapPositionTable table = createTable();
+        LapPositionTable gridTable = createTable();
+        gridTable.buildGrid(WIDTH, HEIGHT);
+
+        // WHEN I look up positions in both tables
+        // THEN they return the same sections, and close section distances
+        for (int y = 0; y < HEIGHT; ++y) {
+            for (int x = 0; x < WIDTH; ++x) {
+                LapPosition expected = table.get(x, y);
+                LapPosition actual = gridTable.get(x, y);
+                if (expected == null) {
+                    assertThat(actual, is(nullValue()));
+                    continue;
+                }
+                assertThat(actual.getSectionId(), is(expected.getSectionId()));
+                assertEquals(
+                        expected.getSectionDistance(),
+                        actual.getSectionDistance(),
+                        LapPositionTable.GRID_CELL_SIZE / 50f);
+            }
+        }
+    }
+
+    @Test
+    public void testGridSkipsCellsOnSectionBorders() {
+        // GIVEN a table with a precomputed grid
+        LapPositionTable table = createTable();
+        table.buildGrid(WIDTH, HEIGHT);
+
+        // THEN cells inside a single section are precomputed
+        int[] grid = table.getGrid();
+        int gridWidth = table.getGridWidth();
+        assertThat(grid[gridWidth + 2] != LapPositionTable.UNKNOWN_CELL, is(true));
+
+        // AND cells crossing the border between the two sections are not
+        int borderCol = 50 / LapPositionTable.GRID_CELL_SIZE;
+        assertThat(grid[gridWidth + borderCol], is(LapPositionTable.UNKNOWN_CELL));
+    }
+
+    @Test
+    public void testGridWithNonContiguousSectionIds() {
+        // GIVEN a table whose section ids do not match their indexes, with a precomputed grid
+        LapPositionTable table = new LapPositionTable();
+        table.addSection(3, new Polygon(new float[] {0, 2, 50, 2, 50, 52, 0, 52}));
+        table.addSection(7, new Polygon(new float[] {50, 2, 100, 2, 100, 52, 50, 52}));
+        table.buildGrid(WIDTH, HEIGHT);
+
+        // WHEN I look up positions inside each section
+        LapPosition pos1 = table.get(10, 10);
+        int sectionId1 = pos1.getSectionId();
+        LapPosition pos2 = table.get(90, 10);
+        int sectionId2 = pos2.getSectionId();
+
+        // THEN the section ids are the ones passed to addSection()
+        assertThat(sectionId1, is(3));
+        assertThat(sectionId2, is(7));
+    }
+
+    /** Creates a table with two 50x50 pixel sections, side by side, starting at (0, 2) */
+    private static LapPositionTable createTable() {
+        LapPositionTable table = new LapPositionTable();
+        table.addSection(0, new Polygon(new float[] {0, 2, 50, 2, 50, 52, 0, 52}));
+        table.addSection(1, new Polygon(new float[] {50, 2, 100, 2, 100, 52, 50, 52}));
+        return table;
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.map;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import com.agateau.pixelwheels.Constants;
+import com.agateau.pixelwheels.utils.OrientedPoint;
+import com.badlogic.gdx.math.Polygon;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class StartPositionGeneratorTests {
+    private static final float U = Constants.UNIT_FOR_PIXEL;
+    private static final int RACER_COUNT = 64;
+    // The track goes up, from y = 0 to y = SECTION_COUNT * SECTION_HEIGHT pixels
+    private static final int SECTION_COUNT = 20;
+    private static final int SECTION_HEIGHT = 200;
+    private static final int TRACK_CENTER_X = 50;
+    // Start tiles are 2 units apart on the x axis and 1.5 units apart on the y axis
+    private static final float LEFT_LANE_X = 1.5f;
+    private static final float RIGHT_LANE_X = 3.5f;
+    private static final float START_Y = 180;
+    private static final float ROW_SPACING = 1.5f;
+
+    @Test
+    public void testPositionsOnWideTrack() {
+        // GIVEN a straight track, wide enough for both lanes
+        LapPositionTable table = createTable(100, 100);
+
+        // WHEN I generate start positions
+        Array<OrientedPoint> positions = generate(table, null);
+
+        // THEN they are all on the track, and do not overlap
+        checkPositions(table, null, positions);
+    }
+
+    @Test
+    public void testPositionsOnNarrowTrack() {
+        // GIVEN a track which is too narrow for the lanes in part of the grid
+        LapPositionTable table = createTable(30, 100);
+
+        // WHEN I generate start positions
+        Array<OrientedPoint> positions = generate(table, null);
+
+        // THEN they are all on the track, and do not overlap
+        checkPositions(table, null, positions);
+    }
+
+    @Test
+    public void testPositionsAvoidHoles() {
+        // GIVEN a wide track, with a hole on the left lane, behind the start tiles
+        LapPositionTable table = createTable(100, 100);
+        Rectangle hole = new Rectangle(0, 150, TRACK_CENTER_X * U, 20);
+
+        // WHEN I generate start positions
+        Array<OrientedPoint> positions = generate(table, hole);
+
+        // THEN they are all on the track, outside the hole, and do not overlap
+        checkPositions(table, hole, positions);
+    }
+
+    /**
+     * Creates a straight track whose width is narrowWidth pixels in its third quarter and wideWidth
+     * pixels elsewhere
+     */
+    private static LapPositionTable createTable(int narrowWidth, int wideWidth) {
+        LapPositionTable table = new LapPositionTable();
+        for (int section = 0; section < SECTION_COUNT; ++section) {
+            boolean narrow = section >= SECTION_COUNT / 2 && section < SECTION_COUNT * 3 / 4;
+            float halfWidth = (narrow ? narrowWidth : wideWidth) / 2f;
+            float y0 = section * SECTION_HEIGHT;
+            float y1 = y0 + SECTION_HEIGHT;
+            // Vertices 0 and 3 are at the start of the section, vertices 1 and 2 at its end
+            float[] vertices = {
+                TRACK_CENTER_X + halfWidth, y0,
+                TRACK_CENTER_X + halfWidth, y1,
+                TRACK_CENTER_X - halfWidth, y1,
+                TRACK_CENTER_X - halfWidth, y0
+            };
+            table.addSection(section, new Polygon(vertices));
+        }
+        return table;
+    }
+
+    /** Generates the positions, hole can be null */
+    private static Array<OrientedPoint> generate(LapPositionTable table, Rectangle hole) {
+        WaypointStore store = new WaypointStore();
+        for (int section = 0; section < SECTION_COUNT; ++section) {
+            int y = section * SECTION_HEIGHT + SECTION_HEIGHT / 2;
+            float lapDistance = table.get(TRACK_CENTER_X, y).getLapDistance();
+            store.addWaypoint(TRACK_CENTER_X * U, y * U, lapDistance);
+        }
+
+        Array<OrientedPoint> positions = new Array<>();
+        positions.add(new OrientedPoint(LEFT_LANE_X, START_Y, 90));
+        positions.add(new OrientedPoint(RIGHT_LANE_X, START_Y - ROW_SPACING, 90));
+
+        StartPositionGenerator generator =
+                new StartPositionGenerator(
+                        table, store, pos -> hole != null && hole.contains(pos));
+        generator.generate(positions, RACER_COUNT);
+        return positions;
+    }
+
+    private static void checkPositions(
+            LapPositionTable table, Rectangle hole, Array<OrientedPoint> positions) {
+        assertThat(positions.size, is(RACER_COUNT));
+        float minDistance = Vector2.dst(LEFT_LANE_X, START_Y, RIGHT_LANE_X, START_Y - ROW_SPACING);
+        for (int idx = 0; idx < positions.size; ++idx) {
+            OrientedPoint point = positions.get(idx);
+            assertThat(
+                    "Position " + idx + " is not on the track",
+                    table.get((int) (point.x / U), (int) (point.y / U)) != null,
+                    is(true));
+            if (hole != null) {
+                assertThat(
+                        "Position " + idx + " is in the hole",
+                        hole.contains(point.x, point.y),
+                        is(false));
+            }
+            for (int otherIdx = 0; otherIdx < idx; ++otherIdx) {
+                OrientedPoint other = positions.get(otherIdx);
+                assertThat(
+                        "Position " + idx + " overlaps position " + otherIdx,
+                        Vector2.dst(point.x, point.y, other.x, other.y) >= minDistance,
+                        is(true));
+            }
+        }
+    }
+}
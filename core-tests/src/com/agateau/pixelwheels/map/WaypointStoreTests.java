@@ -0,0 +1,76 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.map;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class WaypointStoreTests {
+    private static final float[] LAP_DISTANCES = {2, 5, 5, 9, 14, 20};
+
+    @Test
+    public void testGetWaypointIndex() {
+        // GIVEN a store with a few waypoints
+        WaypointStore store = createStore();
+
+        // WHEN I look up the index for various lap distances
+        // THEN the index of the first waypoint after the lap distance is returned, or 0 after the
+        // last one
+        for (float lapDistance = 0; lapDistance < 25; lapDistance += 0.5f) {
+            assertThat(store.getWaypointIndex(lapDistance), is(linearSearch(lapDistance)));
+        }
+    }
+
+    @Test
+    public void testGetWaypointIndexWithHint() {
+        // GIVEN a store with a few waypoints
+        WaypointStore store = createStore();
+
+        // WHEN I look up the index for various lap distances, with any hint
+        // THEN the hint does not change the result
+        for (float lapDistance = 0; lapDistance < 25; lapDistance += 0.5f) {
+            for (int hint = -1; hint <= LAP_DISTANCES.length; ++hint) {
+                assertThat(
+                        store.getWaypointIndex(lapDistance, hint), is(linearSearch(lapDistance)));
+            }
+        }
+    }
+
+    private static WaypointStore createStore() {
+        WaypointStore store = new WaypointStore();
+        for (float lapDistance : LAP_DISTANCES) {
+            store.addWaypoint(lapDistance, 0, lapDistance);
+        }
+        return store;
+    }
+
+    private static int linearSearch(float lapDistance) {
+        for (int idx = 0; idx < LAP_DISTANCES.length; ++idx) {
+            if (lapDistance < LAP_DISTANCES[idx]) {
+                return idx;
+            }
+        }
+        return 0;
+    }
+}
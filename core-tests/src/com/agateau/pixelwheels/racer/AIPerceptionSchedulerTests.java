@@ -0,0 +1,63 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.racer;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class AIPerceptionSchedulerTests {
+    @Test
+    public void testPeriod() {
+        assertThat(new AIPerceptionScheduler(20).getPeriod(), is(3));
+        assertThat(new AIPerceptionScheduler(60).getPeriod(), is(1));
+        assertThat(new AIPerceptionScheduler(120).getPeriod(), is(1));
+    }
+
+    @Test
+    public void testStaggering() {
+        // GIVEN a scheduler updating 6 pilots every 3 steps
+        AIPerceptionScheduler scheduler = new AIPerceptionScheduler(20);
+        AIPilot[] pilots = new AIPilot[6];
+        for (int idx = 0; idx < pilots.length; ++idx) {
+            pilots[idx] = mock(AIPilot.class);
+            scheduler.addPilot(pilots[idx]);
+        }
+
+        for (int step = 0; step < 6; ++step) {
+            // WHEN the scheduler acts
+            scheduler.act();
+
+            // THEN 2 of the pilots, spread over the list, are scheduled
+            for (int idx = 0; idx < pilots.length; ++idx) {
+                boolean scheduled = (step + idx) % 3 == 0;
+                verify(pilots[idx], times(scheduled ? 1 : 0)).schedulePerception();
+                clearInvocations(pilots[idx]);
+            }
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.racer;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+import com.agateau.pixelwheels.Assets;
+import com.agateau.pixelwheels.GameWorld;
+import com.agateau.pixelwheels.headless.HeadlessGdx;
+import com.agateau.pixelwheels.headless.HeadlessRaceRunner;
+import com.agateau.pixelwheels.map.Track;
+import com.agateau.pixelwheels.racescreen.CollisionCategories;
+import com.agateau.pixelwheels.racescreen.GameWorldImpl;
+import com.agateau.pixelwheels.utils.Box2DUtils;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.physics.box2d.BodyDef;
+import com.badlogic.gdx.physics.box2d.PolygonShape;
+import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.utils.Array;
+import java.io.File;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class AIPilotTests {
+    private static final float WALL_THICKNESS = 0.4f;
+    // Space between the vehicle and the walls of the pocket
+    private static final float FRONT_MARGIN = 0.375f;
+    private static final float SIDE_MARGIN = 0.3f;
+    private static final float BACK_MARGIN = 0.375f;
+    // Distance the racer must drive past the front wall to be considered out of the pocket
+    private static final float ESCAPE_DISTANCE = 3;
+    // Simulated time, the count down included
+    private static final float MAX_DURATION = 20;
+
+    private static Assets sAssets;
+
+    @BeforeClass
+    public static void setUpClass() {
+        // The sprites are generated from core/assets-src, skip the tests if they have not been
+        File assetsDir = new File(System.getProperty("pixelwheels.assetsDir", "../android/assets"));
+        assumeTrue(new File(assetsDir, "sprites/sprites.atlas").exists());
+        HeadlessGdx.init(assetsDir);
+        sAssets = Assets.createHeadless();
+    }
+
+    @Test
+    public void testGetsOutOfPocket() {
+        // GIVEN an AI racer on the grid, with walls in front of it and on its sides, so that it has
+        // to reverse out of the pocket before driving around the front wall
+        HeadlessRaceRunner runner = new HeadlessRaceRunner(sAssets);
+        Track templateTrack = sAssets.findTrackById("race");
+        Track track = new Track(templateTrack.getId(), templateTrack.getMapName());
+        GameWorldImpl world = runner.createWorld(track, new Array<>(new String[] {"red"}));
+        world.setSeed(1);
+        Racer racer = world.getRacers().first();
+        Vehicle vehicle = racer.getVehicle();
+        float angle = vehicle.getAngle();
+        float startX = racer.getPosition().x;
+        float startY = racer.getPosition().y;
+
+        // The vehicle faces the x axis of its body
+        float frontDistance = vehicle.getWidth() / 2 + FRONT_MARGIN + WALL_THICKNESS / 2;
+        float sideDistance = vehicle.getHeight() / 2 + SIDE_MARGIN + WALL_THICKNESS / 2;
+        float sideLength = frontDistance + vehicle.getWidth() / 2 + BACK_MARGIN;
+        World box2DWorld = world.getBox2DWorld();
+        createWall(box2DWorld, startX, startY, angle, frontDistance, 0, 2 * sideDistance, true);
+        float sideAlong = frontDistance - sideLength / 2;
+        for (int side = -1; side <= 1; side += 2) {
+            float across = side * sideDistance;
+            createWall(box2DWorld, startX, startY, angle, sideAlong, across, sideLength, false);
+        }
+
+        // WHEN the race runs
+        float time = 0;
+        float progress = 0;
+        while (time < MAX_DURATION && progress < frontDistance + ESCAPE_DISTANCE) {
+            world.act(GameWorld.BOX2D_TIME_STEP);
+            time += GameWorld.BOX2D_TIME_STEP;
+            // Distance driven along the initial direction of the racer
+            progress =
+                    (racer.getPosition().x - startX) * MathUtils.cosDeg(angle)
+                            + (racer.getPosition().y - startY) * MathUtils.sinDeg(angle);
+        }
+        runner.disposeWorld(world);
+
+        // THEN the racer gets out of the pocket, and drives past the front wall
+        assertThat(progress >= frontDistance + ESCAPE_DISTANCE, is(true));
+    }
+
+    /**
+     * Creates a wall of length length, centered at along units in front of (x, y) in the angle
+     * direction and across units to the left of it. The wall is perpendicular to the angle
+     * direction if perpendicular is true, parallel to it otherwise.
+     */
+    private static void createWall(
+            World world,
+            float x,
+            float y,
+            float angle,
+            float along,
+            float across,
+            float length,
+            boolean perpendicular) {
+        BodyDef bodyDef = new BodyDef();
+        bodyDef.type = BodyDef.BodyType.StaticBody;
+        bodyDef.position.set(
+                x + MathUtils.cosDeg(angle) * along - MathUtils.sinDeg(angle) * across,
+                y + MathUtils.sinDeg(angle) * along + MathUtils.cosDeg(angle) * across);
+        bodyDef.angle = (perpendicular ? angle + 90 : angle) * MathUtils.degreesToRadians;
+        Body body = world.createBody(bodyDef);
+
+        PolygonShape shape = new PolygonShape();
+        shape.setAsBox(length / 2, WALL_THICKNESS / 2);
+        body.createFixture(shape, 1);
+        shape.dispose();
+        Box2DUtils.setCollisionInfo(body, CollisionCategories.WALL, CollisionCategories.RACER);
+    }
+}
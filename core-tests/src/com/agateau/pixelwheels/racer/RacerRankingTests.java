@@ -0,0 +1,77 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.racer;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.badlogic.gdx.utils.Array;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class RacerRankingTests {
+    @Test
+    public void testUpdate() {
+        // GIVEN racers which are not sorted
+        Racer racer1 = createRacer(1, 10, false);
+        Racer racer2 = createRacer(2, 5, false);
+        Racer racer3 = createRacer(1, 20, false);
+        Array<Racer> racers = Array.with(racer1, racer2, racer3);
+
+        // WHEN the ranking is updated
+        new RacerRanking().update(racers);
+
+        // THEN racers are sorted, and their ranks are updated
+        assertThat(racers, is(Array.with(racer2, racer3, racer1)));
+        verify(racer2).setRank(1);
+        verify(racer3).setRank(2);
+        verify(racer1).setRank(3);
+    }
+
+    @Test
+    public void testFinishedRacersKeepTheirRank() {
+        // GIVEN a racer which finished the race, but has driven less than another one since
+        Racer finishedRacer = createRacer(3, 5, true);
+        Racer racer = createRacer(3, 10, false);
+        Array<Racer> racers = Array.with(finishedRacer, racer);
+
+        // WHEN the ranking is updated
+        new RacerRanking().update(racers);
+
+        // THEN the finished racer is still first
+        assertThat(racers, is(Array.with(finishedRacer, racer)));
+        verify(finishedRacer).setRank(1);
+        verify(racer).setRank(2);
+    }
+
+    private static Racer createRacer(int lapCount, float lapDistance, boolean finished) {
+        LapPositionComponent component = mock(LapPositionComponent.class);
+        when(component.getLapCount()).thenReturn(lapCount);
+        when(component.getLapDistance()).thenReturn(lapDistance);
+        when(component.hasFinishedRace()).thenReturn(finished);
+        Racer racer = mock(Racer.class);
+        when(racer.getLapPositionComponent()).thenReturn(component);
+        return racer;
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.racer;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class RacerSpatialIndexTests {
+    private final Vector2 mOrigin = new Vector2(0, 0);
+
+    @Test
+    public void testFindClosestInArc() {
+        // GIVEN racers ahead, behind and on the side of the origin
+        Racer ahead = createRacer(5, 0);
+        Racer farAhead = createRacer(8, 1);
+        Racer behind = createRacer(-2, 0);
+        Racer side = createRacer(0, 3);
+        RacerSpatialIndex index = createIndex(farAhead, side, behind, ahead);
+
+        // WHEN I look for the closest racer in front of the origin
+        Racer racer = index.findClosestInArc(mOrigin, 0, 10, 90, null);
+
+        // THEN the racer ahead is found
+        assertThat(racer, is(ahead));
+
+        // AND the racer on the side is found with a wider arc
+        assertThat(index.findClosestInArc(mOrigin, 0, 10, 180, null), is(side));
+
+        // AND the ignored racer is skipped
+        assertThat(index.findClosestInArc(mOrigin, 0, 10, 90, ahead), is(farAhead));
+    }
+
+    @Test
+    public void testFindClosestInArcTooFar() {
+        // GIVEN a racer far from the origin
+        RacerSpatialIndex index = createIndex(createRacer(20, 0));
+
+        // WHEN I look for a racer closer than its distance
+        // THEN no racer is found
+        assertThat(index.findClosestInArc(mOrigin, 0, 10, 90, null), is(nullValue()));
+    }
+
+    @Test
+    public void testFindClosestInArcOverlapping() {
+        // GIVEN a racer overlapping the origin from behind, and one ahead
+        Racer overlappingBehind = createRacer(-0.5f, 0);
+        Racer ahead = createRacer(5, 0);
+        RacerSpatialIndex index = createIndex(overlappingBehind, ahead);
+
+        // WHEN I look for the closest racer in front of the origin
+        // THEN the overlapping racer is skipped
+        assertThat(index.findClosestInArc(mOrigin, 0, 10, 90, null), is(ahead));
+
+        // AND it is found when looking backward
+        assertThat(index.findClosestInArc(mOrigin, 180, 10, 90, null), is(overlappingBehind));
+    }
+
+    @Test
+    public void testFindClosestInArcOverlappingAhead() {
+        // GIVEN a racer overlapping the origin from the front
+        Racer overlappingAhead = createRacer(0.5f, 0);
+        RacerSpatialIndex index = createIndex(overlappingAhead, createRacer(5, 0));
+
+        // WHEN I look for the closest racer in front of the origin
+        // THEN the overlapping racer is found
+        assertThat(index.findClosestInArc(mOrigin, 0, 10, 90, null), is(overlappingAhead));
+    }
+
+    @Test
+    public void testUpdateKeepsRacersSorted() {
+        // GIVEN an index
+        Racer racer1 = createRacer(1, 0);
+        Racer racer2 = createRacer(5, 0);
+        RacerSpatialIndex index = createIndex(racer1, racer2);
+
+        // WHEN racers swap positions
+        racer1.getVehicle().getPosition().set(6, 0);
+        racer2.getVehicle().getPosition().set(2, 0);
+        index.update(Array.with(racer1, racer2));
+
+        // THEN queries use the new positions
+        assertThat(index.findClosestInArc(mOrigin, 0, 10, 90, null), is(racer2));
+    }
+
+    private static RacerSpatialIndex createIndex(Racer... racers) {
+        RacerSpatialIndex index = new RacerSpatialIndex();
+        index.update(Array.with(racers));
+        return index;
+    }
+
+    /** Creates a racer with a 1x1 vehicle */
+    private static Racer createRacer(float x, float y) {
+        Vehicle vehicle = mock(Vehicle.class);
+        when(vehicle.getPosition()).thenReturn(new Vector2(x, y));
+        when(vehicle.getWidth()).thenReturn(1f);
+        when(vehicle.getHeight()).thenReturn(1f);
+        Racer racer = mock(Racer.class);
+        when(racer.getVehicle()).thenReturn(vehicle);
+        return racer;
+    }
+}
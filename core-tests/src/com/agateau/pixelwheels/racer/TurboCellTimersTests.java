@@ -0,0 +1,93 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.racer;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static com.agateau.utils.tests.AllocationAssert.assertDoesNotAllocate;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class TurboCellTimersTests {
+    @Test
+    public void testExpiration() {
+        // GIVEN timers with cells 1 and 2 added at different times
+        TurboCellTimers timers = new TurboCellTimers(2);
+        timers.add(1, 0.5f);
+        timers.update(0.2f);
+        timers.add(2, 0.5f);
+
+        // WHEN the timer of cell 1 expires
+        timers.update(0.4f);
+
+        // THEN only cell 2 is left
+        assertThat(timers.contains(1), is(false));
+        assertThat(timers.contains(2), is(true));
+        assertThat(timers.size(), is(1));
+    }
+
+    @Test
+    public void testGrow() {
+        // GIVEN full timers
+        TurboCellTimers timers = new TurboCellTimers(2);
+        timers.add(1, 0.5f);
+        timers.add(2, 0.5f);
+
+        // WHEN a new cell is added
+        timers.add(3, 0.5f);
+
+        // THEN all cells are there
+        assertThat(timers.size(), is(3));
+        for (long cellId = 1; cellId <= 3; ++cellId) {
+            assertThat(timers.contains(cellId), is(true));
+        }
+    }
+
+    @Test
+    public void testDoesNotAllocate() {
+        // GIVEN timers which already held as many cells as they will
+        TurboCellTimers timers = new TurboCellTimers(8);
+        for (int step = 0; step < 1000; ++step) {
+            simulateStep(timers, step);
+        }
+
+        // WHEN many steps are simulated
+        // THEN no memory is allocated
+        assertDoesNotAllocate(
+                () -> {
+                    for (int step = 0; step < 100000; ++step) {
+                        simulateStep(timers, step);
+                    }
+                });
+    }
+
+    /** Does what Vehicle does for a vehicle whose 4 wheels drive over a line of turbo cells */
+    private static void simulateStep(TurboCellTimers timers, int step) {
+        for (int wheel = 0; wheel < 4; ++wheel) {
+            long cellId = (step + wheel) / 8 + (wheel / 2) * 10000L;
+            if (!timers.contains(cellId)) {
+                timers.add(cellId, 0.5f);
+            }
+        }
+        timers.update(1 / 60f);
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.racer;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.agateau.pixelwheels.GameWorld;
+import com.agateau.pixelwheels.gameobjet.GameObject;
+import com.agateau.pixelwheels.map.Track;
+import com.agateau.pixelwheels.map.WaypointStore;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.BodyDef;
+import com.badlogic.gdx.physics.box2d.PolygonShape;
+import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.utils.Array;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class WaypointVisibilityCacheTests {
+    @Test
+    public void testIsKnownVisible() {
+        // GIVEN a 20x20 track with a wall centered on (10, 10), and waypoints at (15, 5) and
+        // (15, 15)
+        World world = new World(new Vector2(0, 0), true);
+        BodyDef bodyDef = new BodyDef();
+        bodyDef.type = BodyDef.BodyType.StaticBody;
+        bodyDef.position.set(10, 10);
+        PolygonShape shape = new PolygonShape();
+        shape.setAsBox(2, 1);
+        world.createBody(bodyDef).createFixture(shape, 1);
+        shape.dispose();
+
+        WaypointStore store = mock(WaypointStore.class);
+        when(store.getCount()).thenReturn(2);
+        when(store.getX(0)).thenReturn(15f);
+        when(store.getY(0)).thenReturn(5f);
+        when(store.getX(1)).thenReturn(15f);
+        when(store.getY(1)).thenReturn(15f);
+
+        Track track = mock(Track.class);
+        when(track.getMapWidth()).thenReturn(20f);
+        when(track.getMapHeight()).thenReturn(20f);
+        when(track.getWaypointStore()).thenReturn(store);
+
+        GameWorld gameWorld = mock(GameWorld.class);
+        when(gameWorld.getTrack()).thenReturn(track);
+        when(gameWorld.getBox2DWorld()).thenReturn(world);
+        when(gameWorld.getActiveGameObjects()).thenReturn(new Array<GameObject>());
+
+        // WHEN checking the waypoints from (5, 5)
+        WaypointVisibilityCache cache = new WaypointVisibilityCache(gameWorld, 0.5f);
+        Vector2 position = new Vector2(5, 5);
+
+        // THEN the first one is known to be visible, but not the second one, since the wall is in
+        // the way
+        assertThat(cache.isKnownVisible(position, 0), is(true));
+        assertThat(cache.isKnownVisible(position, 1), is(false));
+
+        // and results are the same when they come from the cache
+        assertThat(cache.isKnownVisible(position, 0), is(true));
+        assertThat(cache.isKnownVisible(position, 1), is(false));
+        world.dispose();
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.racescreen;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.Batch;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+@RunWith(JUnit4.class)
+public class TextureSortingBatchTests {
+    @Mock private Batch mTarget;
+
+    @Rule public MockitoRule mMockitoRule = MockitoJUnit.rule();
+
+    @Test
+    public void testSubmitGroupsByTexture() {
+        // GIVEN a batch with quads using textures A, B, A, A queued
+        Texture textureA = mock(Texture.class);
+        Texture textureB = mock(Texture.class);
+        TextureSortingBatch batch = new TextureSortingBatch(mTarget);
+        batch.draw(textureA, 0, 0, 1, 1);
+        batch.draw(textureB, 0, 0, 1, 1);
+        batch.draw(textureA, 0, 0, 1, 1);
+        batch.draw(textureA, 0, 0, 1, 1);
+        verify(mTarget, never()).draw(any(Texture.class), any(float[].class), anyInt(), anyInt());
+
+        // WHEN the queue is submitted
+        batch.submit();
+
+        // THEN quads using A are sent first, consecutive ones in a single call, then quads using B
+        InOrder inOrder = inOrder(mTarget);
+        inOrder.verify(mTarget).draw(eq(textureA), any(float[].class), eq(0), eq(20));
+        inOrder.verify(mTarget).draw(eq(textureA), any(float[].class), eq(40), eq(40));
+        inOrder.verify(mTarget).draw(eq(textureB), any(float[].class), eq(20), eq(20));
+    }
+
+    @Test
+    public void testStateChangeSubmitsQueue() {
+        // GIVEN a batch with a quad queued
+        Texture texture = mock(Texture.class);
+        TextureSortingBatch batch = new TextureSortingBatch(mTarget);
+        batch.draw(texture, 0, 0, 1, 1);
+
+        // WHEN the blend function is changed
+        batch.setBlendFunction(GL20.GL_ONE, GL20.GL_ONE_MINUS_SRC_ALPHA);
+
+        // THEN the quad is sent before the blend function is changed
+        InOrder inOrder = inOrder(mTarget);
+        inOrder.verify(mTarget).draw(eq(texture), any(float[].class), eq(0), eq(20));
+        inOrder.verify(mTarget).setBlendFunction(GL20.GL_ONE, GL20.GL_ONE_MINUS_SRC_ALPHA);
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.racescreen;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.maps.tiled.TiledMapTile;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.maps.tiled.tiles.StaticTiledMapTile;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class TileChunkRendererTests {
+    private static final int TILE_SIZE = 16;
+    private static final float UNIT_SCALE = 1f / TILE_SIZE;
+    private static final float COLOR = 12;
+    // U and V coordinates of the tile region
+    private static final float U1 = 0.25f;
+    private static final float U2 = 0.5f;
+    private static final float V1 = 0;
+    private static final float V2 = 0.25f;
+
+    private final float[] mVertices = new float[20];
+
+    @Test
+    public void testComputeTileVertices() {
+        // GIVEN a layer with a tile at (2, 1)
+        TiledMapTileLayer.Cell cell = new TiledMapTileLayer.Cell();
+        TiledMapTileLayer layer = createLayer(cell);
+
+        // WHEN I compute the vertices of the tile
+        TiledMapTile tile =
+                TileChunkRenderer.computeTileVertices(layer, 2, 1, UNIT_SCALE, COLOR, mVertices);
+
+        // THEN the tile is returned
+        assertThat(tile, is(cell.getTile()));
+
+        // AND the vertices cover the tile cell, in world units
+        checkVertex(Batch.X1, 2, 1, U1, V2);
+        checkVertex(Batch.X2, 2, 2, U1, V1);
+        checkVertex(Batch.X3, 3, 2, U2, V1);
+        checkVertex(Batch.X4, 3, 1, U2, V2);
+    }
+
+    @Test
+    public void testComputeTileVerticesFlipped() {
+        // GIVEN a layer with a horizontally flipped tile at (2, 1)
+        TiledMapTileLayer.Cell cell = new TiledMapTileLayer.Cell();
+        cell.setFlipHorizontally(true);
+        TiledMapTileLayer layer = createLayer(cell);
+
+        // WHEN I compute the vertices of the tile
+        TileChunkRenderer.computeTileVertices(layer, 2, 1, UNIT_SCALE, COLOR, mVertices);
+
+        // THEN the positions do not change, but the U coordinates are swapped
+        checkVertex(Batch.X1, 2, 1, U2, V2);
+        checkVertex(Batch.X2, 2, 2, U2, V1);
+        checkVertex(Batch.X3, 3, 2, U1, V1);
+        checkVertex(Batch.X4, 3, 1, U1, V2);
+    }
+
+    @Test
+    public void testComputeTileVerticesRotated() {
+        // GIVEN a layer with a tile rotated by 90 degrees at (2, 1)
+        TiledMapTileLayer.Cell cell = new TiledMapTileLayer.Cell();
+        cell.setRotation(TiledMapTileLayer.Cell.ROTATE_90);
+        TiledMapTileLayer layer = createLayer(cell);
+
+        // WHEN I compute the vertices of the tile
+        TileChunkRenderer.computeTileVertices(layer, 2, 1, UNIT_SCALE, COLOR, mVertices);
+
+        // THEN the texture coordinates are moved to the previous vertex
+        checkVertex(Batch.X1, 2, 1, U1, V1);
+        checkVertex(Batch.X2, 2, 2, U2, V1);
+        checkVertex(Batch.X3, 3, 2, U2, V2);
+        checkVertex(Batch.X4, 3, 1, U1, V2);
+    }
+
+    @Test
+    public void testComputeTileVerticesEmptyCell() {
+        // GIVEN a layer with a tile at (2, 1)
+        TiledMapTileLayer layer = createLayer(new TiledMapTileLayer.Cell());
+
+        // WHEN I compute the vertices of an empty cell
+        // THEN no tile is returned
+        assertThat(
+                TileChunkRenderer.computeTileVertices(layer, 0, 0, UNIT_SCALE, COLOR, mVertices),
+                is(nullValue()));
+    }
+
+    /** Creates a 4x4 layer, with cell at (2, 1). The cell tile is set by this method. */
+    private static TiledMapTileLayer createLayer(TiledMapTileLayer.Cell cell) {
+        Texture texture = mock(Texture.class);
+        when(texture.getWidth()).thenReturn(TILE_SIZE * 4);
+        when(texture.getHeight()).thenReturn(TILE_SIZE * 4);
+        TextureRegion region = new TextureRegion(texture, TILE_SIZE, 0, TILE_SIZE, TILE_SIZE);
+        cell.setTile(new StaticTiledMapTile(region));
+
+        TiledMapTileLayer layer = new TiledMapTileLayer(4, 4, TILE_SIZE, TILE_SIZE);
+        layer.setCell(2, 1, cell);
+        return layer;
+    }
+
+    /** Checks the vertex whose x coordinate is at index xIndex */
+    private void checkVertex(int xIndex, float x, float y, float u, float v) {
+        assertThat(mVertices[xIndex], is(x));
+        assertThat(mVertices[xIndex + 1], is(y));
+        assertThat(mVertices[xIndex + 2], is(COLOR));
+        assertThat(mVertices[xIndex + 3], is(u));
+        assertThat(mVertices[xIndex + 4], is(v));
+    }
+}
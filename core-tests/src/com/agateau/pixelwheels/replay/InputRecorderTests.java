@@ -0,0 +1,95 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.replay;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import com.agateau.pixelwheels.gameinput.GameInput;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class InputRecorderTests {
+    private static final int STEP_COUNT = 1000;
+
+    @Test
+    public void testPlaybackReturnsRecordedInputs() {
+        // GIVEN a recorder which recorded varying inputs
+        InputRecorder recorder = new InputRecorder();
+        GameInput[] recorded = new GameInput[STEP_COUNT];
+        for (int step = 0; step < STEP_COUNT; ++step) {
+            recorded[step] = copy(recorder.record(createInput(step)));
+        }
+
+        // WHEN I play the recorded inputs back
+        ReplayInputHandler handler = new ReplayInputHandler(recorder.toByteArray());
+
+        // THEN I get the inputs returned by the recorder, step by step
+        for (int step = 0; step < STEP_COUNT; ++step) {
+            GameInput expected = recorded[step];
+            GameInput actual = handler.getGameInput();
+            assertThat(actual.braking, is(expected.braking));
+            assertThat(actual.accelerating, is(expected.accelerating));
+            assertThat(actual.triggeringBonus, is(expected.triggeringBonus));
+            assertThat(actual.direction, is(expected.direction));
+        }
+
+        // AND I get an idle input once all inputs have been played back
+        GameInput input = handler.getGameInput();
+        assertThat(input.accelerating, is(false));
+        assertThat(input.direction, is(0f));
+    }
+
+    @Test
+    public void testUnchangedInputsAreStoredOnce() {
+        // GIVEN a recorder
+        InputRecorder recorder = new InputRecorder();
+
+        // WHEN I record the same input for many steps
+        GameInput input = new GameInput();
+        input.accelerating = true;
+        input.direction = 1;
+        for (int step = 0; step < STEP_COUNT; ++step) {
+            recorder.record(input);
+        }
+
+        // THEN it is stored as a single run: 2 bytes for the step count, 2 for the input
+        assertThat(recorder.toByteArray().length, is(4));
+    }
+
+    private static GameInput createInput(int step) {
+        GameInput input = new GameInput();
+        input.accelerating = step % 50 < 40;
+        input.braking = step % 50 >= 45;
+        input.triggeringBonus = step % 200 == 0;
+        input.direction = (float) Math.sin(step / 20.0);
+        return input;
+    }
+
+    private static GameInput copy(GameInput input) {
+        GameInput copy = new GameInput();
+        copy.braking = input.braking;
+        copy.accelerating = input.accelerating;
+        copy.triggeringBonus = input.triggeringBonus;
+        copy.direction = input.direction;
+        return copy;
+    }
+}
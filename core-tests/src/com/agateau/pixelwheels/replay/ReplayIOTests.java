@@ -0,0 +1,120 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.replay;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.notNullValue;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertThat;
+
+import com.badlogic.gdx.files.FileHandle;
+import java.nio.ByteBuffer;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class ReplayIOTests {
+    @Rule public TemporaryFolder mTemporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testReadWrite() {
+        // GIVEN a replay with a player and an AI entrant
+        Replay replay = createReplay();
+
+        // WHEN I write it and read it back
+        FileHandle file = new FileHandle(mTemporaryFolder.getRoot() + "/race.replay");
+        ReplayIO.write(replay, file);
+        Replay replay2 = ReplayIO.read(file);
+
+        // THEN the read replay is the same
+        assertThat(replay2, is(notNullValue()));
+        assertThat(replay2.getTrackId(), is("race"));
+        assertThat(replay2.getSeed(), is(12L));
+        assertThat(replay2.getEntrants().size, is(2));
+        Replay.Entrant player = replay2.getEntrants().get(0);
+        assertThat(player.vehicleId, is("red"));
+        assertThat(player.playerIndex, is(0));
+        assertThat(player.inputs, is(new byte[] {1, 2, 3}));
+        Replay.Entrant ai = replay2.getEntrants().get(1);
+        assertThat(ai.vehicleId, is("police"));
+        assertThat(ai.isPlayer(), is(false));
+    }
+
+    @Test
+    public void testReadMissingFile() {
+        // GIVEN a file which does not exist
+        FileHandle file = new FileHandle(mTemporaryFolder.getRoot() + "/missing.replay");
+
+        // WHEN I read it
+        // THEN no replay is returned
+        assertThat(ReplayIO.read(file), is(nullValue()));
+    }
+
+    @Test
+    public void testReadDirectory() {
+        // GIVEN a path which is a directory
+        FileHandle file = new FileHandle(mTemporaryFolder.getRoot());
+
+        // WHEN I read it
+        // THEN no replay is returned
+        assertThat(ReplayIO.read(file), is(nullValue()));
+    }
+
+    @Test
+    public void testReadInvalidInputCount() {
+        // GIVEN a replay file whose player input count is negative
+        FileHandle file = new FileHandle(mTemporaryFolder.getRoot() + "/race.replay");
+        ReplayIO.write(createReplay(), file);
+        byte[] bytes = file.readBytes();
+        // The input count is right before the 3 input bytes of the player
+        int inputCountOffset = indexOf(bytes, new byte[] {1, 2, 3}) - 4;
+        ByteBuffer.wrap(bytes).putInt(inputCountOffset, -1);
+        file.writeBytes(bytes, false /* append */);
+
+        // WHEN I read it
+        // THEN no replay is returned
+        assertThat(ReplayIO.read(file), is(nullValue()));
+    }
+
+    private static Replay createReplay() {
+        Replay replay = new Replay("race", 12);
+        replay.getEntrants().add(new Replay.Entrant("red", 0, new byte[] {1, 2, 3}));
+        replay.getEntrants().add(new Replay.Entrant("police", -1, null));
+        return replay;
+    }
+
+    private static int indexOf(byte[] bytes, byte[] pattern) {
+        for (int idx = 0; idx <= bytes.length - pattern.length; ++idx) {
+            boolean found = true;
+            for (int patternIdx = 0; patternIdx < pattern.length; ++patternIdx) {
+                if (bytes[idx + patternIdx] != pattern[patternIdx]) {
+                    found = false;
+                    break;
+                }
+            }
+            if (found) {
+                return idx;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ *
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.agateau.ui.tests;
+
+import static com.agateau.utils.tests.AllocationAssert.assertDoesNotAllocate;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+
+import com.agateau.ui.GlyphLabel;
+import com.badlogic.gdx.backends.headless.HeadlessFiles;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.GlyphLayout;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.scenes.scene2d.ui.Label;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.StringBuilder;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class GlyphLabelTests {
+    private static final float EPSILON = 0.001f;
+
+    @Test
+    public void testPrefSize() {
+        // GIVEN a GlyphLabel
+        BitmapFont font = createFont();
+        GlyphLabel label = new GlyphLabel(new Label.LabelStyle(font, null));
+
+        // WHEN its text is set
+        label.setText("Lap 2/3");
+
+        // THEN its preferred size is the same as the one of a Label
+        Label reference = new Label("Lap 2/3", new Label.LabelStyle(font, null));
+        assertEquals(new GlyphLayout(font, "Lap 2/3").width, label.getPrefWidth(), EPSILON);
+        assertEquals(reference.getPrefWidth(), label.getPrefWidth(), EPSILON);
+        assertEquals(reference.getPrefHeight(), label.getPrefHeight(), EPSILON);
+    }
+
+    @Test
+    public void testSetTextDoesNotAllocate() {
+        // GIVEN a GlyphLabel which already held its longest text
+        GlyphLabel label = new GlyphLabel(new Label.LabelStyle(createFont(), null));
+        StringBuilder sb = new StringBuilder();
+        for (int idx = 0; idx < 1000; ++idx) {
+            updateText(label, sb, idx);
+        }
+
+        // WHEN its text is updated many times
+        // THEN no memory is allocated
+        assertDoesNotAllocate(
+                () -> {
+                    for (int idx = 0; idx < 100000; ++idx) {
+                        updateText(label, sb, idx % 1000);
+                    }
+                });
+    }
+
+    private static void updateText(GlyphLabel label, StringBuilder sb, int value) {
+        sb.setLength(0);
+        sb.append("Lap ").append(value).append('/').append(999);
+        label.setText(sb);
+        label.pack();
+    }
+
+    private static BitmapFont createFont() {
+        BitmapFont.BitmapFontData data =
+                new BitmapFont.BitmapFontData(
+                        new HeadlessFiles().classpath("com/badlogic/gdx/utils/arial-15.fnt"),
+                        false);
+        TextureRegion region = new TextureRegion(mock(Texture.class));
+        return new BitmapFont(data, Array.with(region), true);
+    }
+}
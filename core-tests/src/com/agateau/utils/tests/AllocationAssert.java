@@ -0,0 +1,80 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.utils.tests;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Checks code does not allocate memory, by counting the bytes allocated by the current thread.
+ *
+ * <p>Counting allocated bytes requires the HotSpot extension of ThreadMXBean: on other JVMs, tests
+ * using this class are skipped.
+ */
+public class AllocationAssert {
+    private static final int CALIBRATION_COUNT = 10;
+
+    /**
+     * Fails if running runnable allocates memory. runnable is run a first time without measuring
+     * anything, because the JVM may allocate memory while it compiles the code.
+     */
+    public static void assertDoesNotAllocate(Runnable runnable) {
+        runnable.run();
+        long allocated = measureAllocatedBytes(runnable);
+        assertTrue("Allocated " + allocated + " bytes", allocated <= 0);
+    }
+
+    /**
+     * Returns the number of bytes allocated by the current thread while running runnable, not
+     * counting the bytes allocated by the measurement itself
+     */
+    public static long measureAllocatedBytes(Runnable runnable) {
+        com.sun.management.ThreadMXBean bean = getBean();
+        long threadId = Thread.currentThread().getId();
+
+        // Reading the number of allocated bytes may allocate memory: keep the smallest amount
+        // allocated between two reads, so that it can be subtracted from the measure
+        long overhead = Long.MAX_VALUE;
+        for (int idx = 0; idx < CALIBRATION_COUNT; ++idx) {
+            long before = bean.getThreadAllocatedBytes(threadId);
+            long after = bean.getThreadAllocatedBytes(threadId);
+            overhead = Math.min(overhead, after - before);
+        }
+
+        long before = bean.getThreadAllocatedBytes(threadId);
+        runnable.run();
+        return bean.getThreadAllocatedBytes(threadId) - before - overhead;
+    }
+
+    private static com.sun.management.ThreadMXBean getBean() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(
+                "Cannot count allocated bytes on this JVM",
+                bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue(
+                "Cannot count allocated bytes on this JVM",
+                sunBean.isThreadAllocatedMemorySupported());
+        sunBean.setThreadAllocatedMemoryEnabled(true);
+        return sunBean;
+    }
+}
@@ -60,7 +60,8 @@ public class Assets implements TextureRegionProvider {
                     });
     public final Array<Championship> championships = new Array<>();
     public final Array<ObstacleDef> obstacleDefs = new Array<>();
-    public final UiAssets ui = new UiAssets();
+    /** null for assets created by createHeadless() */
+    public final UiAssets ui;
 
     public final TextureRegion wheel;
     public final TextureRegion dot;
@@ -85,6 +86,19 @@ public class Assets implements TextureRegionProvider {
     private final Animation<TextureRegion> explosion;
 
     Assets() {
+        this(new UiAssets());
+    }
+
+    /**
+     * Creates assets without the UI assets (skin and fonts), for code which only needs to run the
+     * game world, without showing any screen
+     */
+    public static Assets createHeadless() {
+        return new Assets(null);
+    }
+
+    private Assets(UiAssets uiAssets) {
+        this.ui = uiAssets;
         if (GamePlay.instance.showTestTrack) {
             tracks.add(new Track("test", "Test"));
         }
@@ -197,8 +211,9 @@ public class Assets implements TextureRegionProvider {
         return null;
     }
 
-    public AnimationObject createExplosion(AudioManager audioManager, float x, float y) {
-        AnimationObject obj = AnimationObject.create(explosion, x, y);
+    public AnimationObject createExplosion(
+            GameWorld gameWorld, AudioManager audioManager, float x, float y) {
+        AnimationObject obj = AnimationObject.create(gameWorld, explosion, x, y);
         obj.initAudio(audioManager, soundAtlas.get("explosion"));
         return obj;
     }
@@ -20,12 +20,17 @@ package com.agateau.pixelwheels;
 
 /** Customization of the gameplay */
 public class GamePlay {
+    // Upper bound of racerCount. AI racers can get stuck in crowded races, this is the largest
+    // count for which headless AI races were checked to let all racers finish.
+    public static final int MAX_RACER_COUNT = 16;
+
     public int racerCount = 6;
     public int maxDrivingForce = 50;
     public int lowSpeed = 20;
     public int maxSpeed = 270;
     public int maxLateralImpulse = 2;
     public int maxSkidmarks = 60;
+    public boolean skidmarkDecals = true;
 
     public int stoppedMaxSteer = 100;
     public int lowSpeedMaxSteer = 14;
@@ -48,6 +53,10 @@ public class GamePlay {
     // speed
     public float aiSpeedLimiter = 0.8f;
 
+    // How many times per second AI pilots look for their target waypoint and update their speed
+    // limiter. They steer toward their target at every step.
+    public int aiPerceptionRate = 20;
+
     public boolean alwaysShowTouchInput = false;
 
     public boolean showTestTrack = false;
@@ -20,12 +20,17 @@ package com.agateau.pixelwheels;
 
 import com.agateau.pixelwheels.bonus.BonusPool;
 import com.agateau.pixelwheels.gameobjet.GameObject;
+import com.agateau.pixelwheels.gameobjet.ZLevelBuckets;
 import com.agateau.pixelwheels.map.Track;
 import com.agateau.pixelwheels.racer.Racer;
+import com.agateau.pixelwheels.racer.RacerSpatialIndex;
+import com.agateau.pixelwheels.racer.WaypointVisibilityCache;
 import com.agateau.pixelwheels.racescreen.CountDown;
 import com.agateau.pixelwheels.stats.GameStats;
+import com.badlogic.gdx.math.RandomXS128;
 import com.badlogic.gdx.physics.box2d.World;
 import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Pool;
 
 /** Contains all the information and objects running in the world */
 public interface GameWorld {
@@ -41,6 +46,12 @@ public interface GameWorld {
 
     Track getTrack();
 
+    /**
+     * Returns the gameplay settings the world is simulated with. Worlds running in parallel can
+     * use different settings.
+     */
+    GamePlay getGamePlay();
+
     World getBox2DWorld();
 
     Racer getPlayerRacer(int playerId);
@@ -49,20 +60,45 @@ public interface GameWorld {
 
     Array<Racer> getRacers();
 
+    /** Returns an index of the racer positions, updated after each world step */
+    RacerSpatialIndex getRacerSpatialIndex();
+
+    /** Returns the cache of the waypoints AI pilots can see without casting rays */
+    WaypointVisibilityCache getWaypointVisibilityCache();
+
     Array<BonusPool> getBonusPools();
 
     Array<GameObject> getActiveGameObjects();
 
+    /** Returns the active game objects, sorted by the z-levels they draw at */
+    ZLevelBuckets getZLevelBuckets();
+
     void addGameObject(GameObject object);
 
+    /**
+     * Returns the pool to use to recycle game objects of class type. Each world has its own pools,
+     * so that several worlds can run in parallel.
+     */
+    <T> Pool<T> getObjectPool(Class<T> type);
+
     CountDown getCountDown();
 
+    /**
+     * Returns the random generator of the world. Simulation code must use it instead of
+     * MathUtils.random, so that a race can be reproduced from its seed.
+     */
+    RandomXS128 getRandom();
+
     int getRacerRank(Racer racer);
 
     float getRacerNormalizedRank(Racer racer);
 
     GameStats getGameStats();
 
+    /**
+     * Advances the world by delta seconds. The world is simulated by steps of BOX2D_TIME_STEP
+     * seconds: the time which is not enough for a full step is kept for the next call.
+     */
     void act(float delta);
 
     State getState();
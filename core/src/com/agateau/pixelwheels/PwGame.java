@@ -24,6 +24,11 @@ import com.agateau.pixelwheels.gamesetup.ChampionshipMaestro;
 import com.agateau.pixelwheels.gamesetup.Maestro;
 import com.agateau.pixelwheels.gamesetup.PlayerCount;
 import com.agateau.pixelwheels.gamesetup.QuickRaceMaestro;
+import com.agateau.pixelwheels.map.Track;
+import com.agateau.pixelwheels.racescreen.RaceScreen;
+import com.agateau.pixelwheels.racescreen.RenderBenchmarkScreen;
+import com.agateau.pixelwheels.replay.Replay;
+import com.agateau.pixelwheels.replay.ReplayIO;
 import com.agateau.pixelwheels.rewards.RewardManager;
 import com.agateau.pixelwheels.screens.MainMenuScreen;
 import com.agateau.pixelwheels.screens.MouseCursorManager;
@@ -46,6 +51,7 @@ import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.Graphics;
 import com.badlogic.gdx.Input;
 import com.badlogic.gdx.Screen;
+import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.physics.box2d.Box2D;
 
 /** The game */
@@ -61,6 +67,8 @@ public class PwGame extends Game implements GameConfig.ChangeListener {
     private Introspector mDebugIntrospector;
     private GameStats mGameStats;
     private RewardManager mRewardManager;
+    private String mStartupReplayPath = null;
+    private String mStartupRenderBenchmarkArg = null;
 
     public Assets getAssets() {
         return mAssets;
@@ -74,6 +82,19 @@ public class PwGame extends Game implements GameConfig.ChangeListener {
         return mRewardManager;
     }
 
+    /** If set, the game plays the replay stored at this path instead of showing the main menu */
+    public void setStartupReplayPath(String path) {
+        mStartupReplayPath = path;
+    }
+
+    /**
+     * If set, the game runs a render benchmark instead of showing the main menu. arg is the path to
+     * a replay file or, if there is no such file, a track ID.
+     */
+    public void setStartupRenderBenchmarkArg(String arg) {
+        mStartupRenderBenchmarkArg = arg;
+    }
+
     @Override
     public void create() {
         mGamePlayIntrospector =
@@ -95,6 +116,17 @@ public class PwGame extends Game implements GameConfig.ChangeListener {
         setupRewardManager();
         Box2D.init();
         setupDisplay();
+        if (mStartupRenderBenchmarkArg != null) {
+            showRenderBenchmark(mStartupRenderBenchmarkArg);
+            return;
+        }
+        if (mStartupReplayPath != null) {
+            Replay replay = ReplayIO.read(Gdx.files.absolute(mStartupReplayPath));
+            if (replay != null) {
+                showReplay(replay);
+                return;
+            }
+        }
         showMainMenu();
     }
 
@@ -156,6 +188,66 @@ public class PwGame extends Game implements GameConfig.ChangeListener {
         mMaestro.start();
     }
 
+    /** Plays replay in a race screen, then goes back to the main menu */
+    public void showReplay(Replay replay) {
+        Track track = mAssets.findTrackById(replay.getTrackId());
+        if (track == null) {
+            NLog.e("Cannot play replay: no track with id '%s'", replay.getTrackId());
+            showMainMenu();
+            return;
+        }
+        RaceScreen.Listener listener =
+                new RaceScreen.Listener() {
+                    @Override
+                    public void onRestartPressed() {
+                        showMainMenu();
+                    }
+
+                    @Override
+                    public void onQuitPressed() {
+                        showMainMenu();
+                    }
+
+                    @Override
+                    public void onNextTrackPressed() {
+                        showMainMenu();
+                    }
+                };
+        RaceScreen screen =
+                new RaceScreen(
+                        this,
+                        listener,
+                        replay.createGameInfo(track),
+                        RaceScreen.PauseButtons.NO_RESTART);
+        screen.startPlayback(replay);
+        mScreenStack.clear();
+        mScreenStack.push(screen);
+    }
+
+    /** Runs a RenderBenchmarkScreen, see setStartupRenderBenchmarkArg() for the format of arg */
+    private void showRenderBenchmark(String arg) {
+        Replay replay = null;
+        String trackId = arg;
+        FileHandle file = Gdx.files.absolute(arg);
+        if (file.exists()) {
+            replay = ReplayIO.read(file);
+            if (replay == null) {
+                NLog.e("Cannot read replay from '%s'", arg);
+                Gdx.app.exit();
+                return;
+            }
+            trackId = replay.getTrackId();
+        }
+        Track track = mAssets.findTrackById(trackId);
+        if (track == null) {
+            NLog.e("No track with id '%s'", trackId);
+            Gdx.app.exit();
+            return;
+        }
+        mScreenStack.clear();
+        mScreenStack.push(new RenderBenchmarkScreen(this, track, replay));
+    }
+
     public void replaceScreen(Screen screen) {
         mScreenStack.replace(screen);
     }
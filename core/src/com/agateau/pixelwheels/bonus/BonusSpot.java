@@ -39,6 +39,7 @@ import com.badlogic.gdx.physics.box2d.PolygonShape;
 public class BonusSpot extends GameObjectAdapter {
     private static final float DISABLED_TIMEOUT = 5;
     private final TextureRegion mRegion;
+    private final float mDrawRadius;
     private final Sound mSound;
     private final AudioManager mAudioManager;
     private final float mX;
@@ -56,6 +57,7 @@ public class BonusSpot extends GameObjectAdapter {
         mY = y;
 
         mRegion = assets.gift;
+        mDrawRadius = BodyRegionDrawer.computeDrawRadius(mRegion);
         mSound = assets.soundAtlas.get("bonus");
 
         PolygonShape shape = new PolygonShape();
@@ -88,6 +90,18 @@ public class BonusSpot extends GameObjectAdapter {
         }
     }
 
+    private static final ZLevel[] Z_LEVELS = {ZLevel.GROUND, ZLevel.OBSTACLES};
+
+    @Override
+    public ZLevel[] getZLevels() {
+        return Z_LEVELS;
+    }
+
+    @Override
+    public float getDrawRadius() {
+        return mDrawRadius;
+    }
+
     @Override
     public void draw(Batch batch, ZLevel zLevel) {
         if (!mBody.isActive()) {
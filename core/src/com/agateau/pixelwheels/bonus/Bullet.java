@@ -26,6 +26,7 @@ import com.agateau.pixelwheels.gameobjet.AnimationObject;
 import com.agateau.pixelwheels.gameobjet.AudioClipper;
 import com.agateau.pixelwheels.gameobjet.Explosable;
 import com.agateau.pixelwheels.gameobjet.GameObjectAdapter;
+import com.agateau.pixelwheels.gameobjet.PooledResourceHolder;
 import com.agateau.pixelwheels.racer.Racer;
 import com.agateau.pixelwheels.racescreen.Collidable;
 import com.agateau.pixelwheels.racescreen.CollisionCategories;
@@ -44,11 +45,10 @@ import com.badlogic.gdx.physics.box2d.Manifold;
 import com.badlogic.gdx.physics.box2d.PolygonShape;
 import com.badlogic.gdx.utils.Disposable;
 import com.badlogic.gdx.utils.Pool;
-import com.badlogic.gdx.utils.ReflectionPool;
 
 /** A player bullet */
-public class Bullet extends GameObjectAdapter implements Collidable, Pool.Poolable, Disposable {
-    private static final ReflectionPool<Bullet> sPool = new ReflectionPool<>(Bullet.class);
+public class Bullet extends GameObjectAdapter
+        implements Collidable, Pool.Poolable, Disposable, PooledResourceHolder {
 
     private static final float IMPULSE = 160;
 
@@ -56,6 +56,7 @@ public class Bullet extends GameObjectAdapter implements Collidable, Pool.Poolab
     private GameWorld mGameWorld;
     private AudioManager mAudioManager;
     private Assets mAssets;
+    private float mDrawRadius;
     private BodyDef mBodyDef;
     private PolygonShape mShape;
 
@@ -72,7 +73,7 @@ public class Bullet extends GameObjectAdapter implements Collidable, Pool.Poolab
             float originX,
             float originY,
             float angle) {
-        Bullet object = sPool.obtain();
+        Bullet object = gameWorld.getObjectPool(Bullet.class).obtain();
         if (object.mBodyDef == null) {
             object.firstInit(assets);
         }
@@ -105,6 +106,7 @@ public class Bullet extends GameObjectAdapter implements Collidable, Pool.Poolab
 
     private void firstInit(Assets assets) {
         mAssets = assets;
+        mDrawRadius = BodyRegionDrawer.computeDrawRadius(mAssets.bullet);
         mBodyDef = new BodyDef();
         mBodyDef.type = BodyDef.BodyType.DynamicBody;
         mBodyDef.bullet = true;
@@ -123,12 +125,32 @@ public class Bullet extends GameObjectAdapter implements Collidable, Pool.Poolab
 
     @Override
     public void dispose() {
-        sPool.free(this);
+        mGameWorld.getObjectPool(Bullet.class).free(this);
+    }
+
+    @Override
+    public void disposeResources() {
+        if (mShape != null) {
+            mShape.dispose();
+            mShape = null;
+        }
     }
 
     @Override
     public void act(float delta) {}
 
+    private static final ZLevel[] Z_LEVELS = {ZLevel.GROUND};
+
+    @Override
+    public ZLevel[] getZLevels() {
+        return Z_LEVELS;
+    }
+
+    @Override
+    public float getDrawRadius() {
+        return mDrawRadius;
+    }
+
     @Override
     public void draw(Batch batch, ZLevel zLevel) {
         if (zLevel == ZLevel.GROUND) {
@@ -157,7 +179,7 @@ public class Bullet extends GameObjectAdapter implements Collidable, Pool.Poolab
 
     private void explode() {
         Vector2 pos = mBody.getPosition();
-        AnimationObject obj = AnimationObject.create(mAssets.impact, pos.x, pos.y);
+        AnimationObject obj = AnimationObject.create(mGameWorld, mAssets.impact, pos.x, pos.y);
         obj.initAudio(mAudioManager, mAssets.soundAtlas.get("impact"));
         mGameWorld.addGameObject(obj);
         setFinished(true);
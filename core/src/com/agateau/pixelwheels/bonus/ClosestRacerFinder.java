@@ -18,53 +18,84 @@
  */
 package com.agateau.pixelwheels.bonus;
 
+import com.agateau.pixelwheels.GameWorld;
 import com.agateau.pixelwheels.racer.Racer;
-import com.agateau.pixelwheels.utils.ClosestBodyFinder;
 import com.badlogic.gdx.math.Vector2;
-import com.badlogic.gdx.physics.box2d.Body;
-import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.physics.box2d.Fixture;
+import com.badlogic.gdx.physics.box2d.RayCastCallback;
 
-public class ClosestRacerFinder {
-    private final ClosestBodyFinder mBodyFinder;
-    private final RacerBodyFilter mFilter = new RacerBodyFilter();
+/**
+ * Finds the closest racer within an arc of circle.
+ *
+ * <p>Candidates are looked up in the RacerSpatialIndex of the world, then a single raycast is fired
+ * towards the best candidate, to make sure it is the first racer in this direction.
+ */
+public class ClosestRacerFinder implements RayCastCallback {
+    private final float mDepth;
+    private final float mArc;
+    private Racer mIgnoredRacer;
 
-    private static class RacerBodyFilter implements ClosestBodyFinder.BodyFilter {
-        Racer mIgnoredRacer;
+    // Raycast results
+    private Racer mHitRacer;
+    private float mHitFraction;
 
-        @Override
-        public boolean acceptBody(Body body) {
-            Object userData = body.getUserData();
-            return userData instanceof Racer && userData != mIgnoredRacer;
-        }
-    }
+    // Work vars
+    private final Vector2 mTmp = new Vector2();
 
     public ClosestRacerFinder(float depth) {
         this(depth, 0);
     }
 
     public ClosestRacerFinder(float depth, float arc) {
-        mBodyFinder = new ClosestBodyFinder(depth, arc);
-        mBodyFinder.setBodyFilter(mFilter);
+        mDepth = depth;
+        mArc = arc;
     }
 
     public void setIgnoredRacer(Racer ignoredRacer) {
-        mFilter.mIgnoredRacer = ignoredRacer;
+        mIgnoredRacer = ignoredRacer;
     }
 
-    public Racer find(World world, Vector2 origin, float angle) {
-        Body body = mBodyFinder.find(world, origin, angle);
-        if (body == null) {
+    public Racer find(GameWorld gameWorld, Vector2 origin, float angle) {
+        Racer candidate =
+                gameWorld
+                        .getRacerSpatialIndex()
+                        .findClosestInArc(origin, angle, mDepth, mArc, mIgnoredRacer);
+        if (candidate == null) {
             return null;
-        } else {
-            return (Racer) body.getUserData();
         }
+        mHitRacer = null;
+        mHitFraction = 1;
+        mTmp.set(candidate.getX(), candidate.getY());
+        if (mTmp.epsilonEquals(origin)) {
+            // Origin is at the center of the racer, the raycast would not report anything
+            return candidate;
+        }
+        gameWorld.getBox2DWorld().rayCast(this, origin, mTmp);
+        return mHitRacer;
     }
 
     public Vector2 getLeftVertex(Vector2 origin, float angle) {
-        return mBodyFinder.getLeftVertex(origin, angle);
+        mTmp.set(mDepth, 0).rotate(angle + mArc / 2).add(origin);
+        return mTmp;
     }
 
     public Vector2 getRightVertex(Vector2 origin, float angle) {
-        return mBodyFinder.getRightVertex(origin, angle);
+        mTmp.set(mDepth, 0).rotate(angle - mArc / 2).add(origin);
+        return mTmp;
+    }
+
+    @Override
+    public float reportRayFixture(Fixture fixture, Vector2 point, Vector2 normal, float fraction) {
+        if (mHitFraction < fraction) {
+            // Too far, no need to go further
+            return mHitFraction;
+        }
+        Object userData = fixture.getBody().getUserData();
+        if (!(userData instanceof Racer) || userData == mIgnoredRacer) {
+            return -1;
+        }
+        mHitFraction = fraction;
+        mHitRacer = (Racer) userData;
+        return fraction;
     }
 }
@@ -24,13 +24,13 @@ import com.agateau.pixelwheels.ZLevel;
 import com.agateau.pixelwheels.debug.DebugShapeMap;
 import com.agateau.pixelwheels.racer.Racer;
 import com.agateau.pixelwheels.racer.Vehicle;
+import com.agateau.utils.AgcMathUtils;
 import com.badlogic.gdx.graphics.g2d.Batch;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
 import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.Body;
-import com.badlogic.gdx.physics.box2d.World;
 import com.badlogic.gdx.utils.Pool;
 
 /** A gun bonus */
@@ -135,7 +135,9 @@ public class GunBonus extends BonusAdapter implements Pool.Poolable {
 
         // Shoot
         Vehicle vehicle = mRacer.getVehicle();
-        float angle = vehicle.getAngle() + MathUtils.random(-SPREAD_ANGLE, SPREAD_ANGLE);
+        float angle =
+                vehicle.getAngle()
+                        + AgcMathUtils.random(mGameWorld.getRandom(), -SPREAD_ANGLE, SPREAD_ANGLE);
         Bullet bullet =
                 Bullet.create(
                         mAssets,
@@ -158,9 +160,9 @@ public class GunBonus extends BonusAdapter implements Pool.Poolable {
     @Override
     public void aiAct(float delta) {
         mRayCastOrigin.set(mRacer.getX(), mRacer.getY());
-        World world = mGameWorld.getBox2DWorld();
         Racer racer =
-                mClosestRacerFinder.find(world, mRayCastOrigin, mRacer.getVehicle().getAngle());
+                mClosestRacerFinder.find(
+                        mGameWorld, mRayCastOrigin, mRacer.getVehicle().getAngle());
         if (racer != null) {
             mRacer.triggerBonus();
         }
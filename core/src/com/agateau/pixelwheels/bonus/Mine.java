@@ -23,6 +23,7 @@ import com.agateau.pixelwheels.GameWorld;
 import com.agateau.pixelwheels.ZLevel;
 import com.agateau.pixelwheels.gameobjet.Explosable;
 import com.agateau.pixelwheels.gameobjet.GameObjectAdapter;
+import com.agateau.pixelwheels.gameobjet.PooledResourceHolder;
 import com.agateau.pixelwheels.racer.Racer;
 import com.agateau.pixelwheels.racer.Vehicle;
 import com.agateau.pixelwheels.racescreen.Collidable;
@@ -44,18 +45,19 @@ import com.badlogic.gdx.physics.box2d.Manifold;
 import com.badlogic.gdx.physics.box2d.joints.WeldJointDef;
 import com.badlogic.gdx.utils.Disposable;
 import com.badlogic.gdx.utils.Pool;
-import com.badlogic.gdx.utils.ReflectionPool;
 
 /** A mine on the road */
 public class Mine extends GameObjectAdapter
-        implements Collidable, Pool.Poolable, Disposable, Explosable {
-    private static final ReflectionPool<Mine> sPool = new ReflectionPool<>(Mine.class);
+        implements Collidable, Pool.Poolable, Disposable, Explosable, PooledResourceHolder {
 
-    private static final float MINE_RADIUS = 0.8f;
+    public static final float MINE_RADIUS = 0.8f;
+
+    private static final Vector2 sTmp = new Vector2();
 
     private GameWorld mGameWorld;
     private AudioManager mAudioManager;
     private Assets mAssets;
+    private float mDrawRadius;
     private Racer mOwner;
     private BodyDef mBodyDef;
     private final WeldJointDef mJointDef = new WeldJointDef();
@@ -65,15 +67,13 @@ public class Mine extends GameObjectAdapter
     private float mTime;
     private Joint mJoint;
 
-    private static final Vector2 sTmp = new Vector2();
-
     public static Mine createAttachedMine(
             GameWorld gameWorld, Assets assets, AudioManager audioManager, Racer owner) {
         Vehicle vehicle = owner.getVehicle();
-        sTmp.set(-vehicle.getWidth(), 0);
-        sTmp.rotate(vehicle.getAngle()).add(vehicle.getX(), vehicle.getY());
+        Vector2 position = sTmp.set(-vehicle.getWidth(), 0);
+        position.rotate(vehicle.getAngle()).add(vehicle.getX(), vehicle.getY());
 
-        Mine mine = createInternal(gameWorld, assets, audioManager, sTmp);
+        Mine mine = createInternal(gameWorld, assets, audioManager, position);
         mine.mOwner = owner;
         mine.initJoint();
         return mine;
@@ -88,7 +88,7 @@ public class Mine extends GameObjectAdapter
 
     private static Mine createInternal(
             GameWorld gameWorld, Assets assets, AudioManager audioManager, Vector2 position) {
-        Mine mine = sPool.obtain();
+        Mine mine = gameWorld.getObjectPool(Mine.class).obtain();
         if (mine.mBodyDef == null) {
             mine.firstInit(assets);
         }
@@ -120,6 +120,7 @@ public class Mine extends GameObjectAdapter
 
     private void firstInit(Assets assets) {
         mAssets = assets;
+        mDrawRadius = BodyRegionDrawer.computeDrawRadius(mAssets.mine);
         mBodyDef = new BodyDef();
         mBodyDef.type = BodyDef.BodyType.DynamicBody;
 
@@ -145,7 +146,15 @@ public class Mine extends GameObjectAdapter
 
     @Override
     public void dispose() {
-        sPool.free(this);
+        mGameWorld.getObjectPool(Mine.class).free(this);
+    }
+
+    @Override
+    public void disposeResources() {
+        if (mShape != null) {
+            mShape.dispose();
+            mShape = null;
+        }
     }
 
     @Override
@@ -155,6 +164,18 @@ public class Mine extends GameObjectAdapter
 
     private final BodyRegionDrawer mBodyRegionDrawer = new BodyRegionDrawer();
 
+    private static final ZLevel[] Z_LEVELS = {ZLevel.GROUND, ZLevel.VEHICLES};
+
+    @Override
+    public ZLevel[] getZLevels() {
+        return Z_LEVELS;
+    }
+
+    @Override
+    public float getDrawRadius() {
+        return mDrawRadius;
+    }
+
     @Override
     public void draw(Batch batch, ZLevel zLevel) {
         mBodyRegionDrawer.setBatch(batch);
@@ -189,7 +210,7 @@ public class Mine extends GameObjectAdapter
         }
         setFinished(true);
         Vector2 pos = mBody.getPosition();
-        mGameWorld.addGameObject(mAssets.createExplosion(mAudioManager, pos.x, pos.y));
+        mGameWorld.addGameObject(mAssets.createExplosion(mGameWorld, mAudioManager, pos.x, pos.y));
     }
 
     @Override
@@ -214,6 +235,11 @@ public class Mine extends GameObjectAdapter
     @Override
     public void postSolve(Contact contact, Fixture otherFixture, ContactImpulse impulse) {}
 
+    /** Returns true if the mine has been dropped, in which case its body is static */
+    public boolean isDropped() {
+        return mJoint == null;
+    }
+
     public void drop() {
         mGameWorld.getBox2DWorld().destroyJoint(mJoint);
         mJoint = null;
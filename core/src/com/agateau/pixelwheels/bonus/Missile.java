@@ -50,16 +50,13 @@ import com.badlogic.gdx.physics.box2d.Fixture;
 import com.badlogic.gdx.physics.box2d.Joint;
 import com.badlogic.gdx.physics.box2d.Manifold;
 import com.badlogic.gdx.physics.box2d.PolygonShape;
-import com.badlogic.gdx.physics.box2d.World;
 import com.badlogic.gdx.physics.box2d.joints.WeldJointDef;
 import com.badlogic.gdx.utils.Disposable;
 import com.badlogic.gdx.utils.Pool;
-import com.badlogic.gdx.utils.ReflectionPool;
 
 /** A player bullet */
 public class Missile extends GameObjectAdapter
         implements Collidable, Pool.Poolable, Disposable, Explosable {
-    private static final ReflectionPool<Missile> sPool = new ReflectionPool<>(Missile.class);
 
     private static final float WIDTH = 44;
     private static final float HEIGHT = 13;
@@ -125,7 +122,7 @@ public class Missile extends GameObjectAdapter
 
     public static Missile create(
             Assets assets, GameWorld gameWorld, AudioManager audioManager, Racer shooter) {
-        Missile object = sPool.obtain();
+        Missile object = gameWorld.getObjectPool(Missile.class).obtain();
         object.mAssets = assets;
         object.mGameWorld = gameWorld;
         object.mAudioManager = audioManager;
@@ -148,6 +145,7 @@ public class Missile extends GameObjectAdapter
 
         object.mStatus = Status.WAITING;
         object.mNeedShootSound = false;
+        object.mSoundPlayer = null;
         object.mTarget = null;
         object.initJoint();
 
@@ -202,7 +200,7 @@ public class Missile extends GameObjectAdapter
 
     @Override
     public void dispose() {
-        sPool.free(this);
+        mGameWorld.getObjectPool(Missile.class).free(this);
     }
 
     @Override
@@ -246,10 +244,22 @@ public class Missile extends GameObjectAdapter
     }
 
     private void findTarget() {
-        World world = mGameWorld.getBox2DWorld();
         mTarget =
                 mRacerFinder.find(
-                        world, mBody.getWorldCenter(), mBody.getAngle() * MathUtils.radDeg);
+                        mGameWorld, mBody.getWorldCenter(), mBody.getAngle() * MathUtils.radDeg);
+    }
+
+    private static final ZLevel[] Z_LEVELS = {ZLevel.FLYING};
+
+    @Override
+    public ZLevel[] getZLevels() {
+        return Z_LEVELS;
+    }
+
+    @Override
+    public float getDrawRadius() {
+        // The missile draws a marker over its target, which can be far away from it
+        return -1;
     }
 
     @Override
@@ -337,9 +347,13 @@ public class Missile extends GameObjectAdapter
     @Override
     public void explode() {
         Vector2 pos = mBody.getPosition();
-        AnimationObject obj = mAssets.createExplosion(mAudioManager, pos.x, pos.y);
+        AnimationObject obj = mAssets.createExplosion(mGameWorld, mAudioManager, pos.x, pos.y);
         mGameWorld.addGameObject(obj);
-        mSoundPlayer.stop();
+        // mSoundPlayer is only created by audioRender(), which is not called when the world is
+        // not rendered, or if the missile explodes before the next frame
+        if (mSoundPlayer != null) {
+            mSoundPlayer.stop();
+        }
         setFinished(true);
     }
 
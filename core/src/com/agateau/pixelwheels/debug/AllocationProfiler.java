@@ -0,0 +1,174 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.debug;
+
+import com.agateau.utils.CsvWriter;
+import com.agateau.utils.log.NLog;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.LongArray;
+
+/**
+ * Records the number of bytes allocated during each frame by sections of the race loop.
+ *
+ * <p>Counting allocated bytes requires a platform-specific source, which must be installed with
+ * setAllocatedBytesSource() at startup. Without a source, the profiler does nothing.
+ *
+ * <p>Sections can be nested. Bytes allocated by the source itself are not counted.
+ */
+public class AllocationProfiler {
+    public interface AllocatedBytesSource {
+        /** Returns the number of bytes allocated by the current thread since it started */
+        long getAllocatedBytes();
+    }
+
+    private static final int CALIBRATION_COUNT = 10;
+    private static final float HUD_UPDATE_INTERVAL = 1;
+
+    private static AllocatedBytesSource sSource = null;
+    private static long sSourceOverhead = 0;
+
+    private final Array<Section> mSections = new Array<>();
+    private final boolean mEnabled;
+    private long mReadCount = 0;
+    private int mFrameCount = 0;
+    private int mHudFrameCount = 0;
+    private float mHudTime = 0;
+
+    public class Section {
+        public final String name;
+        private final String mHudKey;
+        private final LongArray mBytesPerFrame = new LongArray();
+        private long mStartBytes;
+        private long mStartReadCount;
+        private long mFrameBytes = 0;
+        private long mHudBytes = 0;
+
+        private Section(String name) {
+            this.name = name;
+            mHudKey = "Alloc " + name;
+        }
+
+        public void start() {
+            if (!mEnabled) {
+                return;
+            }
+            mStartBytes = readAllocatedBytes();
+            mStartReadCount = mReadCount;
+        }
+
+        public void stop() {
+            if (!mEnabled) {
+                return;
+            }
+            long bytes = readAllocatedBytes() - mStartBytes;
+            bytes -= (mReadCount - mStartReadCount) * sSourceOverhead;
+            mFrameBytes += Math.max(bytes, 0);
+        }
+    }
+
+    /** Sets the source used to count allocated bytes. Must be called before creating profilers. */
+    public static void setAllocatedBytesSource(AllocatedBytesSource source) {
+        sSource = source;
+        if (source == null) {
+            return;
+        }
+        // Reading the number of allocated bytes may allocate memory: keep the smallest amount
+        // allocated between two reads, so that it can be subtracted from the measures
+        long overhead = Long.MAX_VALUE;
+        long bytes = source.getAllocatedBytes();
+        for (int idx = 0; idx < CALIBRATION_COUNT; ++idx) {
+            long newBytes = source.getAllocatedBytes();
+            overhead = Math.min(overhead, newBytes - bytes);
+            bytes = newBytes;
+        }
+        sSourceOverhead = overhead;
+        NLog.i("Allocated bytes source overhead: %d bytes", overhead);
+    }
+
+    public static boolean isAvailable() {
+        return sSource != null;
+    }
+
+    /** Creates a profiler, which does nothing if enabled is false or no source is available */
+    public AllocationProfiler(boolean enabled) {
+        mEnabled = enabled && isAvailable();
+    }
+
+    public boolean isEnabled() {
+        return mEnabled;
+    }
+
+    public Section add(String name) {
+        Section section = new Section(name);
+        mSections.add(section);
+        return section;
+    }
+
+    /**
+     * Must be called at the end of each frame, outside any section. Records the bytes allocated
+     * during the frame and regularly updates the debug hud with the average per frame.
+     */
+    public void tick(float delta) {
+        if (!mEnabled) {
+            return;
+        }
+        ++mFrameCount;
+        ++mHudFrameCount;
+        mHudTime += delta;
+        boolean updateHud = mHudTime >= HUD_UPDATE_INTERVAL;
+        for (Section section : mSections) {
+            section.mBytesPerFrame.add(section.mFrameBytes);
+            section.mHudBytes += section.mFrameBytes;
+            section.mFrameBytes = 0;
+            if (updateHud) {
+                DebugStringMap.put(section.mHudKey, section.mHudBytes / mHudFrameCount + " B");
+                section.mHudBytes = 0;
+            }
+        }
+        if (updateHud) {
+            mHudTime = 0;
+            mHudFrameCount = 0;
+        }
+    }
+
+    /** Writes the bytes allocated by each section during each frame to handle */
+    public void writeCsv(FileHandle handle) {
+        CsvWriter writer = new CsvWriter(handle);
+        Object[] row = new Object[mSections.size + 1];
+        row[0] = "frame";
+        for (int idx = 0; idx < mSections.size; ++idx) {
+            row[idx + 1] = mSections.get(idx).name;
+        }
+        writer.addRow(row);
+        for (int frame = 0; frame < mFrameCount; ++frame) {
+            row[0] = frame;
+            for (int idx = 0; idx < mSections.size; ++idx) {
+                row[idx + 1] = mSections.get(idx).mBytesPerFrame.get(frame);
+            }
+            writer.addRow(row);
+        }
+        writer.close();
+    }
+
+    private long readAllocatedBytes() {
+        ++mReadCount;
+        return sSource.getAllocatedBytes();
+    }
+}
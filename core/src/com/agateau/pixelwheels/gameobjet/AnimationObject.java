@@ -19,22 +19,23 @@
 package com.agateau.pixelwheels.gameobjet;
 
 import com.agateau.pixelwheels.Constants;
+import com.agateau.pixelwheels.GameWorld;
 import com.agateau.pixelwheels.ZLevel;
 import com.agateau.pixelwheels.sound.AudioManager;
+import com.agateau.pixelwheels.utils.BodyRegionDrawer;
 import com.badlogic.gdx.audio.Sound;
 import com.badlogic.gdx.graphics.g2d.Animation;
 import com.badlogic.gdx.graphics.g2d.Batch;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.utils.Disposable;
 import com.badlogic.gdx.utils.Pool;
-import com.badlogic.gdx.utils.ReflectionPool;
 
 /** A generic short-animation game object */
 public class AnimationObject extends GameObjectAdapter implements Pool.Poolable, Disposable {
-    private static final ReflectionPool<AnimationObject> sPool =
-            new ReflectionPool<>(AnimationObject.class);
+    private GameWorld mGameWorld;
     private float mTime;
     private Animation<TextureRegion> mAnimation;
+    private float mDrawRadius;
     private float mPosX;
     private float mPosY;
 
@@ -46,7 +47,7 @@ public class AnimationObject extends GameObjectAdapter implements Pool.Poolable,
 
     @Override
     public void dispose() {
-        sPool.free(this);
+        mGameWorld.getObjectPool(AnimationObject.class).free(this);
     }
 
     @Override
@@ -60,6 +61,18 @@ public class AnimationObject extends GameObjectAdapter implements Pool.Poolable,
         }
     }
 
+    private static final ZLevel[] Z_LEVELS = {ZLevel.OBSTACLES};
+
+    @Override
+    public ZLevel[] getZLevels() {
+        return Z_LEVELS;
+    }
+
+    @Override
+    public float getDrawRadius() {
+        return mDrawRadius;
+    }
+
     @Override
     public void draw(Batch batch, ZLevel zLevel) {
         if (mTime < 0) {
@@ -98,15 +111,23 @@ public class AnimationObject extends GameObjectAdapter implements Pool.Poolable,
     }
 
     public static AnimationObject create(
-            Animation<TextureRegion> animation, float posX, float posY) {
-        return create(animation, posX, posY, 0);
+            GameWorld gameWorld, Animation<TextureRegion> animation, float posX, float posY) {
+        return create(gameWorld, animation, posX, posY, 0);
     }
 
     public static AnimationObject create(
-            Animation<TextureRegion> animation, float posX, float posY, float delay) {
-        AnimationObject obj = sPool.obtain();
+            GameWorld gameWorld,
+            Animation<TextureRegion> animation,
+            float posX,
+            float posY,
+            float delay) {
+        AnimationObject obj = gameWorld.getObjectPool(AnimationObject.class).obtain();
+        obj.mGameWorld = gameWorld;
         obj.mTime = -delay;
-        obj.mAnimation = animation;
+        if (obj.mAnimation != animation) {
+            obj.mAnimation = animation;
+            obj.mDrawRadius = BodyRegionDrawer.computeDrawRadius(animation);
+        }
         obj.mPosX = posX;
         obj.mPosY = posY;
         obj.mSound = null;
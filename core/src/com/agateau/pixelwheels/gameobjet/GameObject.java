@@ -32,8 +32,21 @@ public interface GameObject {
      */
     boolean isFinished();
 
+    /**
+     * Returns the z-levels the object draws at. draw() is only called for these levels. The result
+     * must not change during the life of the object.
+     */
+    ZLevel[] getZLevels();
+
     void draw(Batch batch, ZLevel zLevel);
 
+    /**
+     * Returns the radius of a circle centered on (getX(), getY()) containing everything the object
+     * draws, so that it can be skipped when it is out of view. Returns a negative value if the
+     * object must always be drawn.
+     */
+    float getDrawRadius();
+
     float getX();
 
     float getY();
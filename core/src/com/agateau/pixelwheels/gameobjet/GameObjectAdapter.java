@@ -33,6 +33,12 @@ public abstract class GameObjectAdapter implements GameObject {
     @Override
     public void audioRender(AudioClipper audioClipper) {}
 
+    /** Objects are always drawn by default, subclasses should override this if they can */
+    @Override
+    public float getDrawRadius() {
+        return -1;
+    }
+
     @Override
     public Vector2 getPosition() {
         mPosition.set(getX(), getY());
@@ -0,0 +1,29 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.gameobjet;
+
+/**
+ * Pooled objects which keep resources, such as GPU or Box2D objects, while they are in their pool.
+ *
+ * <p>The dispose() method of pooled objects returns them to their pool, so these resources are
+ * released by disposeResources(), when the world owning the pool is disposed.
+ */
+public interface PooledResourceHolder {
+    void disposeResources();
+}
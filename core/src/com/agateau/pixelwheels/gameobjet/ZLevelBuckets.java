@@ -0,0 +1,61 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.gameobjet;
+
+import com.agateau.pixelwheels.ZLevel;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Sorts game objects by the z-levels they draw at, so that drawing a level only goes through the
+ * objects which have something to draw at this level.
+ *
+ * <p>Within a level, objects are kept in the order they have been added.
+ */
+public class ZLevelBuckets {
+    private final Array<Array<GameObject>> mBuckets = new Array<>();
+
+    public ZLevelBuckets() {
+        for (int idx = 0; idx < ZLevel.values().length; ++idx) {
+            mBuckets.add(new Array<>());
+        }
+    }
+
+    public void add(GameObject object) {
+        for (ZLevel zLevel : object.getZLevels()) {
+            mBuckets.get(zLevel.ordinal()).add(object);
+        }
+    }
+
+    public void remove(GameObject object) {
+        for (ZLevel zLevel : object.getZLevels()) {
+            mBuckets.get(zLevel.ordinal()).removeValue(object, true);
+        }
+    }
+
+    /** Returns the objects drawing at zLevel. The returned array must not be modified. */
+    public Array<GameObject> get(ZLevel zLevel) {
+        return mBuckets.get(zLevel.ordinal());
+    }
+
+    public void clear() {
+        for (Array<GameObject> bucket : mBuckets) {
+            bucket.clear();
+        }
+    }
+}
@@ -55,7 +55,9 @@ public abstract class GameInfo {
                 vehicleIds.removeValue(player.mVehicleId, /* identity= */ false);
             }
             vehicleIds.shuffle();
-            int aiCount = GamePlay.instance.racerCount - mPlayers.size;
+            // racerCount is loaded from the saved debug settings, which may be out of range
+            int racerCount = Math.min(GamePlay.instance.racerCount, GamePlay.MAX_RACER_COUNT);
+            int aiCount = racerCount - mPlayers.size;
 
             gameInfo.mEntrants.clear();
             for (int idx = 0; idx < aiCount; ++idx) {
@@ -81,6 +83,12 @@ public abstract class GameInfo {
         private int mScore = 0;
         private float mRaceTime = 0;
 
+        public Entrant() {}
+
+        public Entrant(String vehicleId) {
+            mVehicleId = vehicleId;
+        }
+
         public String getVehicleId() {
             return mVehicleId;
         }
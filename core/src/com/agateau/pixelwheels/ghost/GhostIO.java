@@ -0,0 +1,104 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.ghost;
+
+import com.agateau.utils.FileUtils;
+import com.agateau.utils.log.NLog;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.StreamUtils;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Reads and writes ghost laps. A ghost file contains, in big-endian order:
+ *
+ * <pre>
+ * int      MAGIC
+ * int      VERSION
+ * UTF      vehicle id
+ * float    lap time
+ * int      sample count
+ * byte[]   samples, see GhostLap
+ * </pre>
+ */
+public class GhostIO {
+    private static final int MAGIC = 0x50576768; // "PWgh"
+    private static final int VERSION = 1;
+
+    /** Returns the file storing the best lap on the track identified by trackId */
+    public static FileHandle getFile(String trackId) {
+        return FileUtils.getUserWritableFile("ghost-" + trackId + ".bin");
+    }
+
+    public static void write(GhostLap lap, FileHandle file) {
+        DataOutputStream out = new DataOutputStream(file.write(false /* append */, 8192));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(lap.getVehicleId());
+            out.writeFloat(lap.getLapTime());
+            out.writeInt(lap.getSampleCount());
+            out.write(lap.getData(), 0, lap.getSampleCount() * GhostLap.SAMPLE_SIZE);
+        } catch (IOException e) {
+            throw new GdxRuntimeException("Failed to write " + file.path(), e);
+        } finally {
+            StreamUtils.closeQuietly(out);
+        }
+    }
+
+    /** Returns the lap stored in file, or null if there is no such file or it cannot be read */
+    public static GhostLap read(FileHandle file) {
+        if (!file.exists()) {
+            return null;
+        }
+        DataInputStream in;
+        try {
+            in = new DataInputStream(file.read(8192));
+        } catch (GdxRuntimeException e) {
+            NLog.e("Failed to open %s: %s", file.path(), e);
+            return null;
+        }
+        try {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                NLog.e("%s: unsupported format", file.path());
+                return null;
+            }
+            String vehicleId = in.readUTF();
+            float lapTime = in.readFloat();
+            int sampleCount = in.readInt();
+            if (sampleCount <= 0 || (long) sampleCount * GhostLap.SAMPLE_SIZE > file.length()) {
+                NLog.e("%s: invalid sample count %d", file.path(), sampleCount);
+                return null;
+            }
+            GhostLap lap = new GhostLap(sampleCount);
+            lap.setVehicleId(vehicleId);
+            lap.setLapTime(lapTime);
+            in.readFully(lap.getData());
+            lap.setSampleCount(sampleCount);
+            return lap;
+        } catch (IOException e) {
+            NLog.e("Failed to read %s: %s", file.path(), e);
+            return null;
+        } finally {
+            StreamUtils.closeQuietly(in);
+        }
+    }
+}
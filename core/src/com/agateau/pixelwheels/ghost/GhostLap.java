@@ -0,0 +1,166 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.ghost;
+
+import com.agateau.pixelwheels.GameWorld;
+import com.agateau.utils.AgcMathUtils;
+import com.badlogic.gdx.math.MathUtils;
+
+/**
+ * The path of a vehicle during a lap, sampled at a fixed rate.
+ *
+ * <p>Samples are kept quantized in a byte array allocated once: recording a lap does not allocate
+ * and a one minute lap takes about 8 KB. Each sample contains:
+ *
+ * <pre>
+ * ushort   x, in 1/POSITION_SCALE world units
+ * ushort   y, in 1/POSITION_SCALE world units
+ * ushort   angle, 65536 units for a full turn
+ * byte     steer angle, in degrees
+ * </pre>
+ */
+public class GhostLap {
+    /** Number of world steps between two samples */
+    public static final int SAMPLE_STEPS = 3;
+
+    public static final float SAMPLE_INTERVAL = SAMPLE_STEPS * GameWorld.BOX2D_TIME_STEP;
+
+    static final int SAMPLE_SIZE = 7;
+
+    private static final float POSITION_SCALE = 100;
+    private static final float ANGLE_SCALE = 65536 / 360f;
+
+    private final byte[] mData;
+    private String mVehicleId;
+    private float mLapTime;
+    private int mSampleCount = 0;
+
+    /** A vehicle pose, as returned by getPose() */
+    public static class Pose {
+        public float x;
+        public float y;
+        /** In degrees */
+        public float angle;
+        /** In degrees, relative to the vehicle angle */
+        public float steerAngle;
+    }
+
+    /** Creates a lap which can hold up to maxSampleCount samples */
+    public GhostLap(int maxSampleCount) {
+        mData = new byte[maxSampleCount * SAMPLE_SIZE];
+    }
+
+    public String getVehicleId() {
+        return mVehicleId;
+    }
+
+    public void setVehicleId(String vehicleId) {
+        mVehicleId = vehicleId;
+    }
+
+    public float getLapTime() {
+        return mLapTime;
+    }
+
+    public void setLapTime(float lapTime) {
+        mLapTime = lapTime;
+    }
+
+    public int getSampleCount() {
+        return mSampleCount;
+    }
+
+    /** Returns the time of the last sample */
+    public float getDuration() {
+        return (mSampleCount - 1) * SAMPLE_INTERVAL;
+    }
+
+    public boolean isFull() {
+        return (mSampleCount + 1) * SAMPLE_SIZE > mData.length;
+    }
+
+    public void clear() {
+        mSampleCount = 0;
+        mLapTime = 0;
+    }
+
+    /** Makes this lap a copy of other. Does not allocate if this lap is large enough. */
+    public void set(GhostLap other) {
+        System.arraycopy(other.mData, 0, mData, 0, other.mSampleCount * SAMPLE_SIZE);
+        mSampleCount = other.mSampleCount;
+        mVehicleId = other.mVehicleId;
+        mLapTime = other.mLapTime;
+    }
+
+    /** Angles are in degrees. Must not be called if the lap is full. */
+    public void addSample(float x, float y, float angle, float steerAngle) {
+        int offset = mSampleCount * SAMPLE_SIZE;
+        writeShort(offset, quantizePosition(x));
+        writeShort(offset + 2, quantizePosition(y));
+        writeShort(offset + 4, (int) (AgcMathUtils.normalizeAngle(angle) * ANGLE_SCALE));
+        mData[offset + 6] = (byte) MathUtils.clamp(Math.round(steerAngle), -127, 127);
+        ++mSampleCount;
+    }
+
+    /**
+     * Sets pose to the pose of the vehicle time seconds after the start of the lap, interpolating
+     * between the two closest samples. Returns false if the lap is empty or time is outside of it.
+     */
+    public boolean getPose(float time, Pose pose) {
+        if (mSampleCount == 0 || time < 0 || time > getDuration()) {
+            return false;
+        }
+        int idx = (int) (time / SAMPLE_INTERVAL);
+        int nextIdx = Math.min(idx + 1, mSampleCount - 1);
+        float k = time / SAMPLE_INTERVAL - idx;
+
+        int offset = idx * SAMPLE_SIZE;
+        int nextOffset = nextIdx * SAMPLE_SIZE;
+        pose.x = MathUtils.lerp(readShort(offset), readShort(nextOffset), k) / POSITION_SCALE;
+        pose.y =
+                MathUtils.lerp(readShort(offset + 2), readShort(nextOffset + 2), k)
+                        / POSITION_SCALE;
+        float angle = readShort(offset + 4) / ANGLE_SCALE;
+        float nextAngle = readShort(nextOffset + 4) / ANGLE_SCALE;
+        pose.angle = angle + AgcMathUtils.normalizeAngle180(nextAngle - angle) * k;
+        pose.steerAngle = MathUtils.lerp(mData[offset + 6], mData[nextOffset + 6], k);
+        return true;
+    }
+
+    byte[] getData() {
+        return mData;
+    }
+
+    void setSampleCount(int sampleCount) {
+        mSampleCount = sampleCount;
+    }
+
+    private static int quantizePosition(float value) {
+        return MathUtils.clamp(Math.round(value * POSITION_SCALE), 0, 0xffff);
+    }
+
+    private void writeShort(int offset, int value) {
+        mData[offset] = (byte) (value >> 8);
+        mData[offset + 1] = (byte) value;
+    }
+
+    private int readShort(int offset) {
+        return ((mData[offset] & 0xff) << 8) | (mData[offset + 1] & 0xff);
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.ghost;
+
+import com.agateau.pixelwheels.Assets;
+import com.agateau.pixelwheels.Constants;
+import com.agateau.pixelwheels.ZLevel;
+import com.agateau.pixelwheels.gameobjet.GameObjectAdapter;
+import com.agateau.pixelwheels.racer.LapPositionComponent;
+import com.agateau.pixelwheels.racer.Racer;
+import com.agateau.pixelwheels.utils.BodyRegionDrawer;
+import com.agateau.pixelwheels.vehicledef.AxleDef;
+import com.agateau.pixelwheels.vehicledef.VehicleDef;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.utils.FloatArray;
+
+/**
+ * Draws a translucent vehicle following a ghost lap, in sync with the current lap of a racer.
+ *
+ * <p>The ghost has no body, so it does not collide with anything. Its lap is only loaded when the
+ * racer completes its first lap, since it is not visible before, to keep file I/O out of the
+ * creation and the start of the race.
+ */
+public class GhostRacer extends GameObjectAdapter {
+    private static final Color COLOR = new Color(1, 1, 1, 0.4f);
+
+    private final Assets mAssets;
+    private final FileHandle mFile;
+    private final LapPositionComponent mLapPositionComponent;
+
+    private boolean mLoaded = false;
+    private GhostLap mLap;
+    private TextureRegion mRegion;
+    private float mDrawRadius = -1;
+    // Wheel positions and steering factors, as defined by the axles of the vehicle
+    private final FloatArray mWheelXs = new FloatArray();
+    private final FloatArray mWheelYs = new FloatArray();
+    private final FloatArray mWheelSteers = new FloatArray();
+
+    private final GhostLap.Pose mPose = new GhostLap.Pose();
+    private final Color mOldColor = new Color();
+    private boolean mVisible = false;
+
+    public GhostRacer(Assets assets, FileHandle file, Racer racer) {
+        mAssets = assets;
+        mFile = file;
+        mLapPositionComponent = racer.getLapPositionComponent();
+    }
+
+    @Override
+    public void act(float delta) {
+        // The time of the first lap includes the count down and the start from the grid, so the
+        // ghost can only follow the racer from the second lap
+        if (mLapPositionComponent.getCompletedLapCount() == 0) {
+            return;
+        }
+        if (!mLoaded) {
+            load();
+        }
+        mVisible =
+                mLap != null
+                        && !mLapPositionComponent.hasFinishedRace()
+                        && mLap.getPose(mLapPositionComponent.getLapTime(), mPose);
+    }
+
+    private void load() {
+        mLoaded = true;
+        mLap = GhostIO.read(mFile);
+        if (mLap == null) {
+            return;
+        }
+        VehicleDef vehicleDef = mAssets.findVehicleDefById(mLap.getVehicleId());
+        if (vehicleDef == null) {
+            // The vehicle does not exist anymore
+            mLap = null;
+            return;
+        }
+        mRegion = vehicleDef.getImage(mAssets);
+        mDrawRadius = BodyRegionDrawer.computeDrawRadius(mRegion);
+
+        // See VehicleCreator for details about the coordinates
+        final float U = Constants.UNIT_FOR_PIXEL;
+        for (AxleDef axle : vehicleDef.axles) {
+            float wheelX = (axle.y - mRegion.getRegionWidth() / 2f) * U;
+            float wheelY = axle.width * U / 2;
+            for (int side = -1; side <= 1; side += 2) {
+                mWheelXs.add(wheelX);
+                mWheelYs.add(wheelY * side);
+                mWheelSteers.add(axle.steer);
+            }
+        }
+    }
+
+    private static final ZLevel[] Z_LEVELS = {ZLevel.VEHICLES};
+
+    @Override
+    public ZLevel[] getZLevels() {
+        return Z_LEVELS;
+    }
+
+    @Override
+    public float getDrawRadius() {
+        return mDrawRadius;
+    }
+
+    @Override
+    public void draw(Batch batch, ZLevel zLevel) {
+        if (!mVisible || zLevel != ZLevel.VEHICLES) {
+            return;
+        }
+        mOldColor.set(batch.getColor());
+        batch.setColor(COLOR);
+        float cos = MathUtils.cosDeg(mPose.angle);
+        float sin = MathUtils.sinDeg(mPose.angle);
+        for (int idx = 0; idx < mWheelXs.size; ++idx) {
+            float wx = mWheelXs.get(idx);
+            float wy = mWheelYs.get(idx);
+            drawRegion(
+                    batch,
+                    mAssets.wheel,
+                    mPose.x + wx * cos - wy * sin,
+                    mPose.y + wx * sin + wy * cos,
+                    mPose.angle + mPose.steerAngle * mWheelSteers.get(idx));
+        }
+        drawRegion(batch, mRegion, mPose.x, mPose.y, mPose.angle);
+        batch.setColor(mOldColor);
+    }
+
+    private static void drawRegion(
+            Batch batch, TextureRegion region, float x, float y, float angle) {
+        float w = Constants.UNIT_FOR_PIXEL * region.getRegionWidth();
+        float h = Constants.UNIT_FOR_PIXEL * region.getRegionHeight();
+        batch.draw(
+                region, x - w / 2, y - h / 2, // pos
+                w / 2, h / 2, // origin
+                w, h, // size
+                1, 1, // scale
+                angle);
+    }
+
+    @Override
+    public float getX() {
+        return mPose.x;
+    }
+
+    @Override
+    public float getY() {
+        return mPose.y;
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.ghost;
+
+import com.agateau.pixelwheels.racer.LapPositionComponent;
+import com.agateau.pixelwheels.racer.Racer;
+import com.agateau.pixelwheels.racer.Vehicle;
+
+/**
+ * Samples the path of a racer during each lap and keeps the fastest one.
+ *
+ * <p>Buffers are allocated once, when the recorder is created. Laps longer than MAX_LAP_DURATION
+ * are ignored: they would not make interesting ghosts anyway.
+ */
+public class GhostRecorder {
+    public static final float MAX_LAP_DURATION = 180;
+    private static final int MAX_SAMPLE_COUNT =
+            (int) (MAX_LAP_DURATION / GhostLap.SAMPLE_INTERVAL) + 1;
+
+    private final Racer mRacer;
+    private final GhostLap mCurrentLap = new GhostLap(MAX_SAMPLE_COUNT);
+    private final GhostLap mBestLap = new GhostLap(MAX_SAMPLE_COUNT);
+    private boolean mHasBestLap = false;
+    private int mCompletedLapCount = 0;
+    private int mStepCount = 0;
+
+    public GhostRecorder(Racer racer) {
+        mRacer = racer;
+        String vehicleId = racer.getVehicle().getId();
+        mCurrentLap.setVehicleId(vehicleId);
+        mBestLap.setVehicleId(vehicleId);
+    }
+
+    /** Must be called after each world step, once the racer has moved */
+    public void act() {
+        LapPositionComponent lapPositionComponent = mRacer.getLapPositionComponent();
+        // Check this first: crossing the finish line completes the last lap *and* the race
+        if (lapPositionComponent.getCompletedLapCount() != mCompletedLapCount) {
+            mCompletedLapCount = lapPositionComponent.getCompletedLapCount();
+            onLapCompleted(lapPositionComponent.getLastLapTime());
+        }
+        if (lapPositionComponent.hasFinishedRace()) {
+            return;
+        }
+        if (mStepCount % GhostLap.SAMPLE_STEPS == 0 && !mCurrentLap.isFull()) {
+            Vehicle vehicle = mRacer.getVehicle();
+            mCurrentLap.addSample(
+                    vehicle.getX(), vehicle.getY(), vehicle.getAngle(), vehicle.getSteerAngle());
+        }
+        ++mStepCount;
+    }
+
+    /** Returns the fastest lap recorded so far, or null if no lap has been completed yet */
+    public GhostLap getBestLap() {
+        return mHasBestLap ? mBestLap : null;
+    }
+
+    private void onLapCompleted(float lapTime) {
+        // If the lap was too long the recording is incomplete
+        boolean complete = lapTime <= MAX_LAP_DURATION;
+        if (complete && (!mHasBestLap || lapTime < mBestLap.getLapTime())) {
+            mCurrentLap.setLapTime(lapTime);
+            mBestLap.set(mCurrentLap);
+            mHasBestLap = true;
+        }
+        // The lap time has been reset, restart recording so that samples stay aligned with it
+        mCurrentLap.clear();
+        mStepCount = 0;
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.headless;
+
+import com.agateau.pixelwheels.Assets;
+import com.agateau.pixelwheels.GamePlay;
+import com.agateau.pixelwheels.map.Track;
+import com.agateau.utils.CsvWriter;
+import com.agateau.utils.log.NLog;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs a batch of independent headless races in parallel, one race per worker thread.
+ *
+ * <p>Each race gets its own Track instance and GameWorld, simulated with the GamePlay of its spec.
+ * The results of each race are written to a CSV file in the output directory.
+ *
+ * <p>Debug settings, such as Debug.instance.oneLapOnly, are still shared by all races.
+ */
+public class HeadlessBatchRunner {
+    private final Assets mAssets;
+    private final int mThreadCount;
+    private float mMaxRaceDuration = 600;
+
+    public static class RaceSpec {
+        public final Track track;
+        public final Array<String> vehicleIds;
+        public final GamePlay gamePlay;
+
+        /** track is used as a template: the race creates its own Track instance */
+        public RaceSpec(Track track, Array<String> vehicleIds) {
+            this(track, vehicleIds, GamePlay.instance);
+        }
+
+        /** Same as RaceSpec(Track, Array), but the race is simulated with gamePlay */
+        public RaceSpec(Track track, Array<String> vehicleIds, GamePlay gamePlay) {
+            this.track = track;
+            this.vehicleIds = vehicleIds;
+            this.gamePlay = gamePlay;
+        }
+    }
+
+    public static class BatchResult {
+        public int raceCount;
+        public long stepCount;
+        /** Wall-clock duration of the batch, in seconds */
+        public float duration;
+
+        public float getRacesPerSecond() {
+            return raceCount / duration;
+        }
+
+        public float getStepsPerSecond() {
+            return stepCount / duration;
+        }
+    }
+
+    public HeadlessBatchRunner(Assets assets, int threadCount) {
+        mAssets = assets;
+        mThreadCount = threadCount;
+    }
+
+    public void setMaxRaceDuration(float maxRaceDuration) {
+        mMaxRaceDuration = maxRaceDuration;
+    }
+
+    public BatchResult run(Array<RaceSpec> specs, FileHandle outputDir) {
+        outputDir.mkdirs();
+        AtomicInteger nextIndex = new AtomicInteger();
+        long[] stepCounts = new long[mThreadCount];
+
+        Thread[] threads = new Thread[mThreadCount];
+        for (int idx = 0; idx < mThreadCount; ++idx) {
+            final int threadIndex = idx;
+            threads[idx] =
+                    new Thread(
+                            () -> {
+                                for (int raceIndex = nextIndex.getAndIncrement();
+                                        raceIndex < specs.size;
+                                        raceIndex = nextIndex.getAndIncrement()) {
+                                    stepCounts[threadIndex] +=
+                                            runRace(raceIndex, specs.get(raceIndex), outputDir);
+                                }
+                            },
+                            "race-worker-" + idx);
+        }
+
+        long startTime = System.nanoTime();
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                NLog.e("Interrupted while waiting for race workers");
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        BatchResult result = new BatchResult();
+        result.raceCount = specs.size;
+        result.duration = (System.nanoTime() - startTime) / 1e9f;
+        for (long stepCount : stepCounts) {
+            result.stepCount += stepCount;
+        }
+        return result;
+    }
+
+    private int runRace(int raceIndex, RaceSpec spec, FileHandle outputDir) {
+        HeadlessRaceRunner runner = new HeadlessRaceRunner(mAssets, spec.gamePlay);
+        Track track = new Track(spec.track.getId(), spec.track.getMapName());
+        // Seed with the race index so that running the same batch twice gives the same results
+        HeadlessRaceRunner.RaceResult result =
+                runner.run(track, spec.vehicleIds, mMaxRaceDuration, raceIndex);
+
+        String fileName = String.format("race-%04d-%s.csv", raceIndex, track.getId());
+        CsvWriter writer = new CsvWriter(outputDir.child(fileName));
+        writer.addRow("rank", "vehicle", "status", "laps", "best_lap_time", "total_time");
+        for (HeadlessRaceRunner.RacerResult racerResult : result.racerResults) {
+            writer.addRow(
+                    racerResult.rank,
+                    racerResult.vehicleId,
+                    racerResult.status,
+                    racerResult.lapCount,
+                    racerResult.bestLapTime,
+                    racerResult.totalTime);
+        }
+        writer.close();
+        return result.stepCount;
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.headless;
+
+import com.badlogic.gdx.Application;
+import com.badlogic.gdx.Audio;
+import com.badlogic.gdx.Files;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.physics.box2d.Box2D;
+import com.badlogic.gdx.utils.GdxNativesLoader;
+import java.io.File;
+import java.lang.reflect.Proxy;
+
+/**
+ * Installs render-free implementations of the Gdx.* services, so that the game world can run in a
+ * plain JVM, without a window, an OpenGL context or an audio device.
+ *
+ * <p>Gdx.gl, Gdx.audio and Gdx.app do nothing: textures and sounds can be created, which is enough
+ * to load Assets and tracks, but nothing is ever drawn or played. Gdx.graphics and Gdx.input are
+ * left unset.
+ *
+ * <p>The gdx and gdx-box2d desktop natives must be in the classpath.
+ */
+public class HeadlessGdx {
+    private static boolean sInitialized = false;
+
+    /** assetsDir is the directory Gdx.files.internal() paths are relative to */
+    public static synchronized void init(File assetsDir) {
+        if (sInitialized) {
+            return;
+        }
+        GdxNativesLoader.load();
+        Box2D.init();
+        Gdx.files = new HeadlessFiles(assetsDir);
+        Gdx.app = createNoOpProxy(Application.class);
+        Gdx.audio = createNoOpProxy(Audio.class);
+        Gdx.gl = createNoOpProxy(GL20.class);
+        Gdx.gl20 = Gdx.gl;
+        sInitialized = true;
+    }
+
+    /**
+     * Creates an implementation of interfaceClass where all methods do nothing and return 0, false
+     * or null. Methods returning an interface return a no-op implementation of this interface, so
+     * that for example Audio.newSound() returns a silent Sound.
+     */
+    private static <T> T createNoOpProxy(Class<T> interfaceClass) {
+        Object proxy =
+                Proxy.newProxyInstance(
+                        interfaceClass.getClassLoader(),
+                        new Class<?>[] {interfaceClass},
+                        (instance, method, args) -> {
+                            switch (method.getName()) {
+                                case "hashCode":
+                                    return System.identityHashCode(instance);
+                                case "equals":
+                                    return instance == args[0];
+                                case "toString":
+                                    return "NoOp" + interfaceClass.getSimpleName();
+                            }
+                            return getDefaultValue(method.getReturnType());
+                        });
+        return interfaceClass.cast(proxy);
+    }
+
+    private static Object getDefaultValue(Class<?> type) {
+        if (type == boolean.class) {
+            return false;
+        } else if (type == int.class) {
+            return 0;
+        } else if (type == long.class) {
+            return 0L;
+        } else if (type == float.class) {
+            return 0f;
+        } else if (type == double.class) {
+            return 0.0;
+        } else if (type == short.class) {
+            return (short) 0;
+        } else if (type == byte.class) {
+            return (byte) 0;
+        } else if (type == char.class) {
+            return '\0';
+        } else if (type.isInterface()) {
+            return createNoOpProxy(type);
+        }
+        return null;
+    }
+
+    /** Resolves internal and external paths, like the backend-specific FileHandle classes */
+    private static class HeadlessFileHandle extends FileHandle {
+        private final HeadlessFiles mFiles;
+
+        HeadlessFileHandle(HeadlessFiles files, File file, Files.FileType type) {
+            super(file, type);
+            mFiles = files;
+        }
+
+        @Override
+        public FileHandle child(String name) {
+            if (file.getPath().length() == 0) {
+                return new HeadlessFileHandle(mFiles, new File(name), type);
+            }
+            return new HeadlessFileHandle(mFiles, new File(file, name), type);
+        }
+
+        @Override
+        public FileHandle sibling(String name) {
+            return new HeadlessFileHandle(mFiles, new File(file.getParent(), name), type);
+        }
+
+        @Override
+        public FileHandle parent() {
+            File parent = file.getParentFile();
+            if (parent == null) {
+                parent = type == Files.FileType.Absolute ? new File("/") : new File("");
+            }
+            return new HeadlessFileHandle(mFiles, parent, type);
+        }
+
+        @Override
+        public File file() {
+            if (file.isAbsolute()) {
+                return file;
+            }
+            switch (type) {
+                case Internal:
+                    return new File(mFiles.mInternalDir, file.getPath());
+                case External:
+                    return new File(mFiles.mExternalPath, file.getPath());
+                case Local:
+                    return new File(mFiles.mLocalPath, file.getPath());
+                default:
+                    return file;
+            }
+        }
+    }
+
+    private static class HeadlessFiles implements Files {
+        private final File mInternalDir;
+        private final String mExternalPath = System.getProperty("user.home") + File.separator;
+        private final String mLocalPath = new File("").getAbsolutePath() + File.separator;
+
+        HeadlessFiles(File internalDir) {
+            mInternalDir = internalDir;
+        }
+
+        @Override
+        public FileHandle getFileHandle(String path, FileType type) {
+            return new HeadlessFileHandle(this, new File(path), type);
+        }
+
+        @Override
+        public FileHandle classpath(String path) {
+            return getFileHandle(path, FileType.Classpath);
+        }
+
+        @Override
+        public FileHandle internal(String path) {
+            return getFileHandle(path, FileType.Internal);
+        }
+
+        @Override
+        public FileHandle external(String path) {
+            return getFileHandle(path, FileType.External);
+        }
+
+        @Override
+        public FileHandle absolute(String path) {
+            return getFileHandle(path, FileType.Absolute);
+        }
+
+        @Override
+        public FileHandle local(String path) {
+            return getFileHandle(path, FileType.Local);
+        }
+
+        @Override
+        public String getExternalStoragePath() {
+            return mExternalPath;
+        }
+
+        @Override
+        public boolean isExternalStorageAvailable() {
+            return true;
+        }
+
+        @Override
+        public String getLocalStoragePath() {
+            return mLocalPath;
+        }
+
+        @Override
+        public boolean isLocalStorageAvailable() {
+            return true;
+        }
+    }
+}
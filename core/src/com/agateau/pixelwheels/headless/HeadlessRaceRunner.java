@@ -0,0 +1,193 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.headless;
+
+import com.agateau.pixelwheels.Assets;
+import com.agateau.pixelwheels.GamePlay;
+import com.agateau.pixelwheels.GameWorld;
+import com.agateau.pixelwheels.gamesetup.GameInfo;
+import com.agateau.pixelwheels.map.Track;
+import com.agateau.pixelwheels.racer.LapPositionComponent;
+import com.agateau.pixelwheels.racer.Racer;
+import com.agateau.pixelwheels.racescreen.GameWorldImpl;
+import com.agateau.pixelwheels.replay.Replay;
+import com.agateau.pixelwheels.sound.AudioManager;
+import com.agateau.pixelwheels.sound.DefaultAudioManager;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.PerformanceCounters;
+
+/**
+ * Runs AI-only races without rendering them, stepping the world as fast as possible.
+ *
+ * <p>HeadlessGdx.init() must have been called before creating an instance. An instance must not be
+ * used by several threads at the same time, but several instances can run races in parallel, as
+ * long as they do not share Track instances.
+ */
+public class HeadlessRaceRunner {
+    // libGDX keeps track of managed textures in a static, unsynchronized map, so tracks must not be
+    // loaded or disposed in parallel
+    private static final Object sTrackLoadLock = new Object();
+
+    private final Assets mAssets;
+    private final GamePlay mGamePlay;
+    private final AudioManager mAudioManager = new DefaultAudioManager();
+
+    public static class RacerResult {
+        public final int rank;
+        public final String vehicleId;
+        public final LapPositionComponent.Status status;
+        public final int lapCount;
+        public final float bestLapTime;
+        public final float totalTime;
+
+        RacerResult(int rank, Racer racer) {
+            LapPositionComponent component = racer.getLapPositionComponent();
+            this.rank = rank;
+            this.vehicleId = racer.getVehicle().getId();
+            this.status = component.getStatus();
+            this.lapCount = component.getLapCount();
+            this.bestLapTime = component.getBestLapTime();
+            this.totalTime = component.getTotalTime();
+        }
+    }
+
+    public static class RaceResult {
+        public final Array<RacerResult> racerResults = new Array<>();
+        /** Number of world steps, the count down included */
+        public int stepCount;
+        /** Simulated duration of the race, in seconds, the count down included */
+        public float simulatedTime;
+    }
+
+    private static class HeadlessGameInfo extends GameInfo {
+        private final Track mTrack;
+
+        HeadlessGameInfo(Track track, Array<String> vehicleIds) {
+            mTrack = track;
+            for (String vehicleId : vehicleIds) {
+                getEntrants().add(new Entrant(vehicleId));
+            }
+        }
+
+        @Override
+        public Track getTrack() {
+            return mTrack;
+        }
+    }
+
+    public HeadlessRaceRunner(Assets assets) {
+        this(assets, GamePlay.instance);
+    }
+
+    /**
+     * Creates a runner whose worlds are simulated with gamePlay. Runners with different GamePlay
+     * instances can be used to compare settings in parallel.
+     */
+    public HeadlessRaceRunner(Assets assets, GamePlay gamePlay) {
+        mAssets = assets;
+        mGamePlay = gamePlay;
+        mAudioManager.setMuted(true);
+    }
+
+    /**
+     * Creates a world where the vehicles listed in vehicleIds are ready to race on track. The world
+     * must be disposed with disposeWorld().
+     */
+    public GameWorldImpl createWorld(Track track, Array<String> vehicleIds) {
+        return createWorld(track, vehicleIds, new PerformanceCounters());
+    }
+
+    /**
+     * Same as createWorld(Track, Array), but the world reports its timings to performanceCounters
+     */
+    public GameWorldImpl createWorld(
+            Track track, Array<String> vehicleIds, PerformanceCounters performanceCounters) {
+        return createWorld(new HeadlessGameInfo(track, vehicleIds), performanceCounters);
+    }
+
+    /**
+     * Creates a world playing replay back on track, which must be a new instance of the track
+     * replay has been recorded on. The world must be disposed with disposeWorld().
+     */
+    public GameWorldImpl createWorld(
+            Replay replay, Track track, PerformanceCounters performanceCounters) {
+        GameWorldImpl world = createWorld(replay.createGameInfo(track), performanceCounters);
+        world.startPlayback(replay);
+        return world;
+    }
+
+    private GameWorldImpl createWorld(GameInfo gameInfo, PerformanceCounters performanceCounters) {
+        synchronized (sTrackLoadLock) {
+            return new GameWorldImpl(
+                    mAssets,
+                    mAudioManager,
+                    /* gameStats= */ null,
+                    /* gameConfig= */ null,
+                    mGamePlay,
+                    gameInfo,
+                    performanceCounters);
+        }
+    }
+
+    public void disposeWorld(GameWorldImpl world) {
+        synchronized (sTrackLoadLock) {
+            world.dispose();
+        }
+    }
+
+    /**
+     * Races the vehicles listed in vehicleIds on track. The race is stopped after maxDuration
+     * seconds of simulated time if some racers still have not finished. Races run with the same
+     * arguments produce the same results.
+     */
+    public RaceResult run(Track track, Array<String> vehicleIds, float maxDuration, long seed) {
+        GameWorldImpl world = createWorld(track, vehicleIds);
+        world.setSeed(seed);
+        return runWorld(world, maxDuration);
+    }
+
+    /**
+     * Plays replay back on track, which must be a new instance of the track replay has been
+     * recorded on
+     */
+    public RaceResult runReplay(Replay replay, Track track, float maxDuration) {
+        GameWorldImpl world = createWorld(replay, track, new PerformanceCounters());
+        return runWorld(world, maxDuration);
+    }
+
+    /** Runs the race of world until it is finished, then disposes world */
+    private RaceResult runWorld(GameWorldImpl world, float maxDuration) {
+        RaceResult result = new RaceResult();
+        while (world.getState() != GameWorld.State.FINISHED) {
+            world.act(GameWorld.BOX2D_TIME_STEP);
+            ++result.stepCount;
+            result.simulatedTime += GameWorld.BOX2D_TIME_STEP;
+            if (result.simulatedTime > maxDuration) {
+                world.setState(GameWorld.State.FINISHED);
+            }
+        }
+
+        Array<Racer> racers = world.getRacers();
+        for (int idx = 0; idx < racers.size; ++idx) {
+            result.racerResults.add(new RacerResult(idx + 1, racers.get(idx)));
+        }
+        disposeWorld(world);
+        return result;
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.map;
+
+import com.agateau.utils.log.NLog;
+import com.badlogic.gdx.Files;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.math.Polygon;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.StreamUtils;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+/**
+ * Reads and writes compiled tracks: binary files containing the data Track.init() computes from the
+ * .tmx file, so that it does not need to be computed each time a race starts.
+ *
+ * <p>A compiled track is stored next to its .tmx file, with a .track extension. It contains, in
+ * big-endian order:
+ *
+ * <pre>
+ * int      MAGIC
+ * int      VERSION
+ * long     CRC32 of the .tmx file
+ * int      map width, in tiles
+ * int      map height, in tiles
+ * byte[]   material ordinal of each tile, row by row
+ * int      section count
+ * int      id of each section, followed by float[8] vertices of its polygon
+ * int      lap position grid width
+ * int      lap position grid height
+ * int[]    lap position grid cells
+ * int      waypoint count
+ * float[3] x, y and lap distance of each waypoint, sorted by lap distance
+ * </pre>
+ *
+ * The TiledMap itself is still loaded from the .tmx file, since it is needed for rendering.
+ */
+public class CompiledTrackIO {
+    private static final int MAGIC = 0x50577472; // "PWtr"
+    /** Must be increased when the format or the Material enum change */
+    private static final int VERSION = 2;
+    // Size in bytes of a section and of a waypoint
+    private static final int SECTION_SIZE = 4 + 8 * 4;
+    private static final int WAYPOINT_SIZE = 3 * 4;
+
+    public static FileHandle getCompiledTrackFile(FileHandle tmxFile) {
+        return tmxFile.sibling(tmxFile.nameWithoutExtension() + ".track");
+    }
+
+    /**
+     * Loads the compiled data of track, if its compiled track file exists and is up to date.
+     * Returns false otherwise, in which case the data must be computed from the TiledMap.
+     */
+    static boolean load(Track track, FileHandle tmxFile) {
+        FileHandle file = getCompiledTrackFile(tmxFile);
+        if (!file.exists()) {
+            return false;
+        }
+        ByteBuffer buffer = mapFile(file);
+        try {
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                NLog.i("%s: unsupported format, ignoring it", file.path());
+                return false;
+            }
+            if (buffer.getLong() != computeChecksum(tmxFile)) {
+                NLog.i("%s is stale, ignoring it", file.path());
+                return false;
+            }
+            int width = buffer.getInt();
+            int height = buffer.getInt();
+            if (width != track.getMapTileWidth() || height != track.getMapTileHeight()) {
+                NLog.e("%s: map size does not match, ignoring it", file.path());
+                return false;
+            }
+
+            Material[] materials = Material.values();
+            checkRemaining(buffer, width * height, 1);
+            Material[] materialGrid = new Material[width * height];
+            for (int idx = 0; idx < materialGrid.length; ++idx) {
+                materialGrid[idx] = materials[buffer.get()];
+            }
+
+            LapPositionTable table = new LapPositionTable();
+            int sectionCount = buffer.getInt();
+            checkRemaining(buffer, sectionCount, SECTION_SIZE);
+            for (int idx = 0; idx < sectionCount; ++idx) {
+                int sectionId = buffer.getInt();
+                float[] vertices = new float[8];
+                buffer.asFloatBuffer().get(vertices);
+                buffer.position(buffer.position() + vertices.length * 4);
+                table.addSection(sectionId, new Polygon(vertices));
+            }
+            int gridWidth = buffer.getInt();
+            int gridHeight = buffer.getInt();
+            if (gridWidth != LapPositionTable.getGridSize(track.getMapPixelWidth())
+                    || gridHeight != LapPositionTable.getGridSize(track.getMapPixelHeight())) {
+                NLog.e("%s: lap position grid size does not match, ignoring it", file.path());
+                return false;
+            }
+            int[] grid = new int[gridWidth * gridHeight];
+            checkRemaining(buffer, grid.length, 4);
+            buffer.asIntBuffer().get(grid);
+            buffer.position(buffer.position() + grid.length * 4);
+            table.setGrid(grid, gridWidth, gridHeight);
+
+            int waypointCount = buffer.getInt();
+            checkRemaining(buffer, waypointCount, WAYPOINT_SIZE);
+            float[] waypoints = new float[waypointCount * 3];
+            buffer.asFloatBuffer().get(waypoints);
+
+            track.setCompiledData(materialGrid, table, waypoints);
+            return true;
+        } catch (BufferUnderflowException | ArrayIndexOutOfBoundsException e) {
+            NLog.e("%s is corrupted, ignoring it", file.path());
+            return false;
+        }
+    }
+
+    /**
+     * Throws BufferUnderflowException if buffer does not contain count items of itemSize bytes.
+     * Must be called before allocating arrays whose size comes from the file, so that a corrupted
+     * count cannot make us allocate a huge or negative size array.
+     */
+    private static void checkRemaining(ByteBuffer buffer, int count, int itemSize) {
+        if (count < 0 || (long) count * itemSize > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+    }
+
+    /** Writes the compiled data of track, which must have been initialized */
+    public static void write(Track track, FileHandle file) {
+        DataOutputStream out = new DataOutputStream(file.write(false /* append */, 65536));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(computeChecksum(track.getTmxFile()));
+
+            out.writeInt(track.getMapTileWidth());
+            out.writeInt(track.getMapTileHeight());
+            for (Material material : track.getMaterialGrid()) {
+                out.writeByte(material.ordinal());
+            }
+
+            LapPositionTable table = track.getLapPositionTable();
+            out.writeInt(table.getSectionCount());
+            for (int idx = 0; idx < table.getSectionCount(); ++idx) {
+                out.writeInt(table.getSectionId(idx));
+                for (float value : table.getSectionPolygon(idx).getTransformedVertices()) {
+                    out.writeFloat(value);
+                }
+            }
+            out.writeInt(table.getGridWidth());
+            out.writeInt(table.getGridHeight());
+            for (int cell : table.getGrid()) {
+                out.writeInt(cell);
+            }
+
+            WaypointStore store = track.getWaypointStore();
+            out.writeInt(store.getCount());
+            for (int idx = 0; idx < store.getCount(); ++idx) {
+                out.writeFloat(store.getX(idx));
+                out.writeFloat(store.getY(idx));
+                out.writeFloat(store.getLapDistance(idx));
+            }
+        } catch (IOException e) {
+            throw new GdxRuntimeException("Failed to write " + file.path(), e);
+        } finally {
+            StreamUtils.closeQuietly(out);
+        }
+    }
+
+    public static long computeChecksum(FileHandle tmxFile) {
+        CRC32 crc = new CRC32();
+        crc.update(tmxFile.readBytes());
+        return crc.getValue();
+    }
+
+    private static ByteBuffer mapFile(FileHandle file) {
+        // Files inside a jar or an APK cannot be mapped, read them instead
+        if (file.type() == Files.FileType.Classpath || !file.file().exists()) {
+            return ByteBuffer.wrap(file.readBytes());
+        }
+        RandomAccessFile randomAccessFile = null;
+        try {
+            randomAccessFile = new RandomAccessFile(file.file(), "r");
+            FileChannel channel = randomAccessFile.getChannel();
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException e) {
+            NLog.e("Failed to map %s, reading it instead: %s", file.path(), e);
+            return ByteBuffer.wrap(file.readBytes());
+        } finally {
+            // The mapping remains valid after the file is closed
+            StreamUtils.closeQuietly(randomAccessFile);
+        }
+    }
+}
@@ -19,14 +19,37 @@
 package com.agateau.pixelwheels.map;
 
 import com.agateau.utils.Assert;
+import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Polygon;
+import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.utils.Array;
 
-/** Can provide the position within a lap based on x, y (in tile pixels) */
+/**
+ * Can provide the position within a lap based on x, y (in tile pixels)
+ *
+ * <p>Looking up a position requires finding the section containing it, then warping the position to
+ * compute the distance within the section. To avoid doing this every frame, buildGrid() can be
+ * called to precompute the section and the section distance of cells of GRID_CELL_SIZE x
+ * GRID_CELL_SIZE pixels. Cells which are not entirely inside a single section are not precomputed.
+ */
 public class LapPositionTable {
+    /** Size of the grid cells, in pixels */
+    public static final int GRID_CELL_SIZE = 4;
+
+    // Grid cells contain (index of the section in mSections + 1) in their upper 16 bits and the
+    // section distance, quantized to 0..DISTANCE_MAX, in their lower 16 bits. The index is stored
+    // rather than the section id because ids are not necessarily contiguous. UNKNOWN_CELL means
+    // get() must compute the position.
+    static final int UNKNOWN_CELL = 0;
+    private static final int DISTANCE_MAX = 0xffff;
+
     private final Array<LapSection> mSections = new Array<>();
 
+    private int[] mGrid;
+    private int mGridWidth;
+    private int mGridHeight;
+
     private static class LapSection {
         private final int mSectionId;
         private final Polygon mPolygon;
@@ -66,6 +89,19 @@ public class LapPositionTable {
     }
 
     public LapPosition get(int x, int y) {
+        if (mGrid != null && x >= 0 && y >= 0) {
+            int col = x / GRID_CELL_SIZE;
+            int row = y / GRID_CELL_SIZE;
+            if (col < mGridWidth && row < mGridHeight) {
+                int cell = mGrid[row * mGridWidth + col];
+                if (cell != UNKNOWN_CELL) {
+                    LapSection section = mSections.get((cell >>> 16) - 1);
+                    float distance = (cell & DISTANCE_MAX) / (float) DISTANCE_MAX;
+                    section.mLapPosition.init(section.mSectionId, section.mPolygon, x, y, distance);
+                    return section.mLapPosition;
+                }
+            }
+        }
         for (LapSection zone : mSections) {
             if (zone.mPolygon.contains(x, y)) {
                 return zone.computePosition(x, y);
@@ -74,6 +110,91 @@ public class LapPositionTable {
         return null;
     }
 
+    /**
+     * Precomputes the lap positions of a map of width x height pixels, making get() a constant time
+     * operation for all positions which are not close to a section border
+     */
+    public void buildGrid(int width, int height) {
+        int gridWidth = getGridSize(width);
+        int gridHeight = getGridSize(height);
+        int[] grid = new int[gridWidth * gridHeight];
+        // Cells covered by more than one section, or partially covered by a section
+        boolean[] mixedCells = new boolean[grid.length];
+        final float lastPixel = GRID_CELL_SIZE - 1;
+        for (int sectionIdx = 0; sectionIdx < mSections.size; ++sectionIdx) {
+            LapSection section = mSections.get(sectionIdx);
+            Rectangle rect = section.mPolygon.getBoundingRectangle();
+            int col0 = Math.max(0, (int) (rect.x / GRID_CELL_SIZE));
+            int row0 = Math.max(0, (int) (rect.y / GRID_CELL_SIZE));
+            int col1 = Math.min(gridWidth - 1, (int) ((rect.x + rect.width) / GRID_CELL_SIZE));
+            int row1 = Math.min(gridHeight - 1, (int) ((rect.y + rect.height) / GRID_CELL_SIZE));
+            for (int row = row0; row <= row1; ++row) {
+                for (int col = col0; col <= col1; ++col) {
+                    int idx = row * gridWidth + col;
+                    float x = col * GRID_CELL_SIZE;
+                    float y = row * GRID_CELL_SIZE;
+                    int insideCount = 0;
+                    insideCount += section.mPolygon.contains(x, y) ? 1 : 0;
+                    insideCount += section.mPolygon.contains(x + lastPixel, y) ? 1 : 0;
+                    insideCount += section.mPolygon.contains(x, y + lastPixel) ? 1 : 0;
+                    insideCount += section.mPolygon.contains(x + lastPixel, y + lastPixel) ? 1 : 0;
+                    if (insideCount == 0) {
+                        continue;
+                    }
+                    if (insideCount < 4 || grid[idx] != UNKNOWN_CELL) {
+                        mixedCells[idx] = true;
+                        continue;
+                    }
+                    float distance = section.mWarper.warp(x + lastPixel / 2, y + lastPixel / 2).x;
+                    int quantizedDistance =
+                            MathUtils.clamp(Math.round(distance * DISTANCE_MAX), 0, DISTANCE_MAX);
+                    grid[idx] = ((sectionIdx + 1) << 16) | quantizedDistance;
+                }
+            }
+        }
+        for (int idx = 0; idx < grid.length; ++idx) {
+            if (mixedCells[idx]) {
+                grid[idx] = UNKNOWN_CELL;
+            }
+        }
+        setGrid(grid, gridWidth, gridHeight);
+    }
+
+    /** Returns the number of grid cells needed to cover size pixels */
+    static int getGridSize(int size) {
+        return (size + GRID_CELL_SIZE - 1) / GRID_CELL_SIZE;
+    }
+
+    /** Returns the precomputed grid, or null if buildGrid() or setGrid() have not been called */
+    public int[] getGrid() {
+        return mGrid;
+    }
+
+    public int getGridWidth() {
+        return mGridWidth;
+    }
+
+    public int getGridHeight() {
+        return mGridHeight;
+    }
+
+    /** Uses a grid created by buildGrid(), for example after loading it from a cache */
+    public void setGrid(int[] grid, int gridWidth, int gridHeight) {
+        Assert.check(grid.length == gridWidth * gridHeight, "Invalid grid size");
+        mGrid = grid;
+        mGridWidth = gridWidth;
+        mGridHeight = gridHeight;
+    }
+
+    /** Returns the id of the section at index, as passed to addSection() */
+    public int getSectionId(int index) {
+        return mSections.get(index).mSectionId;
+    }
+
+    public Polygon getSectionPolygon(int index) {
+        return mSections.get(index).mPolygon;
+    }
+
     public int getSectionCount() {
         return mSections.size;
     }
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.map;
+
+import com.agateau.pixelwheels.Constants;
+import com.agateau.pixelwheels.utils.OrientedPoint;
+import com.agateau.utils.Assert;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Generates start positions behind the start tiles, for races with more racers than start tiles.
+ *
+ * <p>Generated positions continue the pattern of the start grid: each racer is one row behind the
+ * previous one, on the other lane. Rows follow the waypoints backward, so that the grid can go
+ * around corners. If a lane position is off the track or too close to another racer, it is shifted
+ * along the lane axis, and if that is not enough the row is moved further back.
+ */
+class StartPositionGenerator {
+    // Number of positions tried along the lane axis, from the wanted lane to the other one
+    private static final int LANE_STEPS = 8;
+    private static final int MAX_ROW_ATTEMPTS = 20;
+
+    /** Tells whether racers can be put at a position, in world units */
+    interface GroundChecker {
+        boolean isHole(Vector2 pos);
+    }
+
+    private final LapPositionTable mLapPositionTable;
+    private final WaypointStore mWaypointStore;
+    private final GroundChecker mGroundChecker;
+
+    private final Vector2 mCurrent = new Vector2();
+    private final Vector2 mPosition = new Vector2();
+    private final Vector2 mLaneAxis = new Vector2();
+    private float mAngle;
+
+    StartPositionGenerator(
+            LapPositionTable lapPositionTable,
+            WaypointStore waypointStore,
+            GroundChecker groundChecker) {
+        mLapPositionTable = lapPositionTable;
+        mWaypointStore = waypointStore;
+        mGroundChecker = groundChecker;
+    }
+
+    /**
+     * Adds positions after the last ones of positions, until it contains count positions. positions
+     * must contain at least the two last rows of the grid, ordered from front to back.
+     */
+    void generate(Array<OrientedPoint> positions, int count) {
+        Assert.check(positions.size >= 2, "Not enough start tiles to generate a grid");
+        OrientedPoint last = positions.peek();
+        OrientedPoint beforeLast = positions.get(positions.size - 2);
+        // The grid faces up: rows are along the y axis and lanes along the x axis
+        float rowSpacing = Math.abs(last.y - beforeLast.y);
+        float laneOffset = Math.abs(last.x - beforeLast.x) / 2;
+        // 1 if the last racer is on the right lane, -1 if it is on the left one
+        float side = Math.signum(last.x - beforeLast.x);
+        // Racers must not be closer to each other than they are on the start tiles
+        float minDistance =
+                Math.min(Vector2.dst(last.x, last.y, beforeLast.x, beforeLast.y), 2 * rowSpacing);
+
+        // Start from the projection of the last position on the waypoint path
+        LapPosition lapPosition = getLapPosition(mPosition.set(last.x, last.y));
+        Assert.check(lapPosition != null, "Last start position is not on the track");
+        float lapDistance = lapPosition.getLapDistance();
+        OrientedPoint projected = mWaypointStore.getValidPosition(mPosition, lapDistance);
+        mCurrent.set(projected.x, projected.y);
+        // Index of the waypoint we are walking toward
+        int waypointIdx =
+                mWaypointStore.getPreviousIndex(mWaypointStore.getWaypointIndex(lapDistance));
+
+        while (positions.size < count) {
+            side = -side;
+            waypointIdx = walkBackward(waypointIdx, rowSpacing);
+            for (int attempt = 0;
+                    !findLanePosition(positions, waypointIdx, side * laneOffset, minDistance);
+                    ++attempt) {
+                Assert.check(attempt < MAX_ROW_ATTEMPTS, "Cannot find a free start position");
+                // No room on this row, try a bit further back
+                waypointIdx = walkBackward(waypointIdx, rowSpacing / 2);
+            }
+            positions.add(new OrientedPoint(mPosition.x, mPosition.y, mAngle));
+        }
+    }
+
+    /**
+     * Looks for a position on the row at mCurrent, starting offset units to the right of the path
+     * and going toward the other side. Stores it in mPosition and its angle in mAngle. Returns
+     * false if there is no room for a racer on the row.
+     */
+    private boolean findLanePosition(
+            Array<OrientedPoint> positions, int waypointIdx, float offset, float minDistance) {
+        int nextIdx = mWaypointStore.getNextIndex(waypointIdx);
+        mAngle =
+                mLaneAxis
+                        .set(
+                                mWaypointStore.getX(nextIdx) - mWaypointStore.getX(waypointIdx),
+                                mWaypointStore.getY(nextIdx) - mWaypointStore.getY(waypointIdx))
+                        .angle();
+        // Points to the right of the path
+        mLaneAxis.set(MathUtils.sinDeg(mAngle), -MathUtils.cosDeg(mAngle));
+        for (int step = 0; step <= LANE_STEPS; ++step) {
+            float stepOffset = offset * (1 - 2f * step / LANE_STEPS);
+            mPosition.set(mLaneAxis).scl(stepOffset).add(mCurrent);
+            if (isOnTrack(mPosition) && isFree(positions, mPosition, minDistance)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isOnTrack(Vector2 pos) {
+        return !mGroundChecker.isHole(pos) && getLapPosition(pos) != null;
+    }
+
+    private static boolean isFree(Array<OrientedPoint> positions, Vector2 pos, float minDistance) {
+        for (OrientedPoint point : positions) {
+            if (pos.dst2(point.x, point.y) < minDistance * minDistance) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private LapPosition getLapPosition(Vector2 pos) {
+        final float PFU = 1 / Constants.UNIT_FOR_PIXEL;
+        return mLapPositionTable.get((int) (pos.x * PFU), (int) (pos.y * PFU));
+    }
+
+    /**
+     * Moves mCurrent distance units backward on the waypoint path. waypointIdx is the index of the
+     * waypoint mCurrent is walking toward. Returns the index of the waypoint mCurrent is walking
+     * toward after the move.
+     */
+    private int walkBackward(int waypointIdx, float distance) {
+        while (true) {
+            float x = mWaypointStore.getX(waypointIdx);
+            float y = mWaypointStore.getY(waypointIdx);
+            float waypointDistance = mCurrent.dst(x, y);
+            if (waypointDistance >= distance) {
+                // Avoid a 0 / 0 division if mCurrent is on the waypoint and distance is 0
+                if (waypointDistance > 0) {
+                    float progress = distance / waypointDistance;
+                    mCurrent.add((x - mCurrent.x) * progress, (y - mCurrent.y) * progress);
+                }
+                return waypointIdx;
+            }
+            distance -= waypointDistance;
+            mCurrent.set(x, y);
+            waypointIdx = mWaypointStore.getPreviousIndex(waypointIdx);
+        }
+    }
+}
@@ -23,6 +23,7 @@ import com.agateau.pixelwheels.debug.Debug;
 import com.agateau.pixelwheels.utils.OrientedPoint;
 import com.agateau.utils.Assert;
 import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.maps.MapLayer;
 import com.badlogic.gdx.maps.MapObject;
@@ -43,12 +44,20 @@ import com.badlogic.gdx.utils.Disposable;
 /** The map of the current game */
 public class Track implements Disposable {
     private static final int CELL_ID_ROW_STRIDE = 10000;
+    // Vehicles on the start tiles face up
+    private static final float START_ANGLE = 90;
 
     private final String mId;
     private final String mMapName;
 
     private TiledMap mMap;
     private Material[] mMaterialForTileId;
+    // Material of each tile of the map, row by row
+    private Material[] mMaterialGrid;
+    private int mMapTileWidth;
+    private int mMapTileHeight;
+    private int mMapPixelWidth;
+    private int mMapPixelHeight;
     private int mStartTileId = -1;
     private Array<TiledMapTileLayer> mBackgroundLayers;
     private Array<TiledMapTileLayer> mForegroundLayers;
@@ -68,17 +77,27 @@ public class Track implements Disposable {
         if (mMap != null) {
             return;
         }
+        FileHandle tmxFile = getTmxFile();
         TmxMapLoader loader = new TmxMapLoader();
-        mMap = loader.load(Gdx.files.internal("maps/" + mId + ".tmx").path());
+        mMap = loader.load(tmxFile.path());
         mMaterialForTileId = computeMaterialForTileId();
         findSpecialTileIds();
         findLayers();
 
-        mTileWidth = Constants.UNIT_FOR_PIXEL * mBackgroundLayers.get(0).getTileWidth();
-        mTileHeight = Constants.UNIT_FOR_PIXEL * mBackgroundLayers.get(0).getTileHeight();
-
-        mLapPositionTable = LapPositionTableIO.load(mMap);
-        readWaypoints();
+        TiledMapTileLayer layer = mBackgroundLayers.get(0);
+        mTileWidth = Constants.UNIT_FOR_PIXEL * layer.getTileWidth();
+        mTileHeight = Constants.UNIT_FOR_PIXEL * layer.getTileHeight();
+        mMapTileWidth = layer.getWidth();
+        mMapTileHeight = layer.getHeight();
+        mMapPixelWidth = mMapTileWidth * (int) layer.getTileWidth();
+        mMapPixelHeight = mMapTileHeight * (int) layer.getTileHeight();
+
+        if (!CompiledTrackIO.load(this, tmxFile)) {
+            mMaterialGrid = computeMaterialGrid();
+            mLapPositionTable = LapPositionTableIO.load(mMap);
+            mLapPositionTable.buildGrid(mMapPixelWidth, mMapPixelHeight);
+            readWaypoints();
+        }
 
         String bgColorText = mMap.getProperties().get("backgroundcolor", "#808080", String.class);
         bgColorText = bgColorText.substring(1); // Skip leading '#'
@@ -193,9 +212,19 @@ public class Track implements Disposable {
         Assert.check(mStartTileId != -1, "No start id");
     }
 
-    private TiledMapTile getTopTileAt(Array<TiledMapTileLayer> layers, float x, float y) {
-        int tx = MathUtils.floor(x / mTileWidth);
-        int ty = MathUtils.floor(y / mTileHeight);
+    private Material[] computeMaterialGrid() {
+        Material[] grid = new Material[mMapTileWidth * mMapTileHeight];
+        for (int ty = 0; ty < mMapTileHeight; ++ty) {
+            for (int tx = 0; tx < mMapTileWidth; ++tx) {
+                TiledMapTile tile = getTopTileAt(mBackgroundLayers, tx, ty);
+                grid[ty * mMapTileWidth + tx] =
+                        tile == null ? Material.ROAD : mMaterialForTileId[tile.getId()];
+            }
+        }
+        return grid;
+    }
+
+    private static TiledMapTile getTopTileAt(Array<TiledMapTileLayer> layers, int tx, int ty) {
         for (int idx = layers.size - 1; idx >= 0; idx--) {
             TiledMapTileLayer.Cell cell = layers.get(idx).getCell(tx, ty);
             if (cell != null) {
@@ -221,11 +250,12 @@ public class Track implements Disposable {
     }
 
     public Material getMaterialAt(float x, float y) {
-        TiledMapTile tile = getTopTileAt(mBackgroundLayers, x, y);
-        if (tile == null) {
+        int tx = MathUtils.floor(x / mTileWidth);
+        int ty = MathUtils.floor(y / mTileHeight);
+        if (tx < 0 || ty < 0 || tx >= mMapTileWidth || ty >= mMapTileHeight) {
             return Material.ROAD;
         }
-        return mMaterialForTileId[tile.getId()];
+        return mMaterialGrid[ty * mMapTileWidth + tx];
     }
 
     @Override
@@ -253,6 +283,26 @@ public class Track implements Disposable {
         return lst;
     }
 
+    /**
+     * Returns at least count start positions, the front of the grid first. If there are not enough
+     * start tiles, the missing positions are generated behind them.
+     */
+    public Array<OrientedPoint> findStartPositions(int count) {
+        Array<Vector2> tilePositions = findStartTilePositions();
+        tilePositions.reverse();
+        Array<OrientedPoint> positions = new Array<>();
+        for (Vector2 pos : tilePositions) {
+            positions.add(new OrientedPoint(pos.x, pos.y, START_ANGLE));
+        }
+        if (positions.size < count) {
+            StartPositionGenerator generator =
+                    new StartPositionGenerator(
+                            mLapPositionTable, mWaypointStore, pos -> getMaterialAt(pos).isHole());
+            generator.generate(positions, count);
+        }
+        return positions;
+    }
+
     public Array<Vector2> findBonusSpotPositions() {
         final float U = Constants.UNIT_FOR_PIXEL;
         MapLayer layer = mMap.getLayers().get("BonusSpots");
@@ -287,4 +337,38 @@ public class Track implements Disposable {
     public String getMapName() {
         return mMapName;
     }
+
+    public FileHandle getTmxFile() {
+        return Gdx.files.internal("maps/" + mId + ".tmx");
+    }
+
+    int getMapTileWidth() {
+        return mMapTileWidth;
+    }
+
+    int getMapTileHeight() {
+        return mMapTileHeight;
+    }
+
+    int getMapPixelWidth() {
+        return mMapPixelWidth;
+    }
+
+    int getMapPixelHeight() {
+        return mMapPixelHeight;
+    }
+
+    Material[] getMaterialGrid() {
+        return mMaterialGrid;
+    }
+
+    /** Called by CompiledTrackIO to set the data it loaded from a compiled track */
+    void setCompiledData(
+            Material[] materialGrid, LapPositionTable lapPositionTable, float[] waypoints) {
+        mMaterialGrid = materialGrid;
+        mLapPositionTable = lapPositionTable;
+        for (int idx = 0; idx < waypoints.length; idx += 3) {
+            mWaypointStore.addWaypoint(waypoints[idx], waypoints[idx + 1], waypoints[idx + 2]);
+        }
+    }
 }
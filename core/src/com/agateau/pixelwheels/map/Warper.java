@@ -29,7 +29,7 @@ import com.badlogic.gdx.math.Vector2;
  *
  * <p>[1]: https://github.com/simphax/Touchmote/blob/master/WiiTUIO/Input/WiiProvider/Warper.cs
  */
-class Warper {
+public class Warper {
     float[] srcX = new float[4];
     float[] srcY = new float[4];
     float[] dstX = new float[4];
@@ -28,27 +28,45 @@ import com.badlogic.gdx.maps.objects.EllipseMapObject;
 import com.badlogic.gdx.math.Ellipse;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.FloatArray;
 
-/** Holds all the waypoints used by AI players */
+/**
+ * Holds all the waypoints used by AI players
+ *
+ * <p>Waypoints are stored sorted by lap distance, as a structure of arrays so that looking up the
+ * waypoint for a lap distance only has to go through a float array.
+ */
 public class WaypointStore {
-    private static final OrientedPoint tmpPoint = new OrientedPoint();
+    private final OrientedPoint mTmpPoint = new OrientedPoint();
+    private final Vector2 mTmpVector = new Vector2();
+    private final Vector2 mTmpPrev = new Vector2();
+    private final Vector2 mTmpNext = new Vector2();
+
+    private static class WaypointInfo implements Comparable<WaypointInfo> {
+        final float x;
+        final float y;
+        final float lapDistance;
 
-    private static class WaypointInfo implements Comparable {
-        float lapDistance;
-        Vector2 waypoint;
+        WaypointInfo(float x, float y, float lapDistance) {
+            this.x = x;
+            this.y = y;
+            this.lapDistance = lapDistance;
+        }
 
         @Override
-        public int compareTo(Object o) {
-            WaypointInfo other = (WaypointInfo) o;
+        public int compareTo(WaypointInfo other) {
             return Float.compare(lapDistance, other.lapDistance);
         }
     }
 
-    private final Array<WaypointInfo> mWaypointInfos = new Array<>();
+    private final FloatArray mXs = new FloatArray();
+    private final FloatArray mYs = new FloatArray();
+    private final FloatArray mLapDistances = new FloatArray();
 
     public void read(MapLayer layer, LapPositionTable lapPositionTable) {
         final float U = Constants.UNIT_FOR_PIXEL;
 
+        Array<WaypointInfo> infos = new Array<>();
         for (MapObject object : layer.getObjects()) {
             Assert.check(
                     object instanceof EllipseMapObject,
@@ -57,36 +75,59 @@ public class WaypointStore {
                             + " is not an ellipse.");
             Ellipse ellipse = ((EllipseMapObject) object).getEllipse();
             final LapPosition pos = lapPositionTable.get((int) ellipse.x, (int) ellipse.y);
-            WaypointInfo info = new WaypointInfo();
-            info.waypoint = new Vector2(ellipse.x * U, ellipse.y * U);
-            info.lapDistance = pos.getLapDistance();
-            mWaypointInfos.add(info);
+            infos.add(new WaypointInfo(ellipse.x * U, ellipse.y * U, pos.getLapDistance()));
+        }
+        infos.sort();
+        for (WaypointInfo info : infos) {
+            addWaypoint(info.x, info.y, info.lapDistance);
         }
-        mWaypointInfos.sort();
     }
 
-    public Vector2 getWaypoint(int index) {
-        return mWaypointInfos.get(index).waypoint;
+    /** Adds a waypoint, waypoints must be added sorted by lap distance */
+    void addWaypoint(float x, float y, float lapDistance) {
+        Assert.check(
+                mLapDistances.size == 0 || lapDistance >= mLapDistances.peek(),
+                "Waypoints must be added sorted by lap distance");
+        mXs.add(x);
+        mYs.add(y);
+        mLapDistances.add(lapDistance);
+    }
+
+    /** Sets out to the position of the waypoint at index, and returns it */
+    public Vector2 getWaypoint(int index, Vector2 out) {
+        return out.set(mXs.get(index), mYs.get(index));
+    }
+
+    public float getX(int index) {
+        return mXs.get(index);
+    }
+
+    public float getY(int index) {
+        return mYs.get(index);
+    }
+
+    public float getLapDistance(int index) {
+        return mLapDistances.get(index);
     }
 
     public int getPreviousIndex(int index) {
-        return (index > 0 ? index : mWaypointInfos.size) - 1;
+        return (index > 0 ? index : mLapDistances.size) - 1;
     }
 
     public int getNextIndex(int index) {
-        return (index + 1) % mWaypointInfos.size;
+        return (index + 1) % mLapDistances.size;
     }
 
     public int getCount() {
-        return mWaypointInfos.size;
+        return mLapDistances.size;
     }
 
     public OrientedPoint getValidPosition(Vector2 pos, float lapDistance) {
         int nextIdx = getWaypointIndex(lapDistance);
         int prevIdx = getPreviousIndex(nextIdx);
-        Vector2 prev = mWaypointInfos.get(prevIdx).waypoint;
-        Vector2 next = mWaypointInfos.get(nextIdx).waypoint;
-        Vector2 projected = AgcMathUtils.project(pos, prev, next);
+        Vector2 prev = getWaypoint(prevIdx, mTmpPrev);
+        Vector2 next = getWaypoint(nextIdx, mTmpNext);
+        Vector2 projected = AgcMathUtils.project(pos, prev, next, mTmpVector);
         float waypointSquareLength = prev.dst2(next);
         if (projected.dst2(prev) > waypointSquareLength) {
             // projected is after the [prev, next] segment
@@ -95,18 +136,61 @@ public class WaypointStore {
             // projected is before the [prev, next] segment
             projected.set(prev);
         }
-        tmpPoint.x = projected.x;
-        tmpPoint.y = projected.y;
-        tmpPoint.angle = AgcMathUtils.normalizeAngle(AgcMathUtils.segmentAngle(prev, next));
-        return tmpPoint;
+        mTmpPoint.x = projected.x;
+        mTmpPoint.y = projected.y;
+        mTmpPoint.angle = AgcMathUtils.normalizeAngle(AgcMathUtils.segmentAngle(prev, next));
+        return mTmpPoint;
     }
 
+    /**
+     * Returns the index of the first waypoint after lapDistance. Returns 0 if lapDistance is after
+     * the last waypoint.
+     */
     public int getWaypointIndex(float lapDistance) {
-        for (int idx = 0; idx < mWaypointInfos.size; ++idx) {
-            if (lapDistance < mWaypointInfos.get(idx).lapDistance) {
-                return idx;
+        float[] lapDistances = mLapDistances.items;
+        int count = mLapDistances.size;
+        // Look for the first waypoint whose lap distance is greater than lapDistance
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (lapDistance < lapDistances[middle]) {
+                high = middle;
+            } else {
+                low = middle + 1;
             }
         }
-        return 0;
+        return low < count ? low : 0;
+    }
+
+    /**
+     * Same as getWaypointIndex(float), but first checks if the answer is hint or the waypoint after
+     * it. Since the lap distance of a racer changes slowly, passing the index returned by the
+     * previous call for this racer avoids the binary search most of the time.
+     */
+    public int getWaypointIndex(float lapDistance, int hint) {
+        if (isWaypointIndexFor(hint, lapDistance)) {
+            return hint;
+        }
+        if (hint >= 0 && hint < mLapDistances.size) {
+            int next = getNextIndex(hint);
+            if (isWaypointIndexFor(next, lapDistance)) {
+                return next;
+            }
+        }
+        return getWaypointIndex(lapDistance);
+    }
+
+    /** Returns true if getWaypointIndex(lapDistance) would return index */
+    private boolean isWaypointIndexFor(int index, float lapDistance) {
+        int count = mLapDistances.size;
+        if (index < 0 || index >= count) {
+            return false;
+        }
+        float[] lapDistances = mLapDistances.items;
+        if (index == 0) {
+            return lapDistance < lapDistances[0] || lapDistance >= lapDistances[count - 1];
+        }
+        return lapDistances[index - 1] <= lapDistance && lapDistance < lapDistances[index];
     }
 }
@@ -38,6 +38,7 @@ class Obstacle extends GameObjectAdapter implements Disposable {
     private final World mWorld;
     private final Body mBody;
     private final TextureRegion mRegion;
+    private final float mDrawRadius;
 
     private final BodyRegionDrawer mBodyRegionDrawer = new BodyRegionDrawer();
 
@@ -52,6 +53,7 @@ class Obstacle extends GameObjectAdapter implements Disposable {
                 Box2DUtils.createBox2DShape(obstacleDef.shape, Constants.UNIT_FOR_PIXEL),
                 obstacleDef.density);
         mRegion = obstacleDef.getImage(provider);
+        mDrawRadius = BodyRegionDrawer.computeDrawRadius(mRegion);
 
         Box2DUtils.setCollisionInfo(
                 mBody,
@@ -68,6 +70,18 @@ class Obstacle extends GameObjectAdapter implements Disposable {
         Box2DUtils.applyCircularDrag(mBody, ANGULAR_DRAG);
     }
 
+    private static final ZLevel[] Z_LEVELS = {ZLevel.OBSTACLES, ZLevel.SHADOWS};
+
+    @Override
+    public ZLevel[] getZLevels() {
+        return Z_LEVELS;
+    }
+
+    @Override
+    public float getDrawRadius() {
+        return mDrawRadius;
+    }
+
     @Override
     public void draw(Batch batch, ZLevel zLevel) {
         if (zLevel == ZLevel.OBSTACLES) {
@@ -19,7 +19,6 @@
 package com.agateau.pixelwheels.obstacles;
 
 import com.agateau.pixelwheels.Constants;
-import com.agateau.pixelwheels.GamePlay;
 import com.agateau.pixelwheels.GameWorld;
 import com.agateau.pixelwheels.TextureRegionProvider;
 import com.agateau.pixelwheels.map.MapObjectWalker;
@@ -31,7 +30,6 @@ import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.maps.MapObject;
 import com.badlogic.gdx.physics.box2d.Body;
 import com.badlogic.gdx.physics.box2d.BodyDef;
-import com.badlogic.gdx.physics.box2d.World;
 import java.util.HashMap;
 
 /** Helper class to create GameObjects and Box2D bodies from the Obstacles layer of a map */
@@ -54,7 +52,7 @@ public class ObstacleCreator {
         String id = MapUtils.getObstacleId(mapObject);
         if (id == null) {
             // Special case: an obstacle with no id is a border
-            createBorder(gameWorld.getBox2DWorld(), mapObject);
+            createBorder(gameWorld, mapObject);
             return;
         }
         ObstacleDef obstacleDef = mObstacleDefs.get(id);
@@ -77,14 +75,14 @@ public class ObstacleCreator {
                 });
     }
 
-    private static void createBorder(World world, MapObject mapObject) {
-        Body body = Box2DUtils.createStaticBodyForMapObject(world, mapObject);
+    private static void createBorder(GameWorld gameWorld, MapObject mapObject) {
+        Body body = Box2DUtils.createStaticBodyForMapObject(gameWorld.getBox2DWorld(), mapObject);
         Box2DUtils.setCollisionInfo(
                 body,
                 CollisionCategories.WALL,
                 CollisionCategories.RACER
                         | CollisionCategories.EXPLOSABLE
                         | CollisionCategories.RACER_BULLET);
-        Box2DUtils.setBodyRestitution(body, GamePlay.instance.borderRestitution / 10.0f);
+        Box2DUtils.setBodyRestitution(body, gameWorld.getGamePlay().borderRestitution / 10.0f);
     }
 }
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.racer;
+
+import com.agateau.pixelwheels.GameWorld;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Decides when AI pilots update their perception of the race: which waypoint to aim for, and
+ * whether they should slow down to let players catch up.
+ *
+ * <p>Perception is updated rate times per second instead of at every world step. Pilots are
+ * staggered so that, at each step, only a fraction of them do the update.
+ */
+public class AIPerceptionScheduler {
+    private final Array<AIPilot> mPilots = new Array<>();
+    private final int mPeriod;
+    private int mStep = 0;
+
+    public AIPerceptionScheduler(float rate) {
+        mPeriod = Math.max(MathUtils.round(1 / (rate * GameWorld.BOX2D_TIME_STEP)), 1);
+    }
+
+    /** Number of world steps between two perception updates of a pilot */
+    public int getPeriod() {
+        return mPeriod;
+    }
+
+    public void addPilot(AIPilot pilot) {
+        mPilots.add(pilot);
+    }
+
+    /** Must be called at each world step, before the pilots act */
+    public void act() {
+        for (int idx = 0; idx < mPilots.size; ++idx) {
+            if ((mStep + idx) % mPeriod == 0) {
+                mPilots.get(idx).schedulePerception();
+            }
+        }
+        mStep = (mStep + 1) % mPeriod;
+    }
+}
@@ -18,15 +18,12 @@
  */
 package com.agateau.pixelwheels.racer;
 
-import com.agateau.pixelwheels.GamePlay;
 import com.agateau.pixelwheels.GameWorld;
 import com.agateau.pixelwheels.bonus.Bonus;
 import com.agateau.pixelwheels.debug.Debug;
-import com.agateau.pixelwheels.map.Championship;
 import com.agateau.pixelwheels.map.Track;
 import com.agateau.pixelwheels.map.WaypointStore;
 import com.agateau.pixelwheels.stats.GameStats;
-import com.agateau.pixelwheels.stats.TrackStats;
 import com.agateau.pixelwheels.utils.StaticBodyFinder;
 import com.agateau.utils.AgcMathUtils;
 import com.agateau.utils.Line;
@@ -40,11 +37,16 @@ public class AIPilot implements Pilot {
     private static final float MIN_NORMAL_SPEED = 1;
     private static final float MAX_BLOCKED_DURATION = 1;
     private static final float MAX_REVERSE_DURATION = 0.5f;
+    // If the racer gets blocked again less than this after recovering, it reverses for longer
+    private static final float RECOVERY_DURATION = 3;
+    private static final int MAX_REVERSE_FACTOR = 4;
     private static final int MAX_FORWARD_WAYPOINTS = 2;
 
     private final Vector2 mTmpVector1 = new Vector2();
     private final Vector2 mTmpVector2 = new Vector2();
     private final Vector2 mTmpVector3 = new Vector2();
+    private final Vector2 mTmpWaypoint = new Vector2();
+    private final Vector2 mTargetWaypoint = new Vector2();
 
     private final GameWorld mGameWorld;
     private final Track mTrack;
@@ -57,8 +59,14 @@ public class AIPilot implements Pilot {
     }
 
     private State mState = State.NORMAL;
+    // Index of the waypoint returned by the last getWaypointIndex() call, used as a hint
+    private int mWaypointIndex = -1;
+    private boolean mPerceptionScheduled = true;
     private float mBlockedDuration = 0;
     private float mReverseDuration = 0;
+    private float mNormalDuration = 0;
+    // How many times in a row the racer got blocked
+    private int mBlockedCount = 0;
 
     static class DebugInfo {
         final Line[] lines;
@@ -84,6 +92,14 @@ public class AIPilot implements Pilot {
         return mDebugInfo;
     }
 
+    /**
+     * Asks the pilot to update its perception at its next normal act() call. See
+     * AIPerceptionScheduler.
+     */
+    void schedulePerception() {
+        mPerceptionScheduled = true;
+    }
+
     @Override
     public void act(float dt) {
         if (Debug.instance.showDebugLayer && mDebugInfo == null) {
@@ -100,47 +116,19 @@ public class AIPilot implements Pilot {
         }
     }
 
-    private static final GameStats sDummyGameStats =
-            new GameStats() {
-                @Override
-                public void setListener(Listener listener) {}
-
-                @Override
-                public TrackStats getTrackStats(Track track) {
-                    return null;
-                }
-
-                @Override
-                public int getBestChampionshipRank(Championship championship) {
-                    return 0;
-                }
-
-                @Override
-                public void onChampionshipFinished(Championship championship, int rank) {}
-
-                @Override
-                public void recordEvent(Event event) {}
-
-                @Override
-                public void recordIntEvent(Event event, int value) {}
-
-                @Override
-                public int getEventCount(Event event) {
-                    return 0;
-                }
-
-                @Override
-                public void save() {}
-            };
-
     @Override
     public GameStats getGameStats() {
-        return sDummyGameStats;
+        return DummyGameStats.instance;
     }
 
     private void actNormal(float dt) {
+        if (mPerceptionScheduled) {
+            updatePerception();
+            mPerceptionScheduled = false;
+        }
         updateAcceleration();
         updateDirection();
+        mNormalDuration += dt;
         float speed = mRacer.getVehicle().getSpeed();
         if (mGameWorld.getState() == GameWorld.State.RUNNING && speed < MIN_NORMAL_SPEED) {
             mBlockedDuration += dt;
@@ -148,6 +136,7 @@ public class AIPilot implements Pilot {
                 NLog.i("Racer %s blocked", mRacer);
                 mState = State.BLOCKED;
                 mReverseDuration = 0;
+                mBlockedCount = mNormalDuration < RECOVERY_DURATION ? mBlockedCount + 1 : 1;
             }
         } else {
             mBlockedDuration = 0;
@@ -160,17 +149,29 @@ public class AIPilot implements Pilot {
         vehicle.setBraking(true);
         vehicle.setDirection(0);
         mReverseDuration += dt;
-        if (mReverseDuration > MAX_REVERSE_DURATION) {
+        // Reversing for longer each time the racer gets blocked again gives it more room to go
+        // around what blocked it
+        int factor = Math.min(mBlockedCount, MAX_REVERSE_FACTOR);
+        if (mReverseDuration > MAX_REVERSE_DURATION * factor) {
             mState = State.NORMAL;
             mBlockedDuration = 0;
+            mNormalDuration = 0;
         }
     }
 
+    /** The expensive part of the pilot work: finding the target waypoint and the speed limit */
+    private void updatePerception() {
+        mTrack.getWaypointStore().getWaypoint(findNextWaypointIndex(), mTargetWaypoint);
+        updateSpeedLimiter();
+    }
+
     private void updateAcceleration() {
         Vehicle vehicle = mRacer.getVehicle();
         vehicle.setAccelerating(true);
         vehicle.setBraking(false);
+    }
 
+    private void updateSpeedLimiter() {
         // If we are better ranked than a player, slow down a bit
         float rank = mGameWorld.getRacerRank(mRacer);
         boolean needLimit = false;
@@ -180,13 +181,12 @@ public class AIPilot implements Pilot {
                 break;
             }
         }
-        float limit = needLimit ? GamePlay.instance.aiSpeedLimiter : 1f;
-        vehicle.setSpeedLimiter(limit);
+        float limit = needLimit ? mGameWorld.getGamePlay().aiSpeedLimiter : 1f;
+        mRacer.getVehicle().setSpeedLimiter(limit);
     }
 
     private void updateDirection() {
-        Vector2 waypoint = findNextWaypoint();
-        float targetAngle = mTmpVector1.set(waypoint).sub(mRacer.getPosition()).angle();
+        float targetAngle = mTmpVector1.set(mTargetWaypoint).sub(mRacer.getPosition()).angle();
         targetAngle = AgcMathUtils.normalizeAngle(targetAngle);
 
         Vehicle vehicle = mRacer.getVehicle();
@@ -197,35 +197,34 @@ public class AIPilot implements Pilot {
         } else if (deltaAngle < -180) {
             deltaAngle += 360;
         }
-        float direction = MathUtils.clamp(deltaAngle / GamePlay.instance.lowSpeedMaxSteer, -1, 1);
+        float direction =
+                MathUtils.clamp(deltaAngle / mGameWorld.getGamePlay().lowSpeedMaxSteer, -1, 1);
         vehicle.setDirection(direction);
     }
 
-    private Vector2 findNextWaypoint() {
+    private int findNextWaypointIndex() {
         float lapDistance = mRacer.getLapPositionComponent().getLapDistance();
         WaypointStore store = mTrack.getWaypointStore();
-        int index = store.getWaypointIndex(lapDistance);
-        Vector2 waypoint = store.getWaypoint(index);
-        if (!isWaypointVisible(waypoint)) {
+        int index = store.getWaypointIndex(lapDistance, mWaypointIndex);
+        mWaypointIndex = index;
+        if (!isWaypointVisible(index)) {
             NLog.e("Current waypoint is not visible, we might get blocked");
-            return waypoint;
+            return index;
         }
-        Vector2 nextWaypoint;
         for (int i = 0; i < MAX_FORWARD_WAYPOINTS; ++i) {
-            index = store.getNextIndex(index);
-            nextWaypoint = store.getWaypoint(index);
-            if (!isWaypointVisible(nextWaypoint)) {
+            int nextIndex = store.getNextIndex(index);
+            if (!isWaypointVisible(nextIndex)) {
                 break;
             }
-            waypoint = nextWaypoint;
+            index = nextIndex;
         }
-        return waypoint;
+        return index;
     }
 
     /** Check if both sides of the vehicle can "see" the waypoint */
     @SuppressWarnings("BooleanMethodIsAlwaysInverted")
-    private boolean isWaypointVisible(Vector2 waypoint) {
-        World world = mGameWorld.getBox2DWorld();
+    private boolean isWaypointVisible(int waypointIndex) {
+        Vector2 waypoint = mTrack.getWaypointStore().getWaypoint(waypointIndex, mTmpWaypoint);
         Vector2 delta = mTmpVector1;
         Vector2 position = mTmpVector2;
         Vector2 adjustedWaypoint = mTmpVector3;
@@ -233,6 +232,20 @@ public class AIPilot implements Pilot {
         Vehicle vehicle = mRacer.getVehicle();
         delta.set(0, vehicle.getHeight() / 2).rotate(vehicle.getAngle());
 
+        WaypointVisibilityCache cache = mGameWorld.getWaypointVisibilityCache();
+        if (cache.isKnownVisible(mRacer.getPosition(), waypointIndex)) {
+            if (mDebugInfo != null) {
+                for (int idx = 0; idx < 2; ++idx) {
+                    position.set(mRacer.getPosition()).add(delta);
+                    adjustedWaypoint.set(waypoint).add(delta);
+                    mDebugInfo.setLine(idx, position, adjustedWaypoint);
+                    delta.scl(-1);
+                }
+            }
+            return true;
+        }
+
+        World world = mGameWorld.getBox2DWorld();
         position.set(mRacer.getPosition()).add(delta);
         adjustedWaypoint.set(waypoint).add(delta);
         if (mStaticBodyFinder.find(world, position, adjustedWaypoint) != null) {
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.racer;
+
+import com.agateau.pixelwheels.map.Championship;
+import com.agateau.pixelwheels.map.Track;
+import com.agateau.pixelwheels.stats.GameStats;
+import com.agateau.pixelwheels.stats.TrackStats;
+
+/** A GameStats which ignores everything, for pilots whose actions must not be recorded */
+class DummyGameStats implements GameStats {
+    static final DummyGameStats instance = new DummyGameStats();
+
+    @Override
+    public void setListener(Listener listener) {}
+
+    @Override
+    public TrackStats getTrackStats(Track track) {
+        return null;
+    }
+
+    @Override
+    public int getBestChampionshipRank(Championship championship) {
+        return 0;
+    }
+
+    @Override
+    public void onChampionshipFinished(Championship championship, int rank) {}
+
+    @Override
+    public void recordEvent(Event event) {}
+
+    @Override
+    public void recordIntEvent(Event event, int value) {}
+
+    @Override
+    public int getEventCount(Event event) {
+        return 0;
+    }
+
+    @Override
+    public void save() {}
+}
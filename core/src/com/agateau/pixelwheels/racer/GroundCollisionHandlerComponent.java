@@ -107,7 +107,7 @@ public class GroundCollisionHandlerComponent implements Racer.Component {
                 Helicopter.create(
                         mAssets,
                         mRacer.getAudioManager(),
-                        mGameWorld.getTrack(),
+                        mGameWorld,
                         mVehicle.getPosition(),
                         mVehicle.getAngle());
         mGameWorld.addGameObject(mHelicopter);
@@ -39,7 +39,9 @@ public class LapPositionComponent implements Racer.Component {
     private float mBestLapTime = -1;
     private float mTotalTime = 0;
     private float mLapTime = 0;
+    private float mLastLapTime = -1;
     private int mLapCount = 0;
+    private int mCompletedLapCount = 0;
     private final LapPosition mLapPosition = new LapPosition();
     private Status mStatus = Status.RACING;
 
@@ -71,6 +73,24 @@ public class LapPositionComponent implements Racer.Component {
         return mTotalTime;
     }
 
+    /** Time elapsed since the start of the current lap */
+    public float getLapTime() {
+        return mLapTime;
+    }
+
+    /** Duration of the last completed lap, -1 if no lap has been completed yet */
+    public float getLastLapTime() {
+        return mLastLapTime;
+    }
+
+    /**
+     * Number of laps completed so far. Unlike getLapCount() it never decreases, so it can be
+     * watched to detect the end of a lap.
+     */
+    public int getCompletedLapCount() {
+        return mCompletedLapCount;
+    }
+
     public int getLapCount() {
         return mLapCount;
     }
@@ -122,6 +142,8 @@ public class LapPositionComponent implements Racer.Component {
         if (!hasBestLapTime() || mLapTime < mBestLapTime) {
             mBestLapTime = mLapTime;
         }
+        mLastLapTime = mLapTime;
+        ++mCompletedLapCount;
         mLapTime = 0;
     }
 
@@ -25,6 +25,7 @@ import com.agateau.pixelwheels.gameinput.GameInput;
 import com.agateau.pixelwheels.gameinput.GameInputHandler;
 import com.agateau.pixelwheels.gameinput.KeyboardInputHandler;
 import com.agateau.pixelwheels.racescreen.Hud;
+import com.agateau.pixelwheels.replay.InputRecorder;
 import com.agateau.pixelwheels.stats.GameStats;
 import com.agateau.ui.InputMapper;
 import com.agateau.ui.VirtualKey;
@@ -38,8 +39,14 @@ public class PlayerPilot implements Pilot {
     private final int mPlayerIndex;
 
     private GameInputHandler mInputHandler;
+    private boolean mPlayingReplay = false;
+    private InputRecorder mInputRecorder;
     private boolean mLastTriggering = false;
 
+    /**
+     * gameConfig provides the input handler of the player. It can be null if the pilot plays a
+     * replay.
+     */
     public PlayerPilot(
             Assets assets,
             GameWorld gameWorld,
@@ -51,9 +58,25 @@ public class PlayerPilot implements Pilot {
         mRacer = racer;
         mGameConfig = gameConfig;
         mPlayerIndex = playerIndex;
-        updateInputHandler();
+        if (mGameConfig != null) {
+            updateInputHandler();
+            mGameConfig.addListener(() -> updateInputHandler());
+        }
+    }
+
+    /**
+     * Makes the pilot drive using the inputs of inputHandler, which plays back recorded inputs,
+     * instead of the inputs of the player. The actions of the pilot are then not recorded in the
+     * game stats.
+     */
+    public void setReplayInputHandler(GameInputHandler inputHandler) {
+        mInputHandler = inputHandler;
+        mPlayingReplay = true;
+    }
 
-        mGameConfig.addListener(() -> updateInputHandler());
+    /** If set, all the inputs of the pilot are recorded by inputRecorder */
+    public void setInputRecorder(InputRecorder inputRecorder) {
+        mInputRecorder = inputRecorder;
     }
 
     public void createHudButtons(Hud hud) {
@@ -68,6 +91,9 @@ public class PlayerPilot implements Pilot {
         if (mGameWorld.getState() == GameWorld.State.RUNNING) {
             mInputHandler.setBonus(mRacer.getBonus());
             GameInput input = mInputHandler.getGameInput();
+            if (mInputRecorder != null) {
+                input = mInputRecorder.record(input);
+            }
             vehicle.setDirection(input.direction);
             vehicle.setAccelerating(input.accelerating);
             vehicle.setBraking(input.braking);
@@ -80,7 +106,9 @@ public class PlayerPilot implements Pilot {
 
     @Override
     public GameStats getGameStats() {
-        return mGameWorld.getGameStats();
+        GameStats gameStats = mPlayingReplay ? null : mGameWorld.getGameStats();
+        // Headless worlds have no stats
+        return gameStats != null ? gameStats : DummyGameStats.instance;
     }
 
     public boolean isPauseKeyPressed() {
@@ -92,6 +120,9 @@ public class PlayerPilot implements Pilot {
     }
 
     private void updateInputHandler() {
+        if (mPlayingReplay) {
+            return;
+        }
         mInputHandler = mGameConfig.getPlayerInputHandler(mPlayerIndex);
     }
 }
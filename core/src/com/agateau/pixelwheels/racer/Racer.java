@@ -31,6 +31,7 @@ import com.agateau.pixelwheels.racescreen.Collidable;
 import com.agateau.pixelwheels.racescreen.CollisionCategories;
 import com.agateau.pixelwheels.sound.AudioManager;
 import com.agateau.pixelwheels.stats.GameStats;
+import com.agateau.utils.AgcMathUtils;
 import com.badlogic.gdx.graphics.g2d.Batch;
 import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Vector2;
@@ -59,6 +60,7 @@ public class Racer extends GameObjectAdapter implements Collidable, Disposable {
 
     // State
     private Bonus mBonus;
+    private int mRank = -1;
     private final RecordRanks mRecordRanks = new RecordRanks();
 
     public static class RecordRanks {
@@ -127,7 +129,7 @@ public class Racer extends GameObjectAdapter implements Collidable, Disposable {
         addComponent(new BonusSpotHitComponent(this));
         addComponent(mAudioComponent);
 
-        if (GamePlay.instance.createSpeedReport) {
+        if (mGameWorld.getGamePlay().createSpeedReport) {
             Probe probe = new Probe("speed.dat");
             mVehicle.setProbe(probe);
             addComponent(probe);
@@ -165,6 +167,15 @@ public class Racer extends GameObjectAdapter implements Collidable, Disposable {
         return mBonus;
     }
 
+    /** Rank of the racer in the race, starting from 1. Updated at each world step */
+    public int getRank() {
+        return mRank;
+    }
+
+    void setRank(int rank) {
+        mRank = rank;
+    }
+
     public LapPositionComponent getLapPositionComponent() {
         return mLapPositionComponent;
     }
@@ -241,10 +252,10 @@ public class Racer extends GameObjectAdapter implements Collidable, Disposable {
         mTmp.set(body2.getLinearVelocity()).sub(body1.getLinearVelocity());
         float deltaV = mTmp.len();
 
+        final GamePlay GP = mGameWorld.getGamePlay();
         final float k =
-                GamePlay.instance.simplifiedCollisionKFactor
-                        * MathUtils.clamp(
-                                deltaV / GamePlay.instance.simplifiedCollisionMaxDeltaV, 0, 1);
+                GP.simplifiedCollisionKFactor
+                        * MathUtils.clamp(deltaV / GP.simplifiedCollisionMaxDeltaV, 0, 1);
         mTmp.set(body2.getWorldCenter()).sub(body1.getWorldCenter()).nor().scl(k);
 
         body2.applyLinearImpulse(mTmp, body2.getWorldCenter(), true);
@@ -290,7 +301,7 @@ public class Racer extends GameObjectAdapter implements Collidable, Disposable {
 
         // To avoid allocating an array of the counts for each normalized rank, we subtract counts
         // from pick, until it is less than 0, at this point we are on the selected pool
-        float pick = MathUtils.random(0f, totalCount);
+        float pick = AgcMathUtils.random(mGameWorld.getRandom(), 0f, totalCount);
         BonusPool pool = null;
         for (int idx = 0; idx < pools.size; ++idx) {
             pool = pools.get(idx);
@@ -327,6 +338,19 @@ public class Racer extends GameObjectAdapter implements Collidable, Disposable {
         }
     }
 
+    private static final ZLevel[] Z_LEVELS = {ZLevel.GROUND, ZLevel.VEHICLES, ZLevel.FLYING};
+
+    @Override
+    public ZLevel[] getZLevels() {
+        return Z_LEVELS;
+    }
+
+    @Override
+    public float getDrawRadius() {
+        // Skidmarks trail behind the vehicle, so the racer cannot be culled from its position
+        return -1;
+    }
+
     @Override
     public void draw(Batch batch, ZLevel zLevel) {
         mVehicleRenderer.draw(batch, zLevel);
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.racer;
+
+import java.util.Comparator;
+
+/**
+ * Sort racers, listing racers which have driven the longest first, so it returns 1 if racer1 has
+ * driven less than racer2
+ */
+public class RacerComparator implements Comparator<Racer> {
+    @Override
+    public int compare(Racer racer1, Racer racer2) {
+        LapPositionComponent c1 = racer1.getLapPositionComponent();
+        LapPositionComponent c2 = racer2.getLapPositionComponent();
+        if (!c1.hasFinishedRace() && c2.hasFinishedRace()) {
+            return 1;
+        }
+        if (c1.hasFinishedRace() && !c2.hasFinishedRace()) {
+            return -1;
+        }
+        if (c1.getLapCount() < c2.getLapCount()) {
+            return 1;
+        }
+        if (c1.getLapCount() > c2.getLapCount()) {
+            return -1;
+        }
+        float d1 = c1.getLapDistance();
+        float d2 = c2.getLapDistance();
+        return Float.compare(d2, d1);
+    }
+}
@@ -61,9 +61,9 @@ public class RacerDebugShape implements DebugShapeMap.Shape {
         renderer.begin(ShapeRenderer.ShapeType.Line);
         float radius = 10 * Constants.UNIT_FOR_PIXEL;
         renderer.setColor(1, 1, 0, 1);
-        DrawUtils.drawCross(renderer, store.getWaypoint(prevIdx), radius);
+        DrawUtils.drawCross(renderer, store.getX(prevIdx), store.getY(prevIdx), radius);
         renderer.setColor(0, 1, 1, 1);
-        DrawUtils.drawCross(renderer, store.getWaypoint(nextIdx), radius);
+        DrawUtils.drawCross(renderer, store.getX(nextIdx), store.getY(nextIdx), radius);
         renderer.setColor(1, 1, 1, 1);
         DrawUtils.drawCross(renderer, point.x, point.y, radius);
 
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.racer;
+
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Sorts racers by rank, and stores in each racer its rank so that Racer.getRank() does not have to
+ * look for the racer in the list.
+ *
+ * <p>Ranks rarely change between two steps, so the list is almost sorted when it is updated: an
+ * insertion sort keeps it sorted in linear time.
+ */
+public class RacerRanking {
+    private final RacerComparator mComparator = new RacerComparator();
+
+    /**
+     * Sorts racers, listing the best ranked first, and updates their ranks. Racers which have
+     * finished the race are expected to be at the beginning of the list: they keep the position
+     * they had when they crossed the finish line, even if they continue a bit after it.
+     */
+    public void update(Array<Racer> racers) {
+        int fromIndex;
+        for (fromIndex = 0; fromIndex < racers.size; ++fromIndex) {
+            if (!racers.get(fromIndex).getLapPositionComponent().hasFinishedRace()) {
+                break;
+            }
+        }
+        for (int idx = fromIndex + 1; idx < racers.size; ++idx) {
+            Racer racer = racers.get(idx);
+            if (mComparator.compare(racers.get(idx - 1), racer) <= 0) {
+                // Already at the right place, the common case
+                continue;
+            }
+            int insertIdx = idx;
+            for (; insertIdx > fromIndex; --insertIdx) {
+                Racer previous = racers.get(insertIdx - 1);
+                if (mComparator.compare(previous, racer) <= 0) {
+                    break;
+                }
+                racers.set(insertIdx, previous);
+            }
+            racers.set(insertIdx, racer);
+        }
+        for (int idx = 0; idx < racers.size; ++idx) {
+            racers.get(idx).setRank(idx + 1);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.racer;
+
+import com.agateau.utils.AgcMathUtils;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * A spatial index of the racers, rebuilt once per world step, to answer proximity queries without
+ * casting rays through the Box2D world.
+ *
+ * <p>Racers are kept in a list sorted by their x coordinate (a "sweep list"). Since racers move
+ * little between two steps, the list is almost sorted when it is updated, so an insertion sort
+ * keeps it sorted in linear time.
+ */
+public class RacerSpatialIndex {
+    private final Array<Racer> mRacers = new Array<>(Racer.class);
+    private float[] mXs = new float[0];
+    private float[] mYs = new float[0];
+    private float[] mRadii = new float[0];
+    private float mMaxRadius = 0;
+
+    /** Updates the index with the current positions of racers */
+    public void update(Array<Racer> racers) {
+        if (mRacers.size != racers.size) {
+            mRacers.clear();
+            mRacers.addAll(racers);
+            mXs = new float[racers.size];
+            mYs = new float[racers.size];
+            mRadii = new float[racers.size];
+        }
+        mMaxRadius = 0;
+        for (int idx = 0; idx < mRacers.size; ++idx) {
+            Vehicle vehicle = mRacers.get(idx).getVehicle();
+            Vector2 position = vehicle.getPosition();
+            mXs[idx] = position.x;
+            mYs[idx] = position.y;
+            // Radius of the circle containing the vehicle
+            float radius = Vector2.len(vehicle.getWidth(), vehicle.getHeight()) / 2;
+            mRadii[idx] = radius;
+            mMaxRadius = Math.max(mMaxRadius, radius);
+        }
+        sortByX();
+    }
+
+    /**
+     * Returns the racer closest to origin which overlaps the arc of circle centered on origin,
+     * starting at angle - arc / 2 and ending at angle + arc / 2 (in degrees), with a radius of
+     * depth. Returns null if there is none.
+     *
+     * <p>Racers are approximated by circles, so the result must be confirmed by a raycast.
+     */
+    public Racer findClosestInArc(
+            Vector2 origin, float angle, float depth, float arc, Racer ignoredRacer) {
+        float maxDistance = depth + mMaxRadius;
+        Racer closestRacer = null;
+        float closestDistance = Float.MAX_VALUE;
+        for (int idx = findFirstIndex(origin.x - maxDistance); idx < mRacers.size; ++idx) {
+            float dx = mXs[idx] - origin.x;
+            if (dx > maxDistance) {
+                break;
+            }
+            Racer racer = mRacers.get(idx);
+            if (racer == ignoredRacer) {
+                continue;
+            }
+            float dy = mYs[idx] - origin.y;
+            float radius = mRadii[idx];
+            float centerDistance = Vector2.len(dx, dy);
+            float distance = centerDistance - radius;
+            if (distance > depth || distance >= closestDistance) {
+                continue;
+            }
+            // Check the racer overlaps the arc. If origin is inside the racer, its circle overlaps
+            // any arc, so use the direction of its center instead: a racer touching the back of
+            // origin must not be found when looking forward.
+            float racerAngle = MathUtils.atan2(dy, dx) * MathUtils.radDeg;
+            float angleDelta = Math.abs(AgcMathUtils.normalizeAngle180(racerAngle - angle));
+            float racerHalfArc =
+                    distance > 0
+                            ? (float) Math.asin(radius / centerDistance) * MathUtils.radDeg
+                            : 0;
+            if (angleDelta > arc / 2 + racerHalfArc) {
+                continue;
+            }
+            closestRacer = racer;
+            closestDistance = distance;
+        }
+        return closestRacer;
+    }
+
+    /** Returns the index of the first racer whose x coordinate is greater or equal to x */
+    private int findFirstIndex(float x) {
+        int low = 0;
+        int high = mRacers.size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (mXs[middle] < x) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private void sortByX() {
+        Racer[] racers = mRacers.items;
+        for (int idx = 1; idx < mRacers.size; ++idx) {
+            Racer racer = racers[idx];
+            float x = mXs[idx];
+            float y = mYs[idx];
+            float radius = mRadii[idx];
+            int dst = idx - 1;
+            for (; dst >= 0 && mXs[dst] > x; --dst) {
+                racers[dst + 1] = racers[dst];
+                mXs[dst + 1] = mXs[dst];
+                mYs[dst + 1] = mYs[dst];
+                mRadii[dst + 1] = mRadii[dst];
+            }
+            racers[dst + 1] = racer;
+            mXs[dst + 1] = x;
+            mYs[dst + 1] = y;
+            mRadii[dst + 1] = radius;
+        }
+    }
+}
@@ -29,6 +29,12 @@ import com.badlogic.gdx.math.Vector2;
 
 /** Render a circular array of skidmarks */
 public class SkidmarksRenderer {
+    /**
+     * When skidmark decals are enabled, number of skidmarks of each wheel which are drawn every
+     * frame instead of being baked into the decal layer
+     */
+    public static final int DYNAMIC_SKIDMARK_COUNT = 4;
+
     private static final float SKIDMARK_WIDTH = 7 * Constants.UNIT_FOR_PIXEL;
     private static final float SKIDMARK_ALPHA_INC = 0.05f;
     private static final float SKIDMARK_ALPHA_MIN = 0.1f;
@@ -47,6 +53,17 @@ public class SkidmarksRenderer {
     }
 
     public void draw(Batch batch, CircularArray<Wheel.Skidmark> skidmarks) {
+        draw(batch, skidmarks, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Draws the segments of skidmarks ending with a skidmark whose serial is in the (firstSerial,
+     * lastSerial] range. Segments outside the range are skipped but still taken into account to
+     * compute the shape and opacity of the drawn ones.
+     */
+    public void draw(
+            Batch batch, CircularArray<Wheel.Skidmark> skidmarks, int firstSerial, int lastSerial) {
+        mValidThickness = false;
         int idx1 = skidmarks.getBeginIndex();
         if (idx1 == skidmarks.getEndIndex()) {
             return;
@@ -74,12 +91,15 @@ public class SkidmarksRenderer {
                 Vector2 thickness = AgcMathUtils.computeWidthVector(pos1, pos2, SKIDMARK_WIDTH / 2);
                 mThickX2 = thickness.x;
                 mThickY2 = thickness.y;
-                drawSkidmark(
-                        batch,
-                        pos1,
-                        pos2,
-                        alpha * mark1.getOpacity(),
-                        (alpha + SKIDMARK_ALPHA_INC) * mark2.getOpacity());
+                int serial = mark2.getSerial();
+                if (serial > firstSerial && serial <= lastSerial) {
+                    drawSkidmark(
+                            batch,
+                            pos1,
+                            pos2,
+                            alpha * mark1.getOpacity(),
+                            (alpha + SKIDMARK_ALPHA_INC) * mark2.getOpacity());
+                }
                 alpha = Math.min(SKIDMARK_ALPHA_MAX, alpha + SKIDMARK_ALPHA_INC);
             } else {
                 mValidThickness = false;
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.racer;
+
+/**
+ * Keeps track of the turbo cells a vehicle recently triggered, and of how long each of them must be
+ * ignored before it can trigger a turbo again.
+ *
+ * <p>Cell IDs and remaining durations are kept in parallel primitive arrays, so that checking and
+ * updating cells does not box values. A vehicle only has a few wheels, so a linear search is
+ * enough. The arrays grow if needed, but never shrink.
+ */
+public class TurboCellTimers {
+    private long[] mCellIds;
+    private float[] mDurations;
+    private int mSize = 0;
+
+    public TurboCellTimers(int capacity) {
+        mCellIds = new long[capacity];
+        mDurations = new float[capacity];
+    }
+
+    public int size() {
+        return mSize;
+    }
+
+    public boolean contains(long cellId) {
+        return indexOf(cellId) != -1;
+    }
+
+    /** Starts the timer of cellId, restarting it if it already exists */
+    public void add(long cellId, float duration) {
+        int idx = indexOf(cellId);
+        if (idx == -1) {
+            if (mSize == mCellIds.length) {
+                grow();
+            }
+            idx = mSize;
+            mCellIds[idx] = cellId;
+            ++mSize;
+        }
+        mDurations[idx] = duration;
+    }
+
+    /** Decreases the timers by delta, and removes the cells whose timer expired */
+    public void update(float delta) {
+        for (int idx = mSize - 1; idx >= 0; --idx) {
+            float duration = mDurations[idx] - delta;
+            if (duration <= 0) {
+                // Order does not matter: move the last cell to the removed one
+                --mSize;
+                mCellIds[idx] = mCellIds[mSize];
+                mDurations[idx] = mDurations[mSize];
+            } else {
+                mDurations[idx] = duration;
+            }
+        }
+    }
+
+    private int indexOf(long cellId) {
+        for (int idx = 0; idx < mSize; ++idx) {
+            if (mCellIds[idx] == cellId) {
+                return idx;
+            }
+        }
+        return -1;
+    }
+
+    private void grow() {
+        int capacity = Math.max(mCellIds.length * 2, 4);
+        long[] cellIds = new long[capacity];
+        float[] durations = new float[capacity];
+        System.arraycopy(mCellIds, 0, cellIds, 0, mSize);
+        System.arraycopy(mDurations, 0, durations, 0, mSize);
+        mCellIds = cellIds;
+        mDurations = durations;
+    }
+}
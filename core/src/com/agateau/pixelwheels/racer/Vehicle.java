@@ -35,7 +35,6 @@ import com.badlogic.gdx.physics.box2d.FixtureDef;
 import com.badlogic.gdx.physics.box2d.joints.RevoluteJoint;
 import com.badlogic.gdx.physics.box2d.joints.RevoluteJointDef;
 import com.badlogic.gdx.utils.Array;
-import com.badlogic.gdx.utils.ArrayMap;
 import com.badlogic.gdx.utils.Disposable;
 
 /** Represents a car on the world */
@@ -69,6 +68,7 @@ public class Vehicle implements Racer.Component, Disposable {
     private boolean mBraking = false;
     private float mZ = 0;
     private float mDirection = 0;
+    private float mSteerAngle = 0;
     private float mTurboTime = -1;
     private boolean mStopped = false;
     private Material mMaterial = Material.ROAD;
@@ -76,7 +76,7 @@ public class Vehicle implements Racer.Component, Disposable {
 
     private Probe mProbe = null;
 
-    private final ArrayMap<Long, Float> mTurboCellMap = new ArrayMap<>(8);
+    private final TurboCellTimers mTurboCellTimers = new TurboCellTimers(8);
 
     public Vehicle(
             TextureRegion region,
@@ -101,9 +101,9 @@ public class Vehicle implements Racer.Component, Disposable {
         for (Shape2D shape : shapes) {
             FixtureDef fixtureDef = new FixtureDef();
             fixtureDef.shape = Box2DUtils.createBox2DShape(shape, Constants.UNIT_FOR_PIXEL);
-            fixtureDef.density = GamePlay.instance.vehicleDensity / 10.0f;
+            fixtureDef.density = mGameWorld.getGamePlay().vehicleDensity / 10.0f;
             fixtureDef.friction = 0.2f;
-            fixtureDef.restitution = GamePlay.instance.vehicleRestitution / 10.0f;
+            fixtureDef.restitution = mGameWorld.getGamePlay().vehicleRestitution / 10.0f;
             mBody.createFixture(fixtureDef);
             fixtureDef.shape.dispose();
         }
@@ -225,6 +225,11 @@ public class Vehicle implements Racer.Component, Disposable {
         return AgcMathUtils.normalizeAngle(mBody.getAngle() * MathUtils.radiansToDegrees);
     }
 
+    /** Angle of the steering wheels, in degrees, relative to the vehicle angle */
+    public float getSteerAngle() {
+        return mSteerAngle;
+    }
+
     public float getWidth() {
         return Constants.UNIT_FOR_PIXEL * mRegion.getRegionWidth();
     }
@@ -297,7 +302,7 @@ public class Vehicle implements Racer.Component, Disposable {
      * </ul>
      */
     private void applyGroundEffects(float dt) {
-        final GamePlay GP = GamePlay.instance;
+        final GamePlay GP = mGameWorld.getGamePlay();
         float groundSpeed = 0;
         for (WheelInfo info : mWheels) {
             float wheelGroundSpeed = info.wheel.getGroundSpeed();
@@ -331,7 +336,8 @@ public class Vehicle implements Racer.Component, Disposable {
             }
         }
 
-        float steerAngle = computeSteerAngle() * MathUtils.degRad;
+        mSteerAngle = computeSteerAngle();
+        float steerAngle = mSteerAngle * MathUtils.degRad;
         for (WheelInfo info : mWheels) {
             float angle = info.steeringFactor * steerAngle;
             info.wheel.adjustSpeed(speedDelta);
@@ -360,7 +366,7 @@ public class Vehicle implements Racer.Component, Disposable {
     }
 
     private void applyTurbo(float dt) {
-        final GamePlay GP = GamePlay.instance;
+        final GamePlay GP = mGameWorld.getGamePlay();
 
         if (mTurboTime == 0) {
             mBody.applyLinearImpulse(
@@ -377,7 +383,7 @@ public class Vehicle implements Racer.Component, Disposable {
     }
 
     private float computeSteerAngle() {
-        final GamePlay GP = GamePlay.instance;
+        final GamePlay GP = mGameWorld.getGamePlay();
         if (mDirection == 0) {
             if (mProbe != null) {
                 float speed = mBody.getLinearVelocity().len() * Box2DUtils.MS_TO_KMH;
@@ -413,22 +419,15 @@ public class Vehicle implements Racer.Component, Disposable {
     }
 
     private boolean alreadyTriggeredTurboCell(long cellId) {
-        return mTurboCellMap.containsKey(cellId);
+        return mTurboCellTimers.contains(cellId);
     }
 
     private void addTriggeredTurboCell(long cellId) {
-        mTurboCellMap.put(cellId, GamePlay.instance.turboDuration);
+        mTurboCellTimers.add(cellId, mGameWorld.getGamePlay().turboDuration);
     }
 
     private void updateTriggeredTurboTiles(float delta) {
-        for (int idx = mTurboCellMap.size - 1; idx >= 0; --idx) {
-            float duration = mTurboCellMap.getValueAt(idx) - delta;
-            if (duration <= 0) {
-                mTurboCellMap.removeIndex(idx);
-            } else {
-                mTurboCellMap.setValue(idx, duration);
-            }
-        }
+        mTurboCellTimers.update(delta);
     }
 
     public void setAccelerating(boolean value) {
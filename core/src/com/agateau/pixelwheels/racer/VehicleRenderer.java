@@ -20,6 +20,7 @@ package com.agateau.pixelwheels.racer;
 
 import com.agateau.pixelwheels.Assets;
 import com.agateau.pixelwheels.Constants;
+import com.agateau.pixelwheels.GamePlay;
 import com.agateau.pixelwheels.Renderer;
 import com.agateau.pixelwheels.ZLevel;
 import com.agateau.pixelwheels.utils.BodyRegionDrawer;
@@ -65,7 +66,7 @@ public class VehicleRenderer implements Renderer {
         mTime += Gdx.app.getGraphics().getDeltaTime();
         if (zLevel == ZLevel.GROUND) {
             for (Vehicle.WheelInfo info : mVehicle.getWheelInfos()) {
-                mSkidmarksRenderer.draw(batch, info.wheel.getSkidmarks());
+                drawSkidmarks(batch, info.wheel);
             }
 
             // Only draw splash and shadow if we are not falling
@@ -115,6 +116,20 @@ public class VehicleRenderer implements Renderer {
         }
     }
 
+    private void drawSkidmarks(Batch batch, Wheel wheel) {
+        if (GamePlay.instance.skidmarkDecals) {
+            // Older skidmarks are drawn by the skidmark decal layer
+            int lastSerial = wheel.getLastSkidmarkSerial();
+            mSkidmarksRenderer.draw(
+                    batch,
+                    wheel.getSkidmarks(),
+                    lastSerial - SkidmarksRenderer.DYNAMIC_SKIDMARK_COUNT,
+                    lastSerial);
+        } else {
+            mSkidmarksRenderer.draw(batch, wheel.getSkidmarks());
+        }
+    }
+
     private void drawTurbo(Batch batch) {
         TextureRegion region = mAssets.turboFlame.getKeyFrame(mVehicle.getTurboTime(), true);
         Body body = mVehicle.getBody();
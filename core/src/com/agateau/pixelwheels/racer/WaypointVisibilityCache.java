@@ -0,0 +1,287 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.racer;
+
+import com.agateau.pixelwheels.GameWorld;
+import com.agateau.pixelwheels.bonus.Mine;
+import com.agateau.pixelwheels.gameobjet.GameObject;
+import com.agateau.pixelwheels.map.Track;
+import com.agateau.pixelwheels.map.WaypointStore;
+import com.badlogic.gdx.math.Intersector;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.BodyDef;
+import com.badlogic.gdx.physics.box2d.CircleShape;
+import com.badlogic.gdx.physics.box2d.Fixture;
+import com.badlogic.gdx.physics.box2d.PolygonShape;
+import com.badlogic.gdx.physics.box2d.QueryCallback;
+import com.badlogic.gdx.physics.box2d.Shape;
+import com.badlogic.gdx.physics.box2d.Transform;
+
+/**
+ * Remembers which waypoints can be seen from the cells of a grid covering the track, so that
+ * AIPilot does not need to cast rays through the Box2D world each time it looks for a waypoint.
+ *
+ * <p>A waypoint is known to be visible from a cell if the convex hull of the cell and of the
+ * waypoint, both enlarged by the distance between a vehicle center and the rays AIPilot casts, does
+ * not overlap any static body. Borders and static obstacles never move, so this is computed the
+ * first time a cell and a waypoint are looked up, then reused. If the hull overlaps a static body,
+ * the waypoint may or may not be visible, and AIPilot must cast rays.
+ *
+ * <p>Dropped mines are the only static bodies created during a race, they are checked at each
+ * lookup.
+ */
+public class WaypointVisibilityCache {
+    /** Size of a cell, in world units */
+    private static final float CELL_SIZE = 2;
+
+    private static final byte UNKNOWN = 0;
+    private static final byte VISIBLE = 1;
+    private static final byte UNDECIDED = 2;
+
+    private final GameWorld mGameWorld;
+    private final WaypointStore mWaypointStore;
+    private final float mMargin;
+    private final int mColumnCount;
+    private final int mRowCount;
+    // State of each waypoint for each cell, cells are stored row by row
+    private final byte[] mStates;
+
+    // Vertices of the two squares and of their convex hull
+    private final float[] mPoints = new float[16];
+    private final float[] mHull = new float[16];
+    private int mHullVertexCount;
+    // Work arrays for computeHull(), containing indices of points
+    private final int[] mSortedPoints = new int[8];
+    private final int[] mHullPoints = new int[16];
+    // Box2D polygons have at most 8 vertices
+    private final float[] mFixtureVertices = new float[16];
+    private final Vector2 mTmpVector = new Vector2();
+    private boolean mOverlapFound;
+
+    private final QueryCallback mQueryCallback =
+            new QueryCallback() {
+                @Override
+                public boolean reportFixture(Fixture fixture) {
+                    if (fixture.getBody().getType() != BodyDef.BodyType.StaticBody) {
+                        return true;
+                    }
+                    if (overlapsHull(fixture)) {
+                        mOverlapFound = true;
+                        // We are done
+                        return false;
+                    }
+                    return true;
+                }
+            };
+
+    /**
+     * Creates a cache for the track of gameWorld. The static bodies of the track must have been
+     * created. margin is the maximum distance between a vehicle center and the rays AIPilot casts.
+     */
+    public WaypointVisibilityCache(GameWorld gameWorld, float margin) {
+        Track track = gameWorld.getTrack();
+        mGameWorld = gameWorld;
+        mWaypointStore = track.getWaypointStore();
+        mMargin = margin;
+        mColumnCount = MathUtils.ceil(track.getMapWidth() / CELL_SIZE);
+        mRowCount = MathUtils.ceil(track.getMapHeight() / CELL_SIZE);
+        mStates = new byte[mColumnCount * mRowCount * mWaypointStore.getCount()];
+    }
+
+    /**
+     * Returns true if rays cast from points at most margin away from position to points at most
+     * margin away from the waypoint at waypointIndex cannot hit a static body. Returns false if
+     * they may hit one.
+     */
+    public boolean isKnownVisible(Vector2 position, int waypointIndex) {
+        int column = MathUtils.floor(position.x / CELL_SIZE);
+        int row = MathUtils.floor(position.y / CELL_SIZE);
+        if (column < 0 || column >= mColumnCount || row < 0 || row >= mRowCount) {
+            return false;
+        }
+        int idx = (row * mColumnCount + column) * mWaypointStore.getCount() + waypointIndex;
+        if (mStates[idx] == UNKNOWN) {
+            mStates[idx] = computeState(column, row, waypointIndex);
+        }
+        if (mStates[idx] != VISIBLE) {
+            return false;
+        }
+        return !isMineInTheWay(position, waypointIndex);
+    }
+
+    private byte computeState(int column, int row, int waypointIndex) {
+        float x = column * CELL_SIZE;
+        float y = row * CELL_SIZE;
+        setSquare(0, x - mMargin, y - mMargin, x + CELL_SIZE + mMargin, y + CELL_SIZE + mMargin);
+        float waypointX = mWaypointStore.getX(waypointIndex);
+        float waypointY = mWaypointStore.getY(waypointIndex);
+        setSquare(
+                8,
+                waypointX - mMargin,
+                waypointY - mMargin,
+                waypointX + mMargin,
+                waypointY + mMargin);
+        computeHull();
+
+        float left = Float.MAX_VALUE;
+        float bottom = Float.MAX_VALUE;
+        float right = -Float.MAX_VALUE;
+        float top = -Float.MAX_VALUE;
+        for (int idx = 0; idx < mPoints.length; idx += 2) {
+            left = Math.min(left, mPoints[idx]);
+            right = Math.max(right, mPoints[idx]);
+            bottom = Math.min(bottom, mPoints[idx + 1]);
+            top = Math.max(top, mPoints[idx + 1]);
+        }
+        mOverlapFound = false;
+        mGameWorld.getBox2DWorld().QueryAABB(mQueryCallback, left, bottom, right, top);
+        return mOverlapFound ? UNDECIDED : VISIBLE;
+    }
+
+    private void setSquare(int offset, float left, float bottom, float right, float top) {
+        mPoints[offset] = left;
+        mPoints[offset + 1] = bottom;
+        mPoints[offset + 2] = right;
+        mPoints[offset + 3] = bottom;
+        mPoints[offset + 4] = right;
+        mPoints[offset + 5] = top;
+        mPoints[offset + 6] = left;
+        mPoints[offset + 7] = top;
+    }
+
+    /** Computes the convex hull of mPoints with Andrew's monotone chain algorithm */
+    private void computeHull() {
+        int pointCount = mPoints.length / 2;
+        // Sort points by x, then by y
+        for (int idx = 0; idx < pointCount; ++idx) {
+            mSortedPoints[idx] = idx;
+        }
+        for (int idx = 1; idx < pointCount; ++idx) {
+            int point = mSortedPoints[idx];
+            int dst = idx - 1;
+            for (; dst >= 0 && comparePoints(mSortedPoints[dst], point) > 0; --dst) {
+                mSortedPoints[dst + 1] = mSortedPoints[dst];
+            }
+            mSortedPoints[dst + 1] = point;
+        }
+
+        // Lower hull, then upper hull. The last point of each is the first point of the other
+        int count = 0;
+        for (int idx = 0; idx < pointCount; ++idx) {
+            int point = mSortedPoints[idx];
+            while (count >= 2
+                    && cross(mHullPoints[count - 2], mHullPoints[count - 1], point) <= 0) {
+                --count;
+            }
+            mHullPoints[count++] = point;
+        }
+        int lowerCount = count + 1;
+        for (int idx = pointCount - 2; idx >= 0; --idx) {
+            int point = mSortedPoints[idx];
+            while (count >= lowerCount
+                    && cross(mHullPoints[count - 2], mHullPoints[count - 1], point) <= 0) {
+                --count;
+            }
+            mHullPoints[count++] = point;
+        }
+        // The last point is the first one
+        mHullVertexCount = count - 1;
+        for (int idx = 0; idx < mHullVertexCount; ++idx) {
+            int point = mHullPoints[idx];
+            mHull[idx * 2] = mPoints[point * 2];
+            mHull[idx * 2 + 1] = mPoints[point * 2 + 1];
+        }
+    }
+
+    private int comparePoints(int p1, int p2) {
+        int result = Float.compare(mPoints[p1 * 2], mPoints[p2 * 2]);
+        return result != 0 ? result : Float.compare(mPoints[p1 * 2 + 1], mPoints[p2 * 2 + 1]);
+    }
+
+    /** Returns the z coordinate of the cross product of (p1 - p0) and (p2 - p0) */
+    private float cross(int p0, int p1, int p2) {
+        float x0 = mPoints[p0 * 2];
+        float y0 = mPoints[p0 * 2 + 1];
+        return (mPoints[p1 * 2] - x0) * (mPoints[p2 * 2 + 1] - y0)
+                - (mPoints[p1 * 2 + 1] - y0) * (mPoints[p2 * 2] - x0);
+    }
+
+    private boolean overlapsHull(Fixture fixture) {
+        Shape shape = fixture.getShape();
+        Transform transform = fixture.getBody().getTransform();
+        int vertexCount;
+        switch (shape.getType()) {
+            case Polygon:
+                PolygonShape polygon = (PolygonShape) shape;
+                vertexCount = polygon.getVertexCount();
+                for (int idx = 0; idx < vertexCount; ++idx) {
+                    polygon.getVertex(idx, mTmpVector);
+                    transform.mul(mTmpVector);
+                    mFixtureVertices[idx * 2] = mTmpVector.x;
+                    mFixtureVertices[idx * 2 + 1] = mTmpVector.y;
+                }
+                break;
+            case Circle:
+                // Use the bounding square of the circle
+                mTmpVector.set(((CircleShape) shape).getPosition());
+                transform.mul(mTmpVector);
+                setFixtureSquare(mTmpVector.x, mTmpVector.y, shape.getRadius());
+                vertexCount = 4;
+                break;
+            default:
+                // Other shapes are not used by static bodies, assume the worst
+                return true;
+        }
+        return Intersector.overlapConvexPolygons(
+                mHull, 0, mHullVertexCount * 2, mFixtureVertices, 0, vertexCount * 2, null);
+    }
+
+    private void setFixtureSquare(float x, float y, float halfSize) {
+        mFixtureVertices[0] = x - halfSize;
+        mFixtureVertices[1] = y - halfSize;
+        mFixtureVertices[2] = x + halfSize;
+        mFixtureVertices[3] = y - halfSize;
+        mFixtureVertices[4] = x + halfSize;
+        mFixtureVertices[5] = y + halfSize;
+        mFixtureVertices[6] = x - halfSize;
+        mFixtureVertices[7] = y + halfSize;
+    }
+
+    private boolean isMineInTheWay(Vector2 position, int waypointIndex) {
+        float minDistance = Mine.MINE_RADIUS + mMargin;
+        for (GameObject gameObject : mGameWorld.getActiveGameObjects()) {
+            if (!(gameObject instanceof Mine) || !((Mine) gameObject).isDropped()) {
+                continue;
+            }
+            float distance =
+                    Intersector.distanceSegmentPoint(
+                            position.x,
+                            position.y,
+                            mWaypointStore.getX(waypointIndex),
+                            mWaypointStore.getY(waypointIndex),
+                            gameObject.getX(),
+                            gameObject.getY());
+            if (distance <= minDistance) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
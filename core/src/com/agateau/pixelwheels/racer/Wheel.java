@@ -19,7 +19,6 @@
 package com.agateau.pixelwheels.racer;
 
 import com.agateau.pixelwheels.Constants;
-import com.agateau.pixelwheels.GamePlay;
 import com.agateau.pixelwheels.GameWorld;
 import com.agateau.pixelwheels.map.Material;
 import com.agateau.pixelwheels.utils.Box2DUtils;
@@ -45,6 +44,7 @@ public class Wheel implements Disposable {
         private final Vector2 mPos = new Vector2();
         private boolean mIsEnd = false;
         private float mRemainingLife;
+        private int mSerial;
 
         public boolean isEnd() {
             return mIsEnd;
@@ -54,13 +54,21 @@ public class Wheel implements Disposable {
             return mPos;
         }
 
-        public void init(Vector2 pos) {
+        /** Skidmarks of a wheel are numbered from 1, in the order they have been created */
+        public int getSerial() {
+            return mSerial;
+        }
+
+        public void init(Vector2 pos, int serial) {
             mPos.set(pos);
+            mIsEnd = false;
             mRemainingLife = SKIDMARK_LIFETIME;
+            mSerial = serial;
         }
 
-        public void initAsEnd() {
+        public void initAsEnd(int serial) {
             mIsEnd = true;
+            mSerial = serial;
         }
 
         public void act(float delta) {
@@ -72,21 +80,16 @@ public class Wheel implements Disposable {
         }
     }
 
-    private final CircularArray<Skidmark> mSkidmarks =
-            new CircularArray<Skidmark>(GamePlay.instance.maxSkidmarks) {
-                @Override
-                protected Skidmark createInstance() {
-                    return new Skidmark();
-                }
-            };
+    private final CircularArray<Skidmark> mSkidmarks;
     private int mSkidmarkCount = 0; // Used to limit the number of skidmarks created
+    private int mLastSkidmarkSerial = 0;
 
     private final Body mBody;
     private final GameWorld mGameWorld;
     private final TextureRegion mRegion;
     private final Vehicle mVehicle;
     private boolean mCanDrift = false;
-    private float mMaxDrivingForce = GamePlay.instance.maxDrivingForce;
+    private float mMaxDrivingForce;
     private boolean mGripEnabled = true;
     private Material mMaterial = Material.ROAD;
     private boolean mDrifting = false;
@@ -101,6 +104,14 @@ public class Wheel implements Disposable {
         mGameWorld = gameWorld;
         mVehicle = vehicle;
         mRegion = region;
+        mMaxDrivingForce = gameWorld.getGamePlay().maxDrivingForce;
+        mSkidmarks =
+                new CircularArray<Skidmark>(gameWorld.getGamePlay().maxSkidmarks) {
+                    @Override
+                    protected Skidmark createInstance() {
+                        return new Skidmark();
+                    }
+                };
 
         float w = Constants.UNIT_FOR_PIXEL * region.getRegionWidth();
         float h = Constants.UNIT_FOR_PIXEL * region.getRegionHeight();
@@ -164,8 +175,8 @@ public class Wheel implements Disposable {
         }
         final float currentSpeed = mBody.getLinearVelocity().len() * Box2DUtils.MS_TO_KMH;
 
-        final float limit =
-                1 - 0.2f * Interpolation.sineOut.apply(currentSpeed / GamePlay.instance.maxSpeed);
+        final float maxSpeed = mGameWorld.getGamePlay().maxSpeed;
+        final float limit = 1 - 0.2f * Interpolation.sineOut.apply(currentSpeed / maxSpeed);
         amount *= limit;
 
         float force = mMaxDrivingForce * amount;
@@ -186,18 +197,19 @@ public class Wheel implements Disposable {
         Vector2 impulse =
                 Box2DUtils.getLateralVelocity(mBody).scl(-mBody.getMass()).scl(mMaterial.getGrip());
         float maxImpulse =
-                (float) GamePlay.instance.maxLateralImpulse / (mVehicle.isBraking() ? 0.2f : 1);
+                (float) mGameWorld.getGamePlay().maxLateralImpulse
+                        / (mVehicle.isBraking() ? 0.2f : 1);
         if (mMaterial != Material.ICE && mCanDrift && impulse.len() > maxImpulse) {
             // Drift
             mDrifting = true;
             if (mSkidmarkCount == 0) {
-                mSkidmarks.add().init(mBody.getWorldCenter());
+                mSkidmarks.add().init(mBody.getWorldCenter(), ++mLastSkidmarkSerial);
             }
             mSkidmarkCount = (mSkidmarkCount + 1) % SKIDMARK_INTERVAL;
             maxImpulse = Math.max(maxImpulse, impulse.len() - DRIFT_IMPULSE_REDUCTION);
             impulse.limit(maxImpulse);
         } else if (mDrifting) {
-            mSkidmarks.add().initAsEnd();
+            mSkidmarks.add().initAsEnd(++mLastSkidmarkSerial);
             mDrifting = false;
         }
         mBody.applyLinearImpulse(impulse, mBody.getWorldCenter(), true);
@@ -226,6 +238,11 @@ public class Wheel implements Disposable {
         return mSkidmarks;
     }
 
+    /** Returns the serial of the last created skidmark, 0 if no skidmark has been created yet */
+    public int getLastSkidmarkSerial() {
+        return mLastSkidmarkSerial;
+    }
+
     public Material getMaterial() {
         return mMaterial;
     }
@@ -18,31 +18,39 @@
  */
 package com.agateau.pixelwheels.racescreen;
 
+import com.agateau.pixelwheels.Assets;
 import com.agateau.pixelwheels.Constants;
+import com.agateau.pixelwheels.GamePlay;
 import com.agateau.pixelwheels.GameWorld;
 import com.agateau.pixelwheels.ZLevel;
 import com.agateau.pixelwheels.debug.Debug;
 import com.agateau.pixelwheels.debug.DebugShapeMap;
+import com.agateau.pixelwheels.debug.DebugStringMap;
 import com.agateau.pixelwheels.gameobjet.GameObject;
+import com.agateau.pixelwheels.gameobjet.ZLevelBuckets;
 import com.agateau.pixelwheels.map.Track;
 import com.agateau.pixelwheels.map.WaypointStore;
 import com.badlogic.gdx.graphics.OrthographicCamera;
-import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.glutils.FrameBuffer;
 import com.badlogic.gdx.graphics.glutils.HdpiUtils;
 import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
-import com.badlogic.gdx.maps.tiled.renderers.OrthogonalTiledMapRenderer;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.math.Vector3;
 import com.badlogic.gdx.physics.box2d.Box2DDebugRenderer;
+import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.PerformanceCounter;
 import com.badlogic.gdx.utils.PerformanceCounters;
 
 /** Responsible for rendering the game world */
 public class GameRenderer {
     private final Track mTrack;
-    private final OrthogonalTiledMapRenderer mRenderer;
+    private final TileChunkRenderer mTileRenderer;
+    private final SkidmarkDecalLayer mSkidmarkDecalLayer;
     private final Box2DDebugRenderer mDebugRenderer;
-    private final Batch mBatch;
+    private final SpriteBatch mSpriteBatch;
+    // Game objects draw through this batch, which groups their draws by texture
+    private final TextureSortingBatch mBatch;
     private final OrthographicCamera mCamera;
     private final ShapeRenderer mShapeRenderer = new ShapeRenderer();
     private final GameWorld mWorld;
@@ -56,10 +64,12 @@ public class GameRenderer {
     private int mScreenY;
     private int mScreenWidth;
     private int mScreenHeight;
+    private FrameBuffer mFrameBuffer;
     private final PerformanceCounter mTilePerformanceCounter;
     private final PerformanceCounter mGameObjectPerformanceCounter;
 
-    public GameRenderer(GameWorld world, Batch batch, PerformanceCounters counters) {
+    public GameRenderer(
+            Assets assets, GameWorld world, SpriteBatch batch, PerformanceCounters counters) {
         mDebugRenderer = new Box2DDebugRenderer();
         mWorld = world;
 
@@ -68,17 +78,19 @@ public class GameRenderer {
         mExtraBackgroundLayerIndexes = mTrack.getExtraBackgroundLayerIndexes();
         mForegroundLayerIndexes = mTrack.getForegroundLayerIndexes();
 
-        mBatch = batch;
+        mSpriteBatch = batch;
+        mBatch = new TextureSortingBatch(mSpriteBatch);
         mCamera = new OrthographicCamera();
-        boolean singlePlayer = mWorld.getPlayerRacers().size == 1;
+        boolean multiPlayer = mWorld.getPlayerRacers().size > 1;
         mCameraUpdater =
                 Debug.instance.freeCamera
                         ? new FreeCameraUpdater(mWorld)
-                        : singlePlayer
-                                ? new SinglePlayerCameraUpdater(mWorld)
-                                : new MultiPlayerCameraUpdater(mWorld);
-        mRenderer =
-                new OrthogonalTiledMapRenderer(mTrack.getMap(), Constants.UNIT_FOR_PIXEL, mBatch);
+                        : multiPlayer
+                                ? new MultiPlayerCameraUpdater(mWorld)
+                                : new SinglePlayerCameraUpdater(mWorld);
+        mTileRenderer = new TileChunkRenderer(mTrack.getMap(), Constants.UNIT_FOR_PIXEL);
+        mSkidmarkDecalLayer =
+                GamePlay.instance.skidmarkDecals ? new SkidmarkDecalLayer(assets, mTrack) : null;
 
         mTilePerformanceCounter = counters.add("- tiles");
         mGameObjectPerformanceCounter = counters.add("- g.o.");
@@ -100,7 +112,11 @@ public class GameRenderer {
                     for (int idx = 0; idx < store.getCount(); ++idx) {
                         renderer.setColor(idx % 2, 1, 0, 1);
                         int prevIdx = store.getPreviousIndex(idx);
-                        renderer.line(store.getWaypoint(prevIdx), store.getWaypoint(idx));
+                        renderer.line(
+                                store.getX(prevIdx),
+                                store.getY(prevIdx),
+                                store.getX(idx),
+                                store.getY(idx));
                     }
                     renderer.end();
                 });
@@ -114,37 +130,72 @@ public class GameRenderer {
         mCameraUpdater.init(mCamera, width, height);
     }
 
+    /**
+     * If frameBuffer is not null, render() draws into it instead of the screen. The screen rect
+     * must then cover the frame buffer. The frame buffer is not cleared.
+     */
+    public void setFrameBuffer(FrameBuffer frameBuffer) {
+        mFrameBuffer = frameBuffer;
+    }
+
     public void onAboutToStart() {
         updateCamera(CameraUpdater.IMMEDIATE);
     }
 
     public void render(float delta) {
-        HdpiUtils.glViewport(mScreenX, mScreenY, mScreenWidth, mScreenHeight);
+        if (mSkidmarkDecalLayer != null) {
+            // Must be done before setting the viewport, since rendering to a frame buffer resets
+            // it
+            mSkidmarkDecalLayer.update(mWorld.getRacers());
+        }
+        if (mFrameBuffer != null) {
+            // Also sets the viewport
+            mFrameBuffer.begin();
+        } else {
+            HdpiUtils.glViewport(mScreenX, mScreenY, mScreenWidth, mScreenHeight);
+        }
         updateCamera(delta);
-        updateMapRendererCamera();
+        mTileRenderer.setView(mCamera);
+        mBatch.setProjectionMatrix(mCamera.combined);
 
         mTilePerformanceCounter.start();
-        mBatch.disableBlending();
-        mRenderer.render(mBackgroundLayerFirstIndexes);
-        mBatch.enableBlending();
+        mTileRenderer.disableBlending();
+        mTileRenderer.render(mBackgroundLayerFirstIndexes);
+        mTileRenderer.enableBlending();
         if (mExtraBackgroundLayerIndexes.length > 0) {
-            mRenderer.render(mExtraBackgroundLayerIndexes);
+            mTileRenderer.render(mExtraBackgroundLayerIndexes);
         }
         mTilePerformanceCounter.stop();
 
         mGameObjectPerformanceCounter.start();
         mBatch.begin();
+        if (mSkidmarkDecalLayer != null) {
+            mSkidmarkDecalLayer.draw(mBatch, mCamera);
+        }
+        ZLevelBuckets buckets = mWorld.getZLevelBuckets();
+        int drawnCount = 0;
+        int culledCount = 0;
+        int renderCalls = 0;
         for (ZLevel z : ZLevel.values()) {
-            for (GameObject object : mWorld.getActiveGameObjects()) {
-                object.draw(mBatch, z);
+            Array<GameObject> objects = buckets.get(z);
+            for (int idx = 0; idx < objects.size; ++idx) {
+                GameObject object = objects.get(idx);
+                if (isVisible(object)) {
+                    object.draw(mBatch, z);
+                    ++drawnCount;
+                } else {
+                    ++culledCount;
+                }
             }
+            mBatch.submit();
 
             if (z == ZLevel.OBSTACLES && mForegroundLayerIndexes.length > 0) {
                 mGameObjectPerformanceCounter.stop();
                 mTilePerformanceCounter.start();
 
                 mBatch.end();
-                mRenderer.render(mForegroundLayerIndexes);
+                renderCalls += mSpriteBatch.renderCalls;
+                mTileRenderer.render(mForegroundLayerIndexes);
                 mBatch.begin();
 
                 mTilePerformanceCounter.stop();
@@ -153,6 +204,13 @@ public class GameRenderer {
         }
         mGameObjectPerformanceCounter.stop();
         mBatch.end();
+        renderCalls += mSpriteBatch.renderCalls;
+        int submitCount = mBatch.popSubmitCount();
+
+        if (Debug.instance.showDebugHud) {
+            DebugStringMap.put("Drawn | culled", drawnCount + " | " + culledCount);
+            DebugStringMap.put("Render calls | submits", renderCalls + " | " + submitCount);
+        }
 
         if (Debug.instance.showDebugLayer) {
             mShapeRenderer.setProjectionMatrix(mCamera.combined);
@@ -178,21 +236,28 @@ public class GameRenderer {
 
             mDebugRenderer.render(mWorld.getBox2DWorld(), mCamera.combined);
         }
+
+        if (mFrameBuffer != null) {
+            mFrameBuffer.end();
+        }
+    }
+
+    private boolean isVisible(GameObject object) {
+        float radius = object.getDrawRadius();
+        return radius < 0
+                || mCamera.frustum.sphereInFrustumWithoutNearFar(
+                        object.getX(), object.getY(), 0, radius);
     }
 
     private void updateCamera(float delta) {
         mCameraUpdater.update(delta);
     }
 
-    private void updateMapRendererCamera() {
-        float width = mCamera.viewportWidth * mCamera.zoom;
-        float height = mCamera.viewportHeight * mCamera.zoom;
-        mRenderer.setView(
-                mCamera.combined,
-                mCamera.position.x - width / 2,
-                mCamera.position.y - height / 2,
-                width,
-                height);
+    public void dispose() {
+        mTileRenderer.dispose();
+        if (mSkidmarkDecalLayer != null) {
+            mSkidmarkDecalLayer.dispose();
+        }
     }
 
     private final Vector3 sTmp3 = new Vector3();
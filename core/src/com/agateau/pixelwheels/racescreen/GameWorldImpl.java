@@ -19,6 +19,8 @@
 package com.agateau.pixelwheels.racescreen;
 
 import com.agateau.pixelwheels.Assets;
+import com.agateau.pixelwheels.GameConfig;
+import com.agateau.pixelwheels.GamePlay;
 import com.agateau.pixelwheels.GameWorld;
 import com.agateau.pixelwheels.PwGame;
 import com.agateau.pixelwheels.bonus.BonusPool;
@@ -28,23 +30,41 @@ import com.agateau.pixelwheels.bonus.MineBonus;
 import com.agateau.pixelwheels.bonus.MissileBonus;
 import com.agateau.pixelwheels.bonus.TurboBonus;
 import com.agateau.pixelwheels.gameobjet.GameObject;
+import com.agateau.pixelwheels.gameobjet.PooledResourceHolder;
+import com.agateau.pixelwheels.gameobjet.ZLevelBuckets;
 import com.agateau.pixelwheels.gamesetup.GameInfo;
+import com.agateau.pixelwheels.ghost.GhostIO;
+import com.agateau.pixelwheels.ghost.GhostLap;
+import com.agateau.pixelwheels.ghost.GhostRacer;
+import com.agateau.pixelwheels.ghost.GhostRecorder;
 import com.agateau.pixelwheels.map.Track;
 import com.agateau.pixelwheels.obstacles.ObstacleCreator;
 import com.agateau.pixelwheels.obstacles.ObstacleDef;
+import com.agateau.pixelwheels.racer.AIPerceptionScheduler;
 import com.agateau.pixelwheels.racer.AIPilot;
 import com.agateau.pixelwheels.racer.LapPositionComponent;
 import com.agateau.pixelwheels.racer.PlayerPilot;
 import com.agateau.pixelwheels.racer.Racer;
+import com.agateau.pixelwheels.racer.RacerRanking;
+import com.agateau.pixelwheels.racer.RacerSpatialIndex;
 import com.agateau.pixelwheels.racer.Vehicle;
+import com.agateau.pixelwheels.racer.WaypointVisibilityCache;
+import com.agateau.pixelwheels.replay.InputRecorder;
+import com.agateau.pixelwheels.replay.Replay;
+import com.agateau.pixelwheels.replay.ReplayInputHandler;
 import com.agateau.pixelwheels.sound.AudioManager;
 import com.agateau.pixelwheels.stats.GameStats;
 import com.agateau.pixelwheels.stats.TrackResult;
 import com.agateau.pixelwheels.stats.TrackStats;
+import com.agateau.pixelwheels.utils.OrientedPoint;
 import com.agateau.pixelwheels.vehicledef.VehicleCreator;
 import com.agateau.pixelwheels.vehicledef.VehicleDef;
 import com.agateau.utils.Assert;
+import com.agateau.utils.log.NLog;
+import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.maps.MapObject;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.RandomXS128;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.Contact;
 import com.badlogic.gdx.physics.box2d.ContactImpulse;
@@ -53,13 +73,20 @@ import com.badlogic.gdx.physics.box2d.Manifold;
 import com.badlogic.gdx.physics.box2d.World;
 import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.IntMap;
+import com.badlogic.gdx.utils.ObjectMap;
 import com.badlogic.gdx.utils.PerformanceCounter;
 import com.badlogic.gdx.utils.PerformanceCounters;
-import com.badlogic.gdx.utils.Sort;
-import java.util.Comparator;
+import com.badlogic.gdx.utils.Pool;
+import com.badlogic.gdx.utils.ReflectionPool;
 
 public class GameWorldImpl implements ContactListener, Disposable, GameWorld {
-    private final PwGame mGame;
+    private final Assets mAssets;
+    private final AudioManager mAudioManager;
+    private final GameStats mGameStats;
+    private final GameConfig mGameConfig;
+    private final GamePlay mGamePlay;
     private Track mTrack;
     private final CountDown mCountDown;
 
@@ -70,27 +97,84 @@ public class GameWorldImpl implements ContactListener, Disposable, GameWorld {
 
     private final Array<Racer> mRacers = new Array<>();
     private final Array<Racer> mPlayerRacers = new Array<>();
+    private final RacerSpatialIndex mRacerSpatialIndex = new RacerSpatialIndex();
+    private final WaypointVisibilityCache mWaypointVisibilityCache;
+    private final AIPerceptionScheduler mAIPerceptionScheduler;
     private State mState = GameWorld.State.COUNTDOWN;
 
     private final Array<GameObject> mActiveGameObjects = new Array<>();
+    private final ZLevelBuckets mZLevelBuckets = new ZLevelBuckets();
+    private final ObjectMap<Class, Pool> mObjectPools = new ObjectMap<>();
+
+    private final RacerRanking mRacerRanking = new RacerRanking();
+    private final RandomXS128 mRandom = new RandomXS128();
+    private long mSeed;
+    private int mStepCount = 0;
+
+    private final Array<GameInfo.Entrant> mEntrants;
+    private final IntMap<InputRecorder> mInputRecorders = new IntMap<>();
+    private Replay mPlayedReplay = null;
+    private GhostRecorder mGhostRecorder = null;
 
     private final PerformanceCounter mBox2DPerformanceCounter;
     private final PerformanceCounter mGameObjectPerformanceCounter;
 
     GameWorldImpl(PwGame game, GameInfo gameInfo, PerformanceCounters performanceCounters) {
-        mGame = game;
+        this(
+                game.getAssets(),
+                game.getAudioManager(),
+                game.getGameStats(),
+                game.getConfig(),
+                GamePlay.instance,
+                gameInfo,
+                performanceCounters);
+    }
+
+    /**
+     * Creates a world which does not depend on PwGame, so that it can be used outside of the game
+     * screens, for example to run races without rendering them.
+     *
+     * <p>gameConfig is only used to create the input handlers of players, it can be null if all
+     * entrants are AI, or if the world is used to play a replay.
+     *
+     * <p>The simulation reads its settings from gamePlay instead of GamePlay.instance, so that
+     * worlds running in parallel can be tuned independently. gamePlay must not be modified while
+     * the world is running.
+     */
+    public GameWorldImpl(
+            Assets assets,
+            AudioManager audioManager,
+            GameStats gameStats,
+            GameConfig gameConfig,
+            GamePlay gamePlay,
+            GameInfo gameInfo,
+            PerformanceCounters performanceCounters) {
+        mAssets = assets;
+        mAudioManager = audioManager;
+        mGameStats = gameStats;
+        mGameConfig = gameConfig;
+        mGamePlay = gamePlay;
+        mAIPerceptionScheduler = new AIPerceptionScheduler(mGamePlay.aiPerceptionRate);
         mBox2DWorld = new World(new Vector2(0, 0), true);
         mBox2DWorld.setContactListener(this);
         mTrack = gameInfo.getTrack();
         mTrack.init();
-        mCountDown = new CountDown(this, game.getAudioManager(), game.getAssets().soundAtlas);
+        mCountDown = new CountDown(this, mAudioManager, mAssets.soundAtlas);
 
         mBox2DPerformanceCounter = performanceCounters.add("- box2d");
         mGameObjectPerformanceCounter = performanceCounters.add("- g.o");
-        setupRacers(gameInfo.getEntrants());
+        // Use the shared generator to pick the seed, races are only reproducible if setSeed() is
+        // called
+        setSeed(MathUtils.random.nextLong());
+        mEntrants = new Array<>(gameInfo.getEntrants());
+        setupRacers(mEntrants);
+        mRacerRanking.update(mRacers);
+        setupGhost();
         setupObstacles();
         setupBonusSpots();
         setupBonusPools();
+        mRacerSpatialIndex.update(mRacers);
+        mWaypointVisibilityCache = createWaypointVisibilityCache();
     }
 
     @Override
@@ -98,6 +182,11 @@ public class GameWorldImpl implements ContactListener, Disposable, GameWorld {
         return mTrack;
     }
 
+    @Override
+    public GamePlay getGamePlay() {
+        return mGamePlay;
+    }
+
     @Override
     public World getBox2DWorld() {
         return mBox2DWorld;
@@ -118,6 +207,16 @@ public class GameWorldImpl implements ContactListener, Disposable, GameWorld {
         return mRacers;
     }
 
+    @Override
+    public RacerSpatialIndex getRacerSpatialIndex() {
+        return mRacerSpatialIndex;
+    }
+
+    @Override
+    public WaypointVisibilityCache getWaypointVisibilityCache() {
+        return mWaypointVisibilityCache;
+    }
+
     @Override
     public Array<BonusPool> getBonusPools() {
         return mBonusPools;
@@ -128,9 +227,26 @@ public class GameWorldImpl implements ContactListener, Disposable, GameWorld {
         return mActiveGameObjects;
     }
 
+    @Override
+    public ZLevelBuckets getZLevelBuckets() {
+        return mZLevelBuckets;
+    }
+
     @Override
     public void addGameObject(GameObject object) {
         mActiveGameObjects.add(object);
+        mZLevelBuckets.add(object);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> Pool<T> getObjectPool(Class<T> type) {
+        Pool<T> pool = mObjectPools.get(type);
+        if (pool == null) {
+            pool = new ReflectionPool<>(type);
+            mObjectPools.put(type, pool);
+        }
+        return pool;
     }
 
     @Override
@@ -140,12 +256,7 @@ public class GameWorldImpl implements ContactListener, Disposable, GameWorld {
 
     @Override
     public int getRacerRank(Racer racer) {
-        for (int idx = mRacers.size - 1; idx >= 0; --idx) {
-            if (mRacers.get(idx) == racer) {
-                return idx + 1;
-            }
-        }
-        return -1;
+        return racer.getRank();
     }
 
     /**
@@ -162,50 +273,95 @@ public class GameWorldImpl implements ContactListener, Disposable, GameWorld {
 
     @Override
     public GameStats getGameStats() {
-        return mGame.getGameStats();
+        return mGameStats;
+    }
+
+    @Override
+    public RandomXS128 getRandom() {
+        return mRandom;
     }
 
     /**
-     * Sort racers, listing racers which have driven the longest first, so it returns 1 if racer1
-     * has driven less than racer2
+     * Seeds the random generator of the world. Two worlds created from the same GameInfo, seeded
+     * with the same seed and receiving the same inputs run exactly the same race.
+     *
+     * <p>Must be called before the first call to act().
      */
-    private static final Comparator<Racer> sRacerComparator =
-            (racer1, racer2) -> {
-                LapPositionComponent c1 = racer1.getLapPositionComponent();
-                LapPositionComponent c2 = racer2.getLapPositionComponent();
-                if (!c1.hasFinishedRace() && c2.hasFinishedRace()) {
-                    return 1;
-                }
-                if (c1.hasFinishedRace() && !c2.hasFinishedRace()) {
-                    return -1;
-                }
-                if (c1.getLapCount() < c2.getLapCount()) {
-                    return 1;
-                }
-                if (c1.getLapCount() > c2.getLapCount()) {
-                    return -1;
-                }
-                float d1 = c1.getLapDistance();
-                float d2 = c2.getLapDistance();
-                return Float.compare(d2, d1);
-            };
+    public void setSeed(long seed) {
+        Assert.check(mStepCount == 0, "The seed must be set before the race starts");
+        mSeed = seed;
+        mRandom.setSeed(seed);
+    }
+
+    /**
+     * Returns a replay of the race so far. The inputs of all players are recorded from the start of
+     * the race.
+     */
+    public Replay createReplay() {
+        Replay replay = new Replay(mTrack.getId(), mSeed);
+        for (GameInfo.Entrant entrant : mEntrants) {
+            Replay.Entrant replayEntrant;
+            if (entrant.isPlayer()) {
+                int playerIndex = ((GameInfo.Player) entrant).getIndex();
+                byte[] inputs = mInputRecorders.get(playerIndex).toByteArray();
+                replayEntrant = new Replay.Entrant(entrant.getVehicleId(), playerIndex, inputs);
+            } else {
+                replayEntrant = new Replay.Entrant(entrant.getVehicleId(), -1, null);
+            }
+            replay.getEntrants().add(replayEntrant);
+        }
+        return replay;
+    }
+
+    /**
+     * Makes the players drive using the inputs recorded in replay, so that the world runs the
+     * recorded race again. The world must have been created from replay.createGameInfo(), and the
+     * race must not have started.
+     */
+    public void startPlayback(Replay replay) {
+        Assert.check(
+                replay.getTrackId().equals(mTrack.getId()),
+                "Replay has been recorded on " + replay.getTrackId());
+        setSeed(replay.getSeed());
+        for (Racer racer : mPlayerRacers) {
+            GameInfo.Player player = (GameInfo.Player) racer.getEntrant();
+            Replay.Entrant entrant = replay.findPlayerEntrant(player.getIndex());
+            Assert.check(entrant != null, "No inputs for player " + player.getIndex());
+            PlayerPilot pilot = (PlayerPilot) racer.getPilot();
+            pilot.setReplayInputHandler(new ReplayInputHandler(entrant.inputs));
+        }
+        mPlayedReplay = replay;
+    }
+
+    public boolean isPlayingReplay() {
+        return mPlayedReplay != null;
+    }
 
     @Override
     public void act(float delta) {
-        mCountDown.act(delta);
-        mBox2DPerformanceCounter.start();
         // fixed time step
         // max frame time to avoid spiral of death (on slow devices)
         float frameTime = Math.min(delta, 0.25f);
         mTimeAccumulator += frameTime;
         while (mTimeAccumulator >= GameWorld.BOX2D_TIME_STEP) {
-            mBox2DWorld.step(
-                    GameWorld.BOX2D_TIME_STEP,
-                    GameWorld.VELOCITY_ITERATIONS,
-                    GameWorld.POSITION_ITERATIONS);
+            step();
             mTimeAccumulator -= GameWorld.BOX2D_TIME_STEP;
         }
+    }
+
+    /**
+     * Advances the simulation by BOX2D_TIME_STEP. Everything which affects the race must happen
+     * here, and not in act(), otherwise the race would depend on the frame rate.
+     */
+    private void step() {
+        final float delta = GameWorld.BOX2D_TIME_STEP;
+        ++mStepCount;
+        mCountDown.act(delta);
+        mBox2DPerformanceCounter.start();
+        mBox2DWorld.step(delta, GameWorld.VELOCITY_ITERATIONS, GameWorld.POSITION_ITERATIONS);
         mBox2DPerformanceCounter.stop();
+        mRacerSpatialIndex.update(mRacers);
+        mAIPerceptionScheduler.act();
 
         mGameObjectPerformanceCounter.start();
         for (int idx = mActiveGameObjects.size - 1; idx >= 0; --idx) {
@@ -213,6 +369,7 @@ public class GameWorldImpl implements ContactListener, Disposable, GameWorld {
             obj.act(delta);
             if (obj.isFinished()) {
                 mActiveGameObjects.removeIndex(idx);
+                mZLevelBuckets.remove(obj);
                 if (obj instanceof Disposable) {
                     ((Disposable) obj).dispose();
                 }
@@ -220,18 +377,16 @@ public class GameWorldImpl implements ContactListener, Disposable, GameWorld {
         }
         mGameObjectPerformanceCounter.stop();
 
-        // Skip finished racers so that they keep the position they had when they crossed the finish
-        // line, even if they continue a bit after it
-        int fromIndex;
-        for (fromIndex = 0; fromIndex < mRacers.size; ++fromIndex) {
-            if (!mRacers.get(fromIndex).getLapPositionComponent().hasFinishedRace()) {
-                break;
-            }
+        if (mGhostRecorder != null) {
+            mGhostRecorder.act();
         }
-        Sort.instance().sort(mRacers.items, sRacerComparator, fromIndex, mRacers.size);
 
+        mRacerRanking.update(mRacers);
+
+        // Races without players, such as headless ones, are over when all the AI racers are done
+        Array<Racer> watchedRacers = mPlayerRacers.size > 0 ? mPlayerRacers : mRacers;
         boolean allFinished = true;
-        for (Racer racer : mPlayerRacers) {
+        for (Racer racer : watchedRacers) {
             if (!racer.getLapPositionComponent().hasFinishedRace()) {
                 allFinished = false;
                 break;
@@ -243,7 +398,10 @@ public class GameWorldImpl implements ContactListener, Disposable, GameWorld {
     }
 
     private void onFinished() {
-        TrackStats stats = mGame.getGameStats().getTrackStats(mTrack);
+        if (mGhostRecorder != null && mPlayedReplay == null) {
+            saveGhost();
+        }
+
         for (int idx = 0; idx < mRacers.size; ++idx) {
             Racer racer = mRacers.get(idx);
             racer.markRaceFinished();
@@ -255,7 +413,9 @@ public class GameWorldImpl implements ContactListener, Disposable, GameWorld {
             LapPositionComponent lapPositionComponent = racer.getLapPositionComponent();
             entrant.addRaceTime(lapPositionComponent.getTotalTime());
 
-            if (entrant.isPlayer()) {
+            // Headless races have no stats, and replays must not record the race a second time
+            if (entrant.isPlayer() && mGameStats != null && mPlayedReplay == null) {
+                TrackStats stats = mGameStats.getTrackStats(mTrack);
                 Racer.RecordRanks ranks = racer.getRecordRanks();
                 // TODO find another way to get the name
                 String name = racer.getVehicle().getName();
@@ -272,66 +432,102 @@ public class GameWorldImpl implements ContactListener, Disposable, GameWorld {
     }
 
     private void setupRacers(Array<GameInfo.Entrant> entrants) {
-        VehicleCreator creator = new VehicleCreator(mGame.getAssets(), this);
-        Assets assets = mGame.getAssets();
+        VehicleCreator creator = new VehicleCreator(mAssets, this);
 
-        final float startAngle = 90;
-        Array<Vector2> positions = mTrack.findStartTilePositions();
-        positions.reverse();
+        Array<OrientedPoint> positions = mTrack.findStartPositions(entrants.size);
 
-        AudioManager audioManager = mGame.getAudioManager();
         for (int idx = 0; idx < entrants.size; ++idx) {
-            Assert.check(idx < positions.size, "Too many entrants");
             GameInfo.Entrant entrant = entrants.get(idx);
-            VehicleDef vehicleDef = assets.findVehicleDefById(entrant.getVehicleId());
-            Vehicle vehicle = creator.create(vehicleDef, positions.get(idx), startAngle);
-            Racer racer = new Racer(assets, audioManager, this, vehicle, entrant);
+            VehicleDef vehicleDef = mAssets.findVehicleDefById(entrant.getVehicleId());
+            OrientedPoint position = positions.get(idx);
+            Vehicle vehicle =
+                    creator.create(vehicleDef, new Vector2(position.x, position.y), position.angle);
+            Racer racer = new Racer(mAssets, mAudioManager, this, vehicle, entrant);
             if (entrant.isPlayer()) {
                 GameInfo.Player player = (GameInfo.Player) entrant;
                 PlayerPilot pilot =
-                        new PlayerPilot(assets, this, racer, mGame.getConfig(), player.getIndex());
+                        new PlayerPilot(mAssets, this, racer, mGameConfig, player.getIndex());
+                InputRecorder recorder = new InputRecorder();
+                pilot.setInputRecorder(recorder);
+                mInputRecorders.put(player.getIndex(), recorder);
                 racer.setPilot(pilot);
                 mPlayerRacers.add(racer);
             } else {
-                racer.setPilot(new AIPilot(this, mTrack, racer));
+                AIPilot pilot = new AIPilot(this, mTrack, racer);
+                mAIPerceptionScheduler.addPilot(pilot);
+                racer.setPilot(pilot);
             }
             addGameObject(racer);
             mRacers.add(racer);
         }
     }
 
+    /** Ghosts are only used when a single player races, to let them race against their best lap */
+    private void setupGhost() {
+        if (mGameStats == null || mPlayerRacers.size != 1) {
+            return;
+        }
+        Racer racer = mPlayerRacers.first();
+        mGhostRecorder = new GhostRecorder(racer);
+        addGameObject(new GhostRacer(mAssets, GhostIO.getFile(mTrack.getId()), racer));
+    }
+
+    private void saveGhost() {
+        GhostLap lap = mGhostRecorder.getBestLap();
+        if (lap == null) {
+            return;
+        }
+        FileHandle file = GhostIO.getFile(mTrack.getId());
+        GhostLap previousLap = GhostIO.read(file);
+        if (previousLap != null && previousLap.getLapTime() <= lap.getLapTime()) {
+            return;
+        }
+        try {
+            GhostIO.write(lap, file);
+        } catch (GdxRuntimeException e) {
+            NLog.e("Failed to save ghost: %s", e);
+        }
+    }
+
     private void setupObstacles() {
         ObstacleCreator creator = new ObstacleCreator();
-        for (ObstacleDef def : mGame.getAssets().obstacleDefs) {
+        for (ObstacleDef def : mAssets.obstacleDefs) {
             creator.addObstacleDef(def);
         }
 
         for (MapObject object : mTrack.getObstacleObjects()) {
-            creator.create(this, mGame.getAssets(), object);
+            creator.create(this, mAssets, object);
+        }
+    }
+
+    private WaypointVisibilityCache createWaypointVisibilityCache() {
+        // AIPilot casts rays from both sides of the vehicles
+        float margin = 0;
+        for (Racer racer : mRacers) {
+            margin = Math.max(margin, racer.getVehicle().getHeight() / 2);
         }
+        return new WaypointVisibilityCache(this, margin);
     }
 
     private void setupBonusSpots() {
         for (Vector2 pos : mTrack.findBonusSpotPositions()) {
-            BonusSpot spot =
-                    new BonusSpot(mGame.getAssets(), mGame.getAudioManager(), this, pos.x, pos.y);
+            BonusSpot spot = new BonusSpot(mAssets, mAudioManager, this, pos.x, pos.y);
             addGameObject(spot);
         }
     }
 
     private void setupBonusPools() {
         addPool(
-                new BonusPool<>(GunBonus.class, mGame.getAssets(), this, mGame.getAudioManager()),
+                new BonusPool<>(GunBonus.class, mAssets, this, mAudioManager),
                 new float[] {0.2f, 1.0f, 1.0f});
         addPool(
-                new BonusPool<>(MineBonus.class, mGame.getAssets(), this, mGame.getAudioManager()),
+                new BonusPool<>(MineBonus.class, mAssets, this, mAudioManager),
                 new float[] {2.0f, 1.0f, 0.5f});
         addPool(
-                new BonusPool<>(TurboBonus.class, mGame.getAssets(), this, mGame.getAudioManager()),
+                new BonusPool<>(TurboBonus.class, mAssets, this, mAudioManager),
                 new float[] {0.1f, 1.0f, 2.0f});
         addPool(
-                new BonusPool<>(
-                        MissileBonus.class, mGame.getAssets(), this, mGame.getAudioManager()),
+                new BonusPool<>(MissileBonus.class, mAssets, this, mAudioManager),
                 new float[] {0.2f, 1.0f, 1.0f});
     }
 
@@ -420,6 +616,21 @@ public class GameWorldImpl implements ContactListener, Disposable, GameWorld {
             }
         }
         mActiveGameObjects.clear();
+        mZLevelBuckets.clear();
+        disposeObjectPools();
+    }
+
+    /** Releases the resources held by the pooled objects, which are all back in their pools */
+    private void disposeObjectPools() {
+        for (Pool<?> pool : mObjectPools.values()) {
+            while (pool.getFree() > 0) {
+                Object object = pool.obtain();
+                if (object instanceof PooledResourceHolder) {
+                    ((PooledResourceHolder) object).disposeResources();
+                }
+            }
+        }
+        mObjectPools.clear();
     }
 
     void forgetTrack() {
@@ -22,9 +22,11 @@ import static com.agateau.pixelwheels.utils.BodyRegionDrawer.SHADOW_ALPHA;
 
 import com.agateau.pixelwheels.Assets;
 import com.agateau.pixelwheels.Constants;
+import com.agateau.pixelwheels.GameWorld;
 import com.agateau.pixelwheels.ZLevel;
 import com.agateau.pixelwheels.gameobjet.AudioClipper;
 import com.agateau.pixelwheels.gameobjet.GameObjectAdapter;
+import com.agateau.pixelwheels.gameobjet.PooledResourceHolder;
 import com.agateau.pixelwheels.map.Track;
 import com.agateau.pixelwheels.sound.AudioManager;
 import com.agateau.pixelwheels.sound.SoundPlayer;
@@ -42,10 +44,10 @@ import com.badlogic.gdx.math.Matrix4;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.utils.Disposable;
 import com.badlogic.gdx.utils.Pool;
-import com.badlogic.gdx.utils.ReflectionPool;
 
 /** The rescue helicopter which comes to pick up fallen vehicles */
-public class Helicopter extends GameObjectAdapter implements Pool.Poolable, Disposable {
+public class Helicopter extends GameObjectAdapter
+        implements Pool.Poolable, Disposable, PooledResourceHolder {
     private static final float SHADOW_OFFSET = 80;
     private static final Vector2 BODY_CENTER = new Vector2(30, (111 - 35));
     private static final float PROPELLER_SPEED = -720;
@@ -61,8 +63,7 @@ public class Helicopter extends GameObjectAdapter implements Pool.Poolable, Disp
         LEAVING
     }
 
-    private static final ReflectionPool<Helicopter> sPool = new ReflectionPool<>(Helicopter.class);
-
+    private GameWorld mGameWorld;
     private SoundPlayer mSoundPlayer;
     private FrameBuffer mFrameBuffer;
     private SpriteBatch mFrameBufferBatch;
@@ -82,12 +83,15 @@ public class Helicopter extends GameObjectAdapter implements Pool.Poolable, Disp
     public static Helicopter create(
             Assets assets,
             AudioManager audioManager,
-            Track track,
+            GameWorld gameWorld,
             Vector2 vehiclePosition,
             float vehicleAngle) {
-        Helicopter object = sPool.obtain();
+        Helicopter object = gameWorld.getObjectPool(Helicopter.class).obtain();
+        object.mGameWorld = gameWorld;
         object.setFinished(false);
 
+        Track track = gameWorld.getTrack();
+
         float height = Constants.UNIT_FOR_PIXEL * assets.helicopterBody.getRegionHeight();
         float mapHeight = track.getMapHeight() * track.getTileHeight();
 
@@ -98,6 +102,11 @@ public class Helicopter extends GameObjectAdapter implements Pool.Poolable, Disp
         object.mBodyRegion = assets.helicopterBody;
         object.mPropellerRegion = assets.helicopterPropeller;
         object.mPropellerTopRegion = assets.helicopterPropellerTop;
+        // Gdx.graphics is null when running headless, without an OpenGL context. Creating the
+        // frame buffer here rather than in draw() keeps it out of the game batch.
+        if (object.mFrameBuffer == null && Gdx.graphics != null) {
+            object.createFrameBuffer();
+        }
         object.mPosition.set(vehiclePosition.x, -height);
         object.mAngle = 0;
         object.mStartPosition.set(object.mPosition);
@@ -108,20 +117,6 @@ public class Helicopter extends GameObjectAdapter implements Pool.Poolable, Disp
         object.mTime = 0;
         object.mState = State.ARRIVING;
 
-        if (object.mFrameBuffer == null) {
-            int bufferWidth = object.mPropellerRegion.getRegionWidth();
-            int bufferHeight = object.mPropellerRegion.getRegionHeight() / 2 + (int) BODY_CENTER.y;
-            object.mFrameBuffer =
-                    new FrameBuffer(
-                            Pixmap.Format.RGBA8888,
-                            bufferWidth,
-                            bufferHeight,
-                            false /* hasDepth */);
-            object.mFrameBufferBatch = new SpriteBatch();
-            object.mFrameBufferBatch.setProjectionMatrix(
-                    new Matrix4().setToOrtho2D(0, 0, bufferWidth, bufferHeight));
-        }
-
         return object;
     }
 
@@ -130,7 +125,17 @@ public class Helicopter extends GameObjectAdapter implements Pool.Poolable, Disp
 
     @Override
     public void dispose() {
-        sPool.free(this);
+        mGameWorld.getObjectPool(Helicopter.class).free(this);
+    }
+
+    @Override
+    public void disposeResources() {
+        if (mFrameBuffer != null) {
+            mFrameBuffer.dispose();
+            mFrameBufferBatch.dispose();
+            mFrameBuffer = null;
+            mFrameBufferBatch = null;
+        }
     }
 
     public boolean isReadyToRecover() {
@@ -160,7 +165,9 @@ public class Helicopter extends GameObjectAdapter implements Pool.Poolable, Disp
     @Override
     public void act(float delta) {
         mTime += delta;
-        updateFrameBuffer();
+        if (mFrameBuffer != null) {
+            updateFrameBuffer();
+        }
         switch (mState) {
             case ARRIVING:
                 actArriving(delta);
@@ -218,8 +225,18 @@ public class Helicopter extends GameObjectAdapter implements Pool.Poolable, Disp
         mAngle = MathUtils.lerp(mStartAngle, mEndAngle, progress);
     }
 
+    private static final ZLevel[] Z_LEVELS = {ZLevel.SHADOWS, ZLevel.FLYING};
+
+    @Override
+    public ZLevel[] getZLevels() {
+        return Z_LEVELS;
+    }
+
     @Override
     public void draw(Batch batch, ZLevel zLevel) {
+        if (mFrameBuffer == null) {
+            return;
+        }
         if (zLevel == ZLevel.SHADOWS) {
             Color old = batch.getColor();
             batch.setColor(0, 0, 0, SHADOW_ALPHA);
@@ -231,6 +248,17 @@ public class Helicopter extends GameObjectAdapter implements Pool.Poolable, Disp
         }
     }
 
+    private void createFrameBuffer() {
+        int bufferWidth = mPropellerRegion.getRegionWidth();
+        int bufferHeight = mPropellerRegion.getRegionHeight() / 2 + (int) BODY_CENTER.y;
+        mFrameBuffer =
+                new FrameBuffer(
+                        Pixmap.Format.RGBA8888, bufferWidth, bufferHeight, false /* hasDepth */);
+        mFrameBufferBatch = new SpriteBatch();
+        mFrameBufferBatch.setProjectionMatrix(
+                new Matrix4().setToOrtho2D(0, 0, bufferWidth, bufferHeight));
+    }
+
     @SuppressWarnings("SuspiciousNameCombination")
     private void updateFrameBuffer() {
         final float w = mBodyRegion.getRegionWidth();
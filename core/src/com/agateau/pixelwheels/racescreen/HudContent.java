@@ -23,6 +23,7 @@ import com.agateau.pixelwheels.GameWorld;
 import com.agateau.pixelwheels.debug.DebugStringMap;
 import com.agateau.pixelwheels.racer.Racer;
 import com.agateau.pixelwheels.utils.StringUtils;
+import com.agateau.ui.GlyphLabel;
 import com.agateau.ui.anchor.Anchor;
 import com.agateau.ui.anchor.AnchorGroup;
 import com.badlogic.gdx.Gdx;
@@ -44,9 +45,9 @@ public class HudContent {
     private final Hud mHud;
     private PerformanceCounters mPerformanceCounters = null;
 
-    private final Array<Label> mRankLabels = new Array<>();
-    private final Array<Label> mLapLabels = new Array<>();
-    private final Label mCountDownLabel;
+    private final Array<GlyphLabel> mRankLabels = new Array<>();
+    private final Array<GlyphLabel> mLapLabels = new Array<>();
+    private final GlyphLabel mCountDownLabel;
     private Label mDebugLabel = null;
 
     private final StringBuilder mStringBuilder = new StringBuilder();
@@ -61,7 +62,7 @@ public class HudContent {
 
         createPlayerLabels(root);
 
-        mCountDownLabel = new Label("", skin, "hudCountDown");
+        mCountDownLabel = new GlyphLabel(skin, "hudCountDown");
         mCountDownLabel.setAlignment(Align.bottom);
 
         root.addPositionRule(mCountDownLabel, Anchor.BOTTOM_CENTER, root, Anchor.CENTER);
@@ -77,10 +78,10 @@ public class HudContent {
 
         boolean singlePlayer = mGameWorld.getPlayerRacers().size == 1;
         for (int idx = 0; idx < playerCount; ++idx) {
-            Label rankLabel = new Label("", skin, singlePlayer ? "hudRank" : "smallHudRank");
+            GlyphLabel rankLabel = new GlyphLabel(skin, singlePlayer ? "hudRank" : "smallHudRank");
             rankLabel.setAlignment(Align.right);
 
-            Label lapLabel = new Label("", skin, singlePlayer ? "hud" : "smallHud");
+            GlyphLabel lapLabel = new GlyphLabel(skin, singlePlayer ? "hud" : "smallHud");
             lapLabel.setAlignment(Align.right);
 
             root.addPositionRule(rankLabel, Anchor.TOP_RIGHT, topEdge, topAnchor, hMargin, 0);
@@ -123,8 +124,8 @@ public class HudContent {
         int idx = 0;
         boolean singlePlayer = mGameWorld.getPlayerRacers().size == 1;
         for (Racer racer : mGameWorld.getPlayerRacers()) {
-            Label lapLabel = mLapLabels.get(idx);
-            Label rankLabel = mRankLabels.get(idx);
+            GlyphLabel lapLabel = mLapLabels.get(idx);
+            GlyphLabel rankLabel = mRankLabels.get(idx);
 
             int lapCount = Math.max(racer.getLapPositionComponent().getLapCount(), 1);
             int totalLapCount = mGameWorld.getTrack().getTotalLapCount();
@@ -159,8 +160,13 @@ public class HudContent {
 
         mCountDownLabel.setColor(1, 1, 1, alpha);
 
-        String text = count > 0 ? String.valueOf(count) : "GO!";
-        mCountDownLabel.setText(text);
+        mStringBuilder.setLength(0);
+        if (count > 0) {
+            mStringBuilder.append(count);
+        } else {
+            mStringBuilder.append("GO!");
+        }
+        mCountDownLabel.setText(mStringBuilder);
     }
 
     private static final StringBuilder sDebugSB = new StringBuilder();
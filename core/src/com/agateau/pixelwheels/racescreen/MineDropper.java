@@ -50,6 +50,13 @@ class MineDropper extends GameObjectAdapter {
         }
     }
 
+    private static final ZLevel[] Z_LEVELS = {};
+
+    @Override
+    public ZLevel[] getZLevels() {
+        return Z_LEVELS;
+    }
+
     @Override
     public void draw(Batch batch, ZLevel zLevel) {}
 
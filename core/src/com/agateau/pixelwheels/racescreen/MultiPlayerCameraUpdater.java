@@ -24,6 +24,12 @@ import com.agateau.pixelwheels.GameWorld;
 import com.agateau.pixelwheels.racer.Racer;
 import com.badlogic.gdx.math.Vector2;
 
+/**
+ * Moves and zooms the camera so that all player vehicles are visible.
+ *
+ * <p>Players share the screen instead of getting one viewport each: the world is rendered once per
+ * frame whatever the number of players.
+ */
 class MultiPlayerCameraUpdater extends CameraUpdater {
     MultiPlayerCameraUpdater(GameWorld world) {
         super(world);
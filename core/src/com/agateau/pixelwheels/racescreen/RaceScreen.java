@@ -21,6 +21,7 @@ package com.agateau.pixelwheels.racescreen;
 import com.agateau.pixelwheels.GamePlay;
 import com.agateau.pixelwheels.GameWorld;
 import com.agateau.pixelwheels.PwGame;
+import com.agateau.pixelwheels.debug.AllocationProfiler;
 import com.agateau.pixelwheels.debug.Debug;
 import com.agateau.pixelwheels.debug.DebugShapeMap;
 import com.agateau.pixelwheels.gameinput.GameInputHandlerFactories;
@@ -32,23 +33,30 @@ import com.agateau.pixelwheels.racer.Pilot;
 import com.agateau.pixelwheels.racer.PlayerPilot;
 import com.agateau.pixelwheels.racer.Racer;
 import com.agateau.pixelwheels.racer.RacerDebugShape;
+import com.agateau.pixelwheels.replay.Replay;
+import com.agateau.pixelwheels.replay.ReplayIO;
 import com.agateau.pixelwheels.screens.ConfigScreen;
 import com.agateau.pixelwheels.screens.PwStageScreen;
+import com.agateau.utils.FileUtils;
 import com.agateau.utils.log.NLog;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.Input;
 import com.badlogic.gdx.ScreenAdapter;
+import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.GL20;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.scenes.scene2d.InputEvent;
 import com.badlogic.gdx.scenes.scene2d.Stage;
 import com.badlogic.gdx.scenes.scene2d.utils.ClickListener;
+import com.badlogic.gdx.utils.GdxRuntimeException;
 import com.badlogic.gdx.utils.PerformanceCounter;
 import com.badlogic.gdx.utils.PerformanceCounters;
 import com.badlogic.gdx.utils.viewport.ScreenViewport;
 
 public class RaceScreen extends ScreenAdapter {
+    private static final String ALLOCATIONS_FILE_NAME = "allocations.csv";
+
     public interface Listener {
         void onRestartPressed();
 
@@ -81,6 +89,10 @@ public class RaceScreen extends ScreenAdapter {
     private final PerformanceCounter mGameWorldPerformanceCounter;
     private final PerformanceCounter mRendererPerformanceCounter;
     private final PerformanceCounter mOverallPerformanceCounter;
+    private final AllocationProfiler mAllocationProfiler;
+    private final AllocationProfiler.Section mGameWorldAllocationSection;
+    private final AllocationProfiler.Section mRendererAllocationSection;
+    private final AllocationProfiler.Section mOverallAllocationSection;
     private PauseOverlay mPauseOverlay = null;
 
     private boolean mFirstRender = true;
@@ -101,11 +113,17 @@ public class RaceScreen extends ScreenAdapter {
         mBackgroundColor = gameInfo.getTrack().getBackgroundColor();
         mRendererPerformanceCounter = mPerformanceCounters.add("Renderer");
 
+        mAllocationProfiler = new AllocationProfiler(Debug.instance.profileAllocations);
+        mOverallAllocationSection = mAllocationProfiler.add("RaceScreen.render");
+        mGameWorldAllocationSection = mAllocationProfiler.add("GameWorld.act");
+        mRendererAllocationSection = mAllocationProfiler.add("GameRenderer.render");
+
         SpriteBatch batch = new SpriteBatch();
         mHudStage = new Stage(mHudViewport, batch);
         mHudStage.setDebugAll(Debug.instance.showHudDebugLines);
 
-        mGameRenderer = new GameRenderer(mGameWorld, batch, mPerformanceCounters);
+        mGameRenderer =
+                new GameRenderer(mGame.getAssets(), mGameWorld, batch, mPerformanceCounters);
         setupHud(mGameWorld.getTrack());
 
         mAudioClipper = createAudioClipper();
@@ -179,11 +197,14 @@ public class RaceScreen extends ScreenAdapter {
         }
         boolean paused = mPauseOverlay != null;
 
+        mOverallAllocationSection.start();
         mOverallPerformanceCounter.start();
         mGameWorldPerformanceCounter.start();
         if (!paused) {
             GameWorld.State oldState = mGameWorld.getState();
+            mGameWorldAllocationSection.start();
             mGameWorld.act(delta);
+            mGameWorldAllocationSection.stop();
             GameWorld.State newState = mGameWorld.getState();
             if (newState == GameWorld.State.FINISHED && oldState != newState) {
                 onFinished();
@@ -194,7 +215,9 @@ public class RaceScreen extends ScreenAdapter {
         mRendererPerformanceCounter.start();
         Gdx.gl.glClearColor(mBackgroundColor.r, mBackgroundColor.g, mBackgroundColor.b, 1);
         Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
+        mRendererAllocationSection.start();
         mGameRenderer.render(delta);
+        mRendererAllocationSection.stop();
 
         for (GameObject gameObject : mGameWorld.getActiveGameObjects()) {
             gameObject.audioRender(mAudioClipper);
@@ -220,9 +243,11 @@ public class RaceScreen extends ScreenAdapter {
         mHudStage.act(delta);
 
         mOverallPerformanceCounter.stop();
+        mOverallAllocationSection.stop();
         if (!paused) {
             mPerformanceCounters.tick(delta);
         }
+        mAllocationProfiler.tick(delta);
     }
 
     private boolean isPauseKeyPressed() {
@@ -246,11 +271,30 @@ public class RaceScreen extends ScreenAdapter {
         mHudViewport.update(width, height, true);
     }
 
+    /**
+     * Plays replay, which must have been recorded with the GameInfo this screen was created with
+     */
+    public void startPlayback(Replay replay) {
+        mGameWorld.startPlayback(replay);
+    }
+
     private void onFinished() {
+        if (!mGameWorld.isPlayingReplay()) {
+            saveReplay();
+        }
         FinishedOverlay overlay = new FinishedOverlay(mGame, mListener, mGameWorld.getRacers());
         mHudStage.addActor(overlay);
     }
 
+    private void saveReplay() {
+        FileHandle file = FileUtils.getUserWritableFile(ReplayIO.LAST_RACE_FILE_NAME);
+        try {
+            ReplayIO.write(mGameWorld.createReplay(), file);
+        } catch (GdxRuntimeException e) {
+            NLog.e("Failed to save replay: %s", e);
+        }
+    }
+
     private void pauseRace() {
         mGame.getAudioManager().setMuted(true);
         mPauseOverlay = new PauseOverlay(mGame, this);
@@ -295,6 +339,12 @@ public class RaceScreen extends ScreenAdapter {
     @Override
     public void dispose() {
         super.dispose();
+        if (mAllocationProfiler.isEnabled()) {
+            FileHandle file = FileUtils.getUserWritableFile(ALLOCATIONS_FILE_NAME);
+            NLog.i("Writing allocations to %s", file.path());
+            mAllocationProfiler.writeCsv(file);
+        }
+        mGameRenderer.dispose();
         mGameWorld.dispose();
     }
 
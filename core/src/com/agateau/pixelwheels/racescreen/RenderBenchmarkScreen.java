@@ -0,0 +1,174 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.racescreen;
+
+import com.agateau.pixelwheels.Assets;
+import com.agateau.pixelwheels.GamePlay;
+import com.agateau.pixelwheels.GameWorld;
+import com.agateau.pixelwheels.PwGame;
+import com.agateau.pixelwheels.headless.HeadlessRaceRunner;
+import com.agateau.pixelwheels.map.Track;
+import com.agateau.pixelwheels.replay.Replay;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.ScreenAdapter;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.glutils.FrameBuffer;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.PerformanceCounter;
+import com.badlogic.gdx.utils.PerformanceCounters;
+
+/**
+ * Renders a race into an offscreen frame buffer as fast as possible, then prints percentiles of the
+ * time spent per frame in each subsystem and quits.
+ *
+ * <p>The race is either an AI-only race or the playback of a replay. The world is stepped once per
+ * frame, whatever the time between frames, so that runs can be compared. The frame buffer has a
+ * fixed size, so that results do not depend on the size of the window.
+ *
+ * <p>The renderer waits for the GPU to finish drawing each frame, so that the "Renderer" counter
+ * includes the rendering time even with software GL implementations such as Mesa llvmpipe.
+ */
+public class RenderBenchmarkScreen extends ScreenAdapter {
+    private static final int FRAME_WIDTH = 1280;
+    private static final int FRAME_HEIGHT = 720;
+    private static final long SEED = 1234;
+    /** Simulated duration of the race, count down included */
+    private static final float RACE_DURATION = 60;
+    /** Frames rendered during this simulated duration are not measured, to warm up the JIT */
+    private static final float WARMUP_DURATION = 5;
+
+    private static final float[] PERCENTILES = {0.5f, 0.95f, 0.99f};
+
+    private final HeadlessRaceRunner mRunner;
+    private final GameWorldImpl mGameWorld;
+    private final SpriteBatch mBatch = new SpriteBatch();
+    private final FrameBuffer mFrameBuffer;
+    private final GameRenderer mGameRenderer;
+
+    private final PerformanceCounters mPerformanceCounters = new PerformanceCounters();
+    private final PerformanceCounter mGameWorldPerformanceCounter;
+    private final PerformanceCounter mRendererPerformanceCounter;
+    // One array of samples, in seconds, for each counter of mPerformanceCounters
+    private final Array<FloatArray> mSamples = new Array<>();
+
+    private float mTime = 0;
+    private boolean mFirstRender = true;
+
+    /** If replay is null, runs an AI-only race on track */
+    public RenderBenchmarkScreen(PwGame game, Track track, Replay replay) {
+        Assets assets = game.getAssets();
+        mRunner = new HeadlessRaceRunner(assets);
+
+        mGameWorldPerformanceCounter = mPerformanceCounters.add("GameWorld.act");
+        // Use a new instance of the track, the world disposes it
+        Track worldTrack = new Track(track.getId(), track.getMapName());
+        if (replay == null) {
+            Array<String> vehicleIds = new Array<>();
+            for (int idx = 0; idx < GamePlay.instance.racerCount; ++idx) {
+                vehicleIds.add(assets.vehicleDefs.get(idx % assets.vehicleDefs.size).id);
+            }
+            mGameWorld = mRunner.createWorld(worldTrack, vehicleIds, mPerformanceCounters);
+            mGameWorld.setSeed(SEED);
+        } else {
+            mGameWorld = mRunner.createWorld(replay, worldTrack, mPerformanceCounters);
+        }
+        mRendererPerformanceCounter = mPerformanceCounters.add("Renderer");
+
+        mFrameBuffer =
+                new FrameBuffer(
+                        Pixmap.Format.RGBA8888, FRAME_WIDTH, FRAME_HEIGHT, false /* hasDepth */);
+        mGameRenderer = new GameRenderer(assets, mGameWorld, mBatch, mPerformanceCounters);
+        mGameRenderer.setScreenRect(0, 0, FRAME_WIDTH, FRAME_HEIGHT);
+        mGameRenderer.setFrameBuffer(mFrameBuffer);
+
+        for (int idx = 0; idx < mPerformanceCounters.counters.size; ++idx) {
+            mSamples.add(new FloatArray());
+        }
+    }
+
+    @Override
+    public void render(float delta) {
+        if (mFirstRender) {
+            mGameRenderer.onAboutToStart();
+            mFirstRender = false;
+        }
+        mGameWorldPerformanceCounter.start();
+        mGameWorld.act(GameWorld.BOX2D_TIME_STEP);
+        mGameWorldPerformanceCounter.stop();
+
+        mRendererPerformanceCounter.start();
+        mFrameBuffer.begin();
+        Gdx.gl.glClearColor(0, 0, 0, 1);
+        Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
+        mFrameBuffer.end();
+        mGameRenderer.render(GameWorld.BOX2D_TIME_STEP);
+        Gdx.gl.glFinish();
+        mRendererPerformanceCounter.stop();
+
+        mPerformanceCounters.tick(GameWorld.BOX2D_TIME_STEP);
+        mTime += GameWorld.BOX2D_TIME_STEP;
+        if (mTime > WARMUP_DURATION) {
+            for (int idx = 0; idx < mSamples.size; ++idx) {
+                mSamples.get(idx).add(mPerformanceCounters.counters.get(idx).time.latest);
+            }
+        }
+
+        if (mTime > RACE_DURATION || mGameWorld.getState() == GameWorld.State.FINISHED) {
+            printResults();
+            Gdx.app.exit();
+        }
+    }
+
+    private void printResults() {
+        System.out.printf(
+                "%s: %d frames of %dx%d\n",
+                mGameWorld.getTrack().getId(), mSamples.first().size, FRAME_WIDTH, FRAME_HEIGHT);
+        System.out.printf("  %-16s %9s %9s %9s\n", "ms/frame", "p50", "p95", "p99");
+        for (int idx = 0; idx < mSamples.size; ++idx) {
+            FloatArray samples = mSamples.get(idx);
+            samples.sort();
+            System.out.printf("  %-16s", mPerformanceCounters.counters.get(idx).name);
+            for (float percentile : PERCENTILES) {
+                // PerformanceCounter times are in seconds
+                System.out.printf(" %9.3f", getPercentile(samples, percentile) * 1000);
+            }
+            System.out.println();
+        }
+    }
+
+    /** Returns the value below which percentile (in 0-1) of sortedSamples are */
+    private static float getPercentile(FloatArray sortedSamples, float percentile) {
+        if (sortedSamples.size == 0) {
+            return 0;
+        }
+        int idx = (int) Math.ceil(percentile * sortedSamples.size) - 1;
+        return sortedSamples.get(Math.max(idx, 0));
+    }
+
+    @Override
+    public void dispose() {
+        mGameRenderer.dispose();
+        mRunner.disposeWorld(mGameWorld);
+        mFrameBuffer.dispose();
+        mBatch.dispose();
+    }
+}
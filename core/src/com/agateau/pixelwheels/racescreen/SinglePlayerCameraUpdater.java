@@ -25,6 +25,7 @@ import com.agateau.pixelwheels.racer.Racer;
 import com.agateau.pixelwheels.racer.Vehicle;
 import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
 
 class SinglePlayerCameraUpdater extends CameraUpdater {
     private static final float MAX_ZOOM_SPEED = 75f;
@@ -40,7 +41,9 @@ class SinglePlayerCameraUpdater extends CameraUpdater {
     @Override
     public void update(float delta) {
         boolean immediate = delta < 0;
-        Racer racer = mWorld.getPlayerRacers().first();
+        Array<Racer> playerRacers = mWorld.getPlayerRacers();
+        // Races without players, such as render benchmarks, follow the leading racer
+        Racer racer = playerRacers.size > 0 ? playerRacers.first() : mWorld.getRacers().first();
         Vehicle vehicle = racer.getVehicle();
 
         // Compute viewport size
@@ -0,0 +1,308 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.racescreen;
+
+import com.agateau.pixelwheels.Assets;
+import com.agateau.pixelwheels.Constants;
+import com.agateau.pixelwheels.map.Track;
+import com.agateau.pixelwheels.racer.Racer;
+import com.agateau.pixelwheels.racer.SkidmarksRenderer;
+import com.agateau.pixelwheels.racer.Vehicle;
+import com.agateau.pixelwheels.racer.Wheel;
+import com.agateau.utils.CircularArray;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.glutils.FrameBuffer;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.ObjectIntMap;
+
+/**
+ * Keeps the skidmarks left on the track in frame buffers covering the map.
+ *
+ * <p>Once a skidmark segment is no longer part of the last SkidmarksRenderer.DYNAMIC_SKIDMARK_COUNT
+ * segments of its wheel, it is drawn once into the frame buffers it overlaps and is not drawn by
+ * its vehicle anymore. Drawing the layer then costs one quad per visible chunk, however many
+ * skidmarks there are.
+ *
+ * <p>Frame buffers are CHUNK_SIZE x CHUNK_SIZE map pixels, they are created the first time a
+ * skidmark is drawn on them.
+ */
+class SkidmarkDecalLayer implements Disposable {
+    private static final int CHUNK_SIZE = 256;
+    private static final float CHUNK_WORLD_SIZE = CHUNK_SIZE * Constants.UNIT_FOR_PIXEL;
+    // Added around skidmark positions to take the width of the skidmarks into account
+    private static final float MARGIN = 8 * Constants.UNIT_FOR_PIXEL;
+
+    private static class Chunk {
+        final FrameBuffer frameBuffer;
+        final float x;
+        final float y;
+
+        Chunk(FrameBuffer frameBuffer, float x, float y) {
+            this.frameBuffer = frameBuffer;
+            this.x = x;
+            this.y = y;
+        }
+    }
+
+    private final SkidmarksRenderer mSkidmarksRenderer;
+    private final int mChunkColumnCount;
+    private final int mChunkRowCount;
+    // Indexed by row * mChunkColumnCount + column, null for chunks without skidmarks
+    private final Chunk[] mChunks;
+    private final Array<Chunk> mCreatedChunks = new Array<>();
+    private final ObjectIntMap<Wheel> mBakedSerials = new ObjectIntMap<>();
+
+    // Chunks touched by the skidmarks to bake. mDirtyChunkStamps[chunkIdx] == mBakeStamp if
+    // chunkIdx is in mDirtyChunkIndices
+    private final IntArray mDirtyChunkIndices = new IntArray();
+    private final int[] mDirtyChunkStamps;
+    private int mBakeStamp = 0;
+    // (chunk index, wheel) pairs: which wheels have skidmarks to bake in which chunks
+    private final IntArray mPendingChunkIndices = new IntArray();
+    private final Array<Wheel> mPendingWheels = new Array<>();
+
+    private SpriteBatch mFrameBufferBatch;
+
+    SkidmarkDecalLayer(Assets assets, Track track) {
+        mSkidmarksRenderer = new SkidmarksRenderer(assets);
+        mChunkColumnCount = MathUtils.ceil(track.getMapWidth() / CHUNK_WORLD_SIZE);
+        mChunkRowCount = MathUtils.ceil(track.getMapHeight() / CHUNK_WORLD_SIZE);
+        mChunks = new Chunk[mChunkColumnCount * mChunkRowCount];
+        mDirtyChunkStamps = new int[mChunks.length];
+    }
+
+    /**
+     * Draws the skidmarks which left the dynamic tail of their wheel since the last call into the
+     * frame buffers. Must be called outside of any Batch.begin() / Batch.end() pair, and before
+     * setting the viewport, since FrameBuffer.end() resets it.
+     *
+     * <p>Only the chunks overlapped by the new skidmark segments are created and drawn, and each of
+     * them only draws the wheels which left skidmarks on it.
+     */
+    void update(Array<Racer> racers) {
+        if (!findDirtyChunks(racers)) {
+            return;
+        }
+        if (mFrameBufferBatch == null) {
+            mFrameBufferBatch = new SpriteBatch();
+            // Skidmarks are drawn on transparent frame buffers: accumulate alpha instead of
+            // multiplying it, so that the frame buffers contain premultiplied colors
+            mFrameBufferBatch.setBlendFunctionSeparate(
+                    GL20.GL_SRC_ALPHA,
+                    GL20.GL_ONE_MINUS_SRC_ALPHA,
+                    GL20.GL_ONE,
+                    GL20.GL_ONE_MINUS_SRC_ALPHA);
+        }
+
+        for (int i = 0; i < mDirtyChunkIndices.size; ++i) {
+            int chunkIdx = mDirtyChunkIndices.get(i);
+            bakeChunk(chunkIdx, getOrCreateChunk(chunkIdx));
+        }
+
+        for (Racer racer : racers) {
+            for (Vehicle.WheelInfo info : racer.getVehicle().getWheelInfos()) {
+                mBakedSerials.put(info.wheel, getBakeLimit(info.wheel));
+            }
+        }
+    }
+
+    /** Draws the visible chunks. Must be called between batch.begin() and batch.end() */
+    void draw(Batch batch, OrthographicCamera camera) {
+        if (mCreatedChunks.size == 0) {
+            return;
+        }
+        float width = camera.viewportWidth * camera.zoom;
+        float height = camera.viewportHeight * camera.zoom;
+        float left = camera.position.x - width / 2;
+        float bottom = camera.position.y - height / 2;
+
+        // Frame buffers contain premultiplied colors
+        batch.setBlendFunction(GL20.GL_ONE, GL20.GL_ONE_MINUS_SRC_ALPHA);
+        for (Chunk chunk : mCreatedChunks) {
+            if (chunk.x + CHUNK_WORLD_SIZE < left
+                    || chunk.x > left + width
+                    || chunk.y + CHUNK_WORLD_SIZE < bottom
+                    || chunk.y > bottom + height) {
+                continue;
+            }
+            Texture texture = chunk.frameBuffer.getColorBufferTexture();
+            batch.draw(
+                    texture,
+                    // dst
+                    chunk.x,
+                    chunk.y,
+                    CHUNK_WORLD_SIZE,
+                    CHUNK_WORLD_SIZE,
+                    // src
+                    0,
+                    0,
+                    CHUNK_SIZE,
+                    CHUNK_SIZE,
+                    // flips
+                    false,
+                    true);
+        }
+        batch.setBlendFunction(GL20.GL_SRC_ALPHA, GL20.GL_ONE_MINUS_SRC_ALPHA);
+    }
+
+    @Override
+    public void dispose() {
+        for (Chunk chunk : mCreatedChunks) {
+            chunk.frameBuffer.dispose();
+        }
+        mCreatedChunks.clear();
+        if (mFrameBufferBatch != null) {
+            mFrameBufferBatch.dispose();
+        }
+    }
+
+    /**
+     * Fills mDirtyChunkIndices with the chunks overlapped by the skidmark segments to bake, and
+     * mPendingChunkIndices / mPendingWheels with the wheels to draw in each of them. Returns false
+     * if there is nothing to bake.
+     */
+    private boolean findDirtyChunks(Array<Racer> racers) {
+        ++mBakeStamp;
+        mDirtyChunkIndices.clear();
+        mPendingChunkIndices.clear();
+        mPendingWheels.clear();
+        for (Racer racer : racers) {
+            for (Vehicle.WheelInfo info : racer.getVehicle().getWheelInfos()) {
+                Wheel wheel = info.wheel;
+                int firstSerial = mBakedSerials.get(wheel, 0);
+                int lastSerial = getBakeLimit(wheel);
+                if (lastSerial <= firstSerial) {
+                    continue;
+                }
+                int wheelPendingStart = mPendingWheels.size;
+                CircularArray<Wheel.Skidmark> skidmarks = wheel.getSkidmarks();
+                int idx1 = skidmarks.getBeginIndex();
+                if (idx1 == skidmarks.getEndIndex()) {
+                    continue;
+                }
+                // Same segments as the ones drawn by SkidmarksRenderer.draw(). The position of
+                // end skidmarks is meaningless
+                for (int idx2 = skidmarks.getNextIndex(idx1), end = skidmarks.getEndIndex();
+                        idx2 != end;
+                        idx1 = idx2, idx2 = skidmarks.getNextIndex(idx2)) {
+                    Wheel.Skidmark mark1 = skidmarks.get(idx1);
+                    Wheel.Skidmark mark2 = skidmarks.get(idx2);
+                    int serial = mark2.getSerial();
+                    if (serial <= firstSerial
+                            || serial > lastSerial
+                            || mark1.isEnd()
+                            || mark2.isEnd()) {
+                        continue;
+                    }
+                    addSegment(wheel, wheelPendingStart, mark1.getPos(), mark2.getPos());
+                }
+            }
+        }
+        return mDirtyChunkIndices.size > 0;
+    }
+
+    private void addSegment(Wheel wheel, int wheelPendingStart, Vector2 pos1, Vector2 pos2) {
+        int column1 = Math.max(0, (int) ((Math.min(pos1.x, pos2.x) - MARGIN) / CHUNK_WORLD_SIZE));
+        int column2 =
+                Math.min(
+                        mChunkColumnCount - 1,
+                        (int) ((Math.max(pos1.x, pos2.x) + MARGIN) / CHUNK_WORLD_SIZE));
+        int row1 = Math.max(0, (int) ((Math.min(pos1.y, pos2.y) - MARGIN) / CHUNK_WORLD_SIZE));
+        int row2 =
+                Math.min(
+                        mChunkRowCount - 1,
+                        (int) ((Math.max(pos1.y, pos2.y) + MARGIN) / CHUNK_WORLD_SIZE));
+        for (int row = row1; row <= row2; ++row) {
+            for (int column = column1; column <= column2; ++column) {
+                addPendingChunk(wheel, wheelPendingStart, row * mChunkColumnCount + column);
+            }
+        }
+    }
+
+    private void addPendingChunk(Wheel wheel, int wheelPendingStart, int chunkIdx) {
+        // A wheel only touches a few chunks per frame, so a linear search is enough
+        for (int i = wheelPendingStart; i < mPendingChunkIndices.size; ++i) {
+            if (mPendingChunkIndices.get(i) == chunkIdx) {
+                return;
+            }
+        }
+        mPendingChunkIndices.add(chunkIdx);
+        mPendingWheels.add(wheel);
+        if (mDirtyChunkStamps[chunkIdx] != mBakeStamp) {
+            mDirtyChunkStamps[chunkIdx] = mBakeStamp;
+            mDirtyChunkIndices.add(chunkIdx);
+        }
+    }
+
+    private void bakeChunk(int chunkIdx, Chunk chunk) {
+        chunk.frameBuffer.begin();
+        mFrameBufferBatch
+                .getProjectionMatrix()
+                .setToOrtho2D(chunk.x, chunk.y, CHUNK_WORLD_SIZE, CHUNK_WORLD_SIZE);
+        mFrameBufferBatch.begin();
+        for (int i = 0; i < mPendingChunkIndices.size; ++i) {
+            if (mPendingChunkIndices.get(i) != chunkIdx) {
+                continue;
+            }
+            Wheel wheel = mPendingWheels.get(i);
+            mSkidmarksRenderer.draw(
+                    mFrameBufferBatch,
+                    wheel.getSkidmarks(),
+                    mBakedSerials.get(wheel, 0),
+                    getBakeLimit(wheel));
+        }
+        mFrameBufferBatch.end();
+        chunk.frameBuffer.end();
+    }
+
+    private Chunk getOrCreateChunk(int chunkIdx) {
+        Chunk chunk = mChunks[chunkIdx];
+        if (chunk != null) {
+            return chunk;
+        }
+        FrameBuffer frameBuffer =
+                new FrameBuffer(
+                        Pixmap.Format.RGBA8888, CHUNK_SIZE, CHUNK_SIZE, false /* hasDepth */);
+        frameBuffer.begin();
+        Gdx.gl.glClearColor(0, 0, 0, 0);
+        Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
+        frameBuffer.end();
+
+        int column = chunkIdx % mChunkColumnCount;
+        int row = chunkIdx / mChunkColumnCount;
+        chunk = new Chunk(frameBuffer, column * CHUNK_WORLD_SIZE, row * CHUNK_WORLD_SIZE);
+        mChunks[chunkIdx] = chunk;
+        mCreatedChunks.add(chunk);
+        return chunk;
+    }
+
+    private static int getBakeLimit(Wheel wheel) {
+        return wheel.getLastSkidmarkSerial() - SkidmarksRenderer.DYNAMIC_SKIDMARK_COUNT;
+    }
+}
@@ -0,0 +1,595 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.racescreen;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+import com.badlogic.gdx.math.Affine2;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * A Batch which queues the quads drawn through it, then sends them to another batch grouped by
+ * texture, so that the other batch does not have to flush each time the texture changes.
+ *
+ * <p>Queued quads are sent when submit() is called, and before any change to the state of the batch
+ * (blending, shader, matrices). Quads using the same texture are sent in the order they have been
+ * drawn, but quads using different textures may be reordered: submit() must be called between draws
+ * which must not be reordered, for example between z-levels.
+ */
+class TextureSortingBatch implements Batch {
+    private static final int QUAD_SIZE = 20;
+
+    private final Batch mTarget;
+    private final Color mColor = new Color();
+    private float mPackedColor = Color.WHITE.toFloatBits();
+
+    private float[] mVertices = new float[QUAD_SIZE * 256];
+    private final Array<Texture> mTextures = new Array<>();
+    private final Array<Texture> mSubmitTextures = new Array<>();
+    private int mSubmitCount = 0;
+
+    TextureSortingBatch(Batch target) {
+        mTarget = target;
+    }
+
+    /** Sends the queued quads to the target batch */
+    void submit() {
+        int quadCount = mTextures.size;
+        if (quadCount == 0) {
+            return;
+        }
+        ++mSubmitCount;
+        mSubmitTextures.clear();
+        for (int idx = 0; idx < quadCount; ++idx) {
+            Texture texture = mTextures.get(idx);
+            if (!mSubmitTextures.contains(texture, true)) {
+                mSubmitTextures.add(texture);
+            }
+        }
+        for (int textureIdx = 0; textureIdx < mSubmitTextures.size; ++textureIdx) {
+            Texture texture = mSubmitTextures.get(textureIdx);
+            // Send consecutive quads using the same texture in one call
+            int runStart = -1;
+            for (int idx = 0; idx <= quadCount; ++idx) {
+                boolean match = idx < quadCount && mTextures.get(idx) == texture;
+                if (match && runStart == -1) {
+                    runStart = idx;
+                } else if (!match && runStart != -1) {
+                    mTarget.draw(
+                            texture, mVertices, runStart * QUAD_SIZE, (idx - runStart) * QUAD_SIZE);
+                    runStart = -1;
+                }
+            }
+        }
+        mTextures.clear();
+    }
+
+    /** Returns the number of times queued quads have been sent, and resets it */
+    int popSubmitCount() {
+        int count = mSubmitCount;
+        mSubmitCount = 0;
+        return count;
+    }
+
+    @Override
+    public void begin() {
+        mTarget.begin();
+    }
+
+    @Override
+    public void end() {
+        submit();
+        mTarget.end();
+    }
+
+    @Override
+    public void flush() {
+        submit();
+        mTarget.flush();
+    }
+
+    @Override
+    public void setColor(Color tint) {
+        mPackedColor = tint.toFloatBits();
+    }
+
+    @Override
+    public void setColor(float r, float g, float b, float a) {
+        mPackedColor = Color.toFloatBits(r, g, b, a);
+    }
+
+    @Override
+    public void setColor(float color) {
+        mPackedColor = color;
+    }
+
+    /**
+     * Like SpriteBatch.getColor(), returns an instance which is not affected by setColor(), so that
+     * callers can restore the color after changing it
+     */
+    @Override
+    public Color getColor() {
+        Color.abgr8888ToColor(mColor, mPackedColor);
+        return mColor;
+    }
+
+    @Override
+    public float getPackedColor() {
+        return mPackedColor;
+    }
+
+    @Override
+    public void draw(
+            Texture texture,
+            float x,
+            float y,
+            float originX,
+            float originY,
+            float width,
+            float height,
+            float scaleX,
+            float scaleY,
+            float rotation,
+            int srcX,
+            int srcY,
+            int srcWidth,
+            int srcHeight,
+            boolean flipX,
+            boolean flipY) {
+        float invTexWidth = 1f / texture.getWidth();
+        float invTexHeight = 1f / texture.getHeight();
+        float u = srcX * invTexWidth;
+        float v = (srcY + srcHeight) * invTexHeight;
+        float u2 = (srcX + srcWidth) * invTexWidth;
+        float v2 = srcY * invTexHeight;
+        if (flipX) {
+            float tmp = u;
+            u = u2;
+            u2 = tmp;
+        }
+        if (flipY) {
+            float tmp = v;
+            v = v2;
+            v2 = tmp;
+        }
+        addTransformedQuad(
+                texture, x, y, originX, originY, width, height, scaleX, scaleY, rotation, u, v, u,
+                v2, u2, v2, u2, v);
+    }
+
+    @Override
+    public void draw(
+            Texture texture,
+            float x,
+            float y,
+            float width,
+            float height,
+            int srcX,
+            int srcY,
+            int srcWidth,
+            int srcHeight,
+            boolean flipX,
+            boolean flipY) {
+        draw(
+                texture, x, y, 0, 0, width, height, 1, 1, 0, srcX, srcY, srcWidth, srcHeight, flipX,
+                flipY);
+    }
+
+    @Override
+    public void draw(
+            Texture texture, float x, float y, int srcX, int srcY, int srcWidth, int srcHeight) {
+        draw(texture, x, y, srcWidth, srcHeight, srcX, srcY, srcWidth, srcHeight, false, false);
+    }
+
+    @Override
+    public void draw(
+            Texture texture,
+            float x,
+            float y,
+            float width,
+            float height,
+            float u,
+            float v,
+            float u2,
+            float v2) {
+        float x2 = x + width;
+        float y2 = y + height;
+        addQuad(texture, x, y, u, v, x, y2, u, v2, x2, y2, u2, v2, x2, y, u2, v);
+    }
+
+    @Override
+    public void draw(Texture texture, float x, float y) {
+        draw(texture, x, y, texture.getWidth(), texture.getHeight());
+    }
+
+    @Override
+    public void draw(Texture texture, float x, float y, float width, float height) {
+        draw(texture, x, y, width, height, 0, 1, 1, 0);
+    }
+
+    @Override
+    public void draw(Texture texture, float[] spriteVertices, int offset, int count) {
+        ensureCapacity(count);
+        int start = mTextures.size * QUAD_SIZE;
+        System.arraycopy(spriteVertices, offset, mVertices, start, count);
+        for (int idx = 0; idx < count; idx += QUAD_SIZE) {
+            mTextures.add(texture);
+        }
+    }
+
+    @Override
+    public void draw(TextureRegion region, float x, float y) {
+        draw(region, x, y, region.getRegionWidth(), region.getRegionHeight());
+    }
+
+    @Override
+    public void draw(TextureRegion region, float x, float y, float width, float height) {
+        float u = region.getU();
+        float v = region.getV();
+        float u2 = region.getU2();
+        float v2 = region.getV2();
+        float x2 = x + width;
+        float y2 = y + height;
+        addQuad(region.getTexture(), x, y, u, v2, x, y2, u, v, x2, y2, u2, v, x2, y, u2, v2);
+    }
+
+    @Override
+    public void draw(
+            TextureRegion region,
+            float x,
+            float y,
+            float originX,
+            float originY,
+            float width,
+            float height,
+            float scaleX,
+            float scaleY,
+            float rotation) {
+        float u = region.getU();
+        float v = region.getV();
+        float u2 = region.getU2();
+        float v2 = region.getV2();
+        addTransformedQuad(
+                region.getTexture(),
+                x,
+                y,
+                originX,
+                originY,
+                width,
+                height,
+                scaleX,
+                scaleY,
+                rotation,
+                u,
+                v2,
+                u,
+                v,
+                u2,
+                v,
+                u2,
+                v2);
+    }
+
+    @Override
+    public void draw(
+            TextureRegion region,
+            float x,
+            float y,
+            float originX,
+            float originY,
+            float width,
+            float height,
+            float scaleX,
+            float scaleY,
+            float rotation,
+            boolean clockwise) {
+        float u = region.getU();
+        float v = region.getV();
+        float u2 = region.getU2();
+        float v2 = region.getV2();
+        if (clockwise) {
+            addTransformedQuad(
+                    region.getTexture(),
+                    x,
+                    y,
+                    originX,
+                    originY,
+                    width,
+                    height,
+                    scaleX,
+                    scaleY,
+                    rotation,
+                    u2,
+                    v2,
+                    u,
+                    v2,
+                    u,
+                    v,
+                    u2,
+                    v);
+        } else {
+            addTransformedQuad(
+                    region.getTexture(),
+                    x,
+                    y,
+                    originX,
+                    originY,
+                    width,
+                    height,
+                    scaleX,
+                    scaleY,
+                    rotation,
+                    u,
+                    v,
+                    u2,
+                    v,
+                    u2,
+                    v2,
+                    u,
+                    v2);
+        }
+    }
+
+    @Override
+    public void draw(TextureRegion region, float width, float height, Affine2 transform) {
+        float x1 = transform.m02;
+        float y1 = transform.m12;
+        float x2 = transform.m01 * height + transform.m02;
+        float y2 = transform.m11 * height + transform.m12;
+        float x3 = transform.m00 * width + transform.m01 * height + transform.m02;
+        float y3 = transform.m10 * width + transform.m11 * height + transform.m12;
+        float x4 = transform.m00 * width + transform.m02;
+        float y4 = transform.m10 * width + transform.m12;
+
+        float u = region.getU();
+        float v = region.getV();
+        float u2 = region.getU2();
+        float v2 = region.getV2();
+        addQuad(region.getTexture(), x1, y1, u, v2, x2, y2, u, v, x3, y3, u2, v, x4, y4, u2, v2);
+    }
+
+    @Override
+    public void disableBlending() {
+        submit();
+        mTarget.disableBlending();
+    }
+
+    @Override
+    public void enableBlending() {
+        submit();
+        mTarget.enableBlending();
+    }
+
+    @Override
+    public void setBlendFunction(int srcFunc, int dstFunc) {
+        submit();
+        mTarget.setBlendFunction(srcFunc, dstFunc);
+    }
+
+    @Override
+    public void setBlendFunctionSeparate(
+            int srcFuncColor, int dstFuncColor, int srcFuncAlpha, int dstFuncAlpha) {
+        submit();
+        mTarget.setBlendFunctionSeparate(srcFuncColor, dstFuncColor, srcFuncAlpha, dstFuncAlpha);
+    }
+
+    @Override
+    public int getBlendSrcFunc() {
+        return mTarget.getBlendSrcFunc();
+    }
+
+    @Override
+    public int getBlendDstFunc() {
+        return mTarget.getBlendDstFunc();
+    }
+
+    @Override
+    public int getBlendSrcFuncAlpha() {
+        return mTarget.getBlendSrcFuncAlpha();
+    }
+
+    @Override
+    public int getBlendDstFuncAlpha() {
+        return mTarget.getBlendDstFuncAlpha();
+    }
+
+    @Override
+    public Matrix4 getProjectionMatrix() {
+        return mTarget.getProjectionMatrix();
+    }
+
+    @Override
+    public Matrix4 getTransformMatrix() {
+        return mTarget.getTransformMatrix();
+    }
+
+    @Override
+    public void setProjectionMatrix(Matrix4 projection) {
+        submit();
+        mTarget.setProjectionMatrix(projection);
+    }
+
+    @Override
+    public void setTransformMatrix(Matrix4 transform) {
+        submit();
+        mTarget.setTransformMatrix(transform);
+    }
+
+    @Override
+    public void setShader(ShaderProgram shader) {
+        submit();
+        mTarget.setShader(shader);
+    }
+
+    @Override
+    public ShaderProgram getShader() {
+        return mTarget.getShader();
+    }
+
+    @Override
+    public boolean isBlendingEnabled() {
+        return mTarget.isBlendingEnabled();
+    }
+
+    @Override
+    public boolean isDrawing() {
+        return mTarget.isDrawing();
+    }
+
+    @Override
+    public void dispose() {
+        // The target batch is owned by the caller
+    }
+
+    /**
+     * Queues a quad of width x height at (x, y), scaled and rotated around (x + originX, y +
+     * originY). (u1, v1) are the texture coordinates of the bottom-left corner, the other corners
+     * follow clockwise.
+     */
+    private void addTransformedQuad(
+            Texture texture,
+            float x,
+            float y,
+            float originX,
+            float originY,
+            float width,
+            float height,
+            float scaleX,
+            float scaleY,
+            float rotation,
+            float u1,
+            float v1,
+            float u2,
+            float v2,
+            float u3,
+            float v3,
+            float u4,
+            float v4) {
+        float worldOriginX = x + originX;
+        float worldOriginY = y + originY;
+        float fx = -originX * scaleX;
+        float fy = -originY * scaleY;
+        float fx2 = (width - originX) * scaleX;
+        float fy2 = (height - originY) * scaleY;
+
+        float x1, y1, x2, y2, x3, y3, x4, y4;
+        if (rotation != 0) {
+            float cos = MathUtils.cosDeg(rotation);
+            float sin = MathUtils.sinDeg(rotation);
+            x1 = cos * fx - sin * fy;
+            y1 = sin * fx + cos * fy;
+            x2 = cos * fx - sin * fy2;
+            y2 = sin * fx + cos * fy2;
+            x3 = cos * fx2 - sin * fy2;
+            y3 = sin * fx2 + cos * fy2;
+            x4 = x1 + (x3 - x2);
+            y4 = y3 - (y2 - y1);
+        } else {
+            x1 = fx;
+            y1 = fy;
+            x2 = fx;
+            y2 = fy2;
+            x3 = fx2;
+            y3 = fy2;
+            x4 = fx2;
+            y4 = fy;
+        }
+        addQuad(
+                texture,
+                x1 + worldOriginX,
+                y1 + worldOriginY,
+                u1,
+                v1,
+                x2 + worldOriginX,
+                y2 + worldOriginY,
+                u2,
+                v2,
+                x3 + worldOriginX,
+                y3 + worldOriginY,
+                u3,
+                v3,
+                x4 + worldOriginX,
+                y4 + worldOriginY,
+                u4,
+                v4);
+    }
+
+    private void addQuad(
+            Texture texture,
+            float x1,
+            float y1,
+            float u1,
+            float v1,
+            float x2,
+            float y2,
+            float u2,
+            float v2,
+            float x3,
+            float y3,
+            float u3,
+            float v3,
+            float x4,
+            float y4,
+            float u4,
+            float v4) {
+        ensureCapacity(QUAD_SIZE);
+        float[] vertices = mVertices;
+        int idx = mTextures.size * QUAD_SIZE;
+        float color = mPackedColor;
+        vertices[idx++] = x1;
+        vertices[idx++] = y1;
+        vertices[idx++] = color;
+        vertices[idx++] = u1;
+        vertices[idx++] = v1;
+
+        vertices[idx++] = x2;
+        vertices[idx++] = y2;
+        vertices[idx++] = color;
+        vertices[idx++] = u2;
+        vertices[idx++] = v2;
+
+        vertices[idx++] = x3;
+        vertices[idx++] = y3;
+        vertices[idx++] = color;
+        vertices[idx++] = u3;
+        vertices[idx++] = v3;
+
+        vertices[idx++] = x4;
+        vertices[idx++] = y4;
+        vertices[idx++] = color;
+        vertices[idx++] = u4;
+        vertices[idx] = v4;
+        mTextures.add(texture);
+    }
+
+    private void ensureCapacity(int count) {
+        int needed = mTextures.size * QUAD_SIZE + count;
+        if (needed <= mVertices.length) {
+            return;
+        }
+        float[] vertices = new float[Math.max(needed, mVertices.length * 2)];
+        System.arraycopy(mVertices, 0, vertices, 0, mTextures.size * QUAD_SIZE);
+        mVertices = vertices;
+    }
+}
@@ -0,0 +1,354 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.racescreen;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.graphics.g2d.SpriteCache;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.maps.MapLayer;
+import com.badlogic.gdx.maps.MapLayers;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TiledMapTile;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.IntArray;
+
+/**
+ * Renders the tile layers of a map from chunks uploaded to the GPU once, when the renderer is
+ * created.
+ *
+ * <p>Tile layers do not change during a race, so instead of sending the vertices of all the visible
+ * tiles every frame like OrthogonalTiledMapRenderer does, the tiles of each layer are grouped in
+ * chunks of CHUNK_SIZE x CHUNK_SIZE tiles stored in SpriteCache instances. Rendering a layer only
+ * draws the chunks intersecting the view.
+ */
+class TileChunkRenderer implements Disposable {
+    private static final int CHUNK_SIZE = 16;
+    // SpriteCache uses short indices, it cannot hold more sprites than this
+    private static final int MAX_PAGE_SIZE = 8191;
+    private static final int NUM_VERTICES = 20;
+
+    private final MapLayers mLayers;
+    private final float mUnitScale;
+    private final int mChunkColumnCount;
+    private final int mChunkRowCount;
+    private final float mChunkWidth;
+    private final float mChunkHeight;
+
+    private final Array<SpriteCache> mPages = new Array<>();
+    private final IntArray mPageSpriteCounts = new IntArray();
+    // For each layer, the page and the cache ID of each chunk. Arrays are null for layers which
+    // are not tile layers, and page indexes are -1 for empty chunks
+    private final int[][] mChunkPageIndexes;
+    private final int[][] mChunkCacheIds;
+
+    private final float[] mVertices = new float[NUM_VERTICES];
+    private OrthographicCamera mCamera;
+    private boolean mBlendingDisabled = false;
+
+    TileChunkRenderer(TiledMap map, float unitScale) {
+        mLayers = map.getLayers();
+        mUnitScale = unitScale;
+        TiledMapTileLayer firstLayer = findFirstTileLayer();
+        int columnCount = firstLayer.getWidth();
+        int rowCount = firstLayer.getHeight();
+        mChunkColumnCount = MathUtils.ceil(columnCount / (float) CHUNK_SIZE);
+        mChunkRowCount = MathUtils.ceil(rowCount / (float) CHUNK_SIZE);
+        mChunkWidth = CHUNK_SIZE * firstLayer.getTileWidth() * unitScale;
+        mChunkHeight = CHUNK_SIZE * firstLayer.getTileHeight() * unitScale;
+
+        int layerCount = mLayers.getCount();
+        mChunkPageIndexes = new int[layerCount][];
+        mChunkCacheIds = new int[layerCount][];
+        int remainingTileCount = countTiles();
+        for (int layerIdx = 0; layerIdx < layerCount; ++layerIdx) {
+            MapLayer layer = mLayers.get(layerIdx);
+            if (layer instanceof TiledMapTileLayer) {
+                remainingTileCount =
+                        createChunks(layerIdx, (TiledMapTileLayer) layer, remainingTileCount);
+            }
+        }
+    }
+
+    /** Same as Batch.disableBlending(), applies to the next calls to render() */
+    void disableBlending() {
+        mBlendingDisabled = true;
+    }
+
+    void enableBlending() {
+        mBlendingDisabled = false;
+    }
+
+    /** Must be called after each change of the camera, before calling render() */
+    void setView(OrthographicCamera camera) {
+        mCamera = camera;
+    }
+
+    void render(int[] layerIndexes) {
+        float width = mCamera.viewportWidth * mCamera.zoom;
+        float height = mCamera.viewportHeight * mCamera.zoom;
+        float left = mCamera.position.x - width / 2;
+        float bottom = mCamera.position.y - height / 2;
+        int column1 = Math.max(0, (int) (left / mChunkWidth));
+        int column2 = Math.min(mChunkColumnCount - 1, (int) ((left + width) / mChunkWidth));
+        int row1 = Math.max(0, (int) (bottom / mChunkHeight));
+        int row2 = Math.min(mChunkRowCount - 1, (int) ((bottom + height) / mChunkHeight));
+
+        if (mBlendingDisabled) {
+            Gdx.gl.glDisable(GL20.GL_BLEND);
+        } else {
+            Gdx.gl.glEnable(GL20.GL_BLEND);
+            Gdx.gl.glBlendFunc(GL20.GL_SRC_ALPHA, GL20.GL_ONE_MINUS_SRC_ALPHA);
+        }
+
+        SpriteCache currentPage = null;
+        for (int layerIdx : layerIndexes) {
+            int[] pageIndexes = mChunkPageIndexes[layerIdx];
+            if (pageIndexes == null || !mLayers.get(layerIdx).isVisible()) {
+                continue;
+            }
+            int[] cacheIds = mChunkCacheIds[layerIdx];
+            for (int row = row1; row <= row2; ++row) {
+                for (int column = column1; column <= column2; ++column) {
+                    int chunkIdx = row * mChunkColumnCount + column;
+                    int pageIdx = pageIndexes[chunkIdx];
+                    if (pageIdx == -1) {
+                        continue;
+                    }
+                    SpriteCache page = mPages.get(pageIdx);
+                    if (page != currentPage) {
+                        if (currentPage != null) {
+                            currentPage.end();
+                        }
+                        page.setProjectionMatrix(mCamera.combined);
+                        page.begin();
+                        currentPage = page;
+                    }
+                    page.draw(cacheIds[chunkIdx]);
+                }
+            }
+        }
+        if (currentPage != null) {
+            currentPage.end();
+        }
+    }
+
+    @Override
+    public void dispose() {
+        for (SpriteCache page : mPages) {
+            page.dispose();
+        }
+        mPages.clear();
+    }
+
+    private TiledMapTileLayer findFirstTileLayer() {
+        for (MapLayer layer : mLayers) {
+            if (layer instanceof TiledMapTileLayer) {
+                return (TiledMapTileLayer) layer;
+            }
+        }
+        throw new RuntimeException("No tile layer in map");
+    }
+
+    private int countTiles() {
+        int count = 0;
+        for (MapLayer layer : mLayers) {
+            if (layer instanceof TiledMapTileLayer) {
+                TiledMapTileLayer tileLayer = (TiledMapTileLayer) layer;
+                count += countTiles(tileLayer, 0, 0, tileLayer.getWidth(), tileLayer.getHeight());
+            }
+        }
+        return count;
+    }
+
+    private static int countTiles(TiledMapTileLayer layer, int col1, int row1, int col2, int row2) {
+        int count = 0;
+        for (int row = row1; row < row2; ++row) {
+            for (int col = col1; col < col2; ++col) {
+                TiledMapTileLayer.Cell cell = layer.getCell(col, row);
+                if (cell != null && cell.getTile() != null) {
+                    ++count;
+                }
+            }
+        }
+        return count;
+    }
+
+    /** Returns the number of tiles which still have to be added to pages */
+    private int createChunks(int layerIdx, TiledMapTileLayer layer, int remainingTileCount) {
+        int chunkCount = mChunkColumnCount * mChunkRowCount;
+        int[] pageIndexes = new int[chunkCount];
+        int[] cacheIds = new int[chunkCount];
+        mChunkPageIndexes[layerIdx] = pageIndexes;
+        mChunkCacheIds[layerIdx] = cacheIds;
+
+        float color = Color.toFloatBits(1f, 1f, 1f, layer.getOpacity());
+        for (int chunkRow = 0; chunkRow < mChunkRowCount; ++chunkRow) {
+            for (int chunkColumn = 0; chunkColumn < mChunkColumnCount; ++chunkColumn) {
+                int chunkIdx = chunkRow * mChunkColumnCount + chunkColumn;
+                int col1 = chunkColumn * CHUNK_SIZE;
+                int row1 = chunkRow * CHUNK_SIZE;
+                int col2 = Math.min(col1 + CHUNK_SIZE, layer.getWidth());
+                int row2 = Math.min(row1 + CHUNK_SIZE, layer.getHeight());
+                int tileCount = countTiles(layer, col1, row1, col2, row2);
+                if (tileCount == 0) {
+                    pageIndexes[chunkIdx] = -1;
+                    continue;
+                }
+                int pageIdx = findPage(tileCount, remainingTileCount);
+                SpriteCache page = mPages.get(pageIdx);
+                page.beginCache();
+                for (int row = row1; row < row2; ++row) {
+                    for (int col = col1; col < col2; ++col) {
+                        addTile(page, layer, col, row, color);
+                    }
+                }
+                pageIndexes[chunkIdx] = pageIdx;
+                cacheIds[chunkIdx] = page.endCache();
+                mPageSpriteCounts.incr(pageIdx, tileCount);
+                remainingTileCount -= tileCount;
+            }
+        }
+        return remainingTileCount;
+    }
+
+    /** Returns the index of a page which has room for tileCount tiles, creating one if needed */
+    private int findPage(int tileCount, int remainingTileCount) {
+        int lastIdx = mPages.size - 1;
+        if (lastIdx >= 0 && mPageSpriteCounts.get(lastIdx) + tileCount <= MAX_PAGE_SIZE) {
+            return lastIdx;
+        }
+        mPages.add(new SpriteCache(Math.min(remainingTileCount, MAX_PAGE_SIZE), true));
+        mPageSpriteCounts.add(0);
+        return mPages.size - 1;
+    }
+
+    private void addTile(SpriteCache page, TiledMapTileLayer layer, int col, int row, float color) {
+        TiledMapTile tile = computeTileVertices(layer, col, row, mUnitScale, color, mVertices);
+        if (tile != null) {
+            page.add(tile.getTextureRegion().getTexture(), mVertices, 0, NUM_VERTICES);
+        }
+    }
+
+    /**
+     * Fills vertices with the vertices of the tile at (col, row), in the format expected by
+     * Batch.draw(Texture, float[], int, int). Returns the tile, or null if there is none.
+     *
+     * <p>Adapted from OrthogonalTiledMapRenderer.renderTileLayer()
+     */
+    static TiledMapTile computeTileVertices(
+            TiledMapTileLayer layer,
+            int col,
+            int row,
+            float unitScale,
+            float color,
+            float[] vertices) {
+        TiledMapTileLayer.Cell cell = layer.getCell(col, row);
+        if (cell == null) {
+            return null;
+        }
+        TiledMapTile tile = cell.getTile();
+        if (tile == null) {
+            return null;
+        }
+        TextureRegion region = tile.getTextureRegion();
+        float x1 =
+                (col * layer.getTileWidth() + tile.getOffsetX() + layer.getOffsetX()) * unitScale;
+        float y1 =
+                (row * layer.getTileHeight() + tile.getOffsetY() - layer.getOffsetY()) * unitScale;
+        float x2 = x1 + region.getRegionWidth() * unitScale;
+        float y2 = y1 + region.getRegionHeight() * unitScale;
+
+        float u1 = region.getU();
+        float v1 = region.getV2();
+        float u2 = region.getU2();
+        float v2 = region.getV();
+
+        vertices[Batch.X1] = x1;
+        vertices[Batch.Y1] = y1;
+        vertices[Batch.C1] = color;
+        vertices[Batch.U1] = u1;
+        vertices[Batch.V1] = v1;
+
+        vertices[Batch.X2] = x1;
+        vertices[Batch.Y2] = y2;
+        vertices[Batch.C2] = color;
+        vertices[Batch.U2] = u1;
+        vertices[Batch.V2] = v2;
+
+        vertices[Batch.X3] = x2;
+        vertices[Batch.Y3] = y2;
+        vertices[Batch.C3] = color;
+        vertices[Batch.U3] = u2;
+        vertices[Batch.V3] = v2;
+
+        vertices[Batch.X4] = x2;
+        vertices[Batch.Y4] = y1;
+        vertices[Batch.C4] = color;
+        vertices[Batch.U4] = u2;
+        vertices[Batch.V4] = v1;
+
+        if (cell.getFlipHorizontally()) {
+            swap(vertices, Batch.U1, Batch.U3);
+            swap(vertices, Batch.U2, Batch.U4);
+        }
+        if (cell.getFlipVertically()) {
+            swap(vertices, Batch.V1, Batch.V2);
+            swap(vertices, Batch.V3, Batch.V4);
+        }
+        switch (cell.getRotation()) {
+            case TiledMapTileLayer.Cell.ROTATE_90:
+                rotate(vertices, Batch.V1, Batch.V2, Batch.V3, Batch.V4);
+                rotate(vertices, Batch.U1, Batch.U2, Batch.U3, Batch.U4);
+                break;
+            case TiledMapTileLayer.Cell.ROTATE_180:
+                swap(vertices, Batch.U1, Batch.U3);
+                swap(vertices, Batch.U2, Batch.U4);
+                swap(vertices, Batch.V1, Batch.V3);
+                swap(vertices, Batch.V2, Batch.V4);
+                break;
+            case TiledMapTileLayer.Cell.ROTATE_270:
+                rotate(vertices, Batch.V1, Batch.V4, Batch.V3, Batch.V2);
+                rotate(vertices, Batch.U1, Batch.U4, Batch.U3, Batch.U2);
+                break;
+        }
+        return tile;
+    }
+
+    private static void swap(float[] array, int idx1, int idx2) {
+        float tmp = array[idx1];
+        array[idx1] = array[idx2];
+        array[idx2] = tmp;
+    }
+
+    /** Moves the value at idx2 to idx1, idx3 to idx2, idx4 to idx3 and idx1 to idx4 */
+    private static void rotate(float[] array, int idx1, int idx2, int idx3, int idx4) {
+        float tmp = array[idx1];
+        array[idx1] = array[idx2];
+        array[idx2] = array[idx3];
+        array[idx3] = array[idx4];
+        array[idx4] = tmp;
+    }
+}
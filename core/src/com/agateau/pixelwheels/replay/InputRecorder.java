@@ -0,0 +1,110 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.replay;
+
+import com.agateau.pixelwheels.gameinput.GameInput;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.utils.ByteArray;
+
+/**
+ * Records the inputs of a player, one GameInput per step, in a compact form.
+ *
+ * <p>Inputs are quantized to 2 bytes: one for the flags, one for the direction. Since inputs rarely
+ * change from one step to the next, the stream is a list of runs: each run is a variable-length
+ * step count followed by the 2 bytes of the input which was used during these steps.
+ *
+ * <p>Quantization changes the direction, so the pilot must use the input returned by record(),
+ * otherwise the race would not be the same when played back.
+ */
+public class InputRecorder {
+    static final int BRAKING_FLAG = 1;
+    static final int ACCELERATING_FLAG = 2;
+    static final int TRIGGERING_BONUS_FLAG = 4;
+    static final int DIRECTION_MAX = 127;
+
+    private final ByteArray mBytes = new ByteArray();
+    private final GameInput mQuantizedInput = new GameInput();
+    private int mFlags = 0;
+    private int mDirection = 0;
+    private int mRunLength = 0;
+
+    /** Records input for the current step, and returns its quantized version */
+    public GameInput record(GameInput input) {
+        int flags = encodeFlags(input);
+        int direction =
+                MathUtils.clamp(
+                        MathUtils.round(input.direction * DIRECTION_MAX),
+                        -DIRECTION_MAX,
+                        DIRECTION_MAX);
+        if (mRunLength > 0 && (flags != mFlags || direction != mDirection)) {
+            writeRun();
+        }
+        mFlags = flags;
+        mDirection = direction;
+        ++mRunLength;
+        decode(flags, direction, mQuantizedInput);
+        return mQuantizedInput;
+    }
+
+    /** Returns the recorded inputs. Recording can continue after calling this method */
+    public byte[] toByteArray() {
+        ByteArray bytes = new ByteArray(mBytes);
+        if (mRunLength > 0) {
+            writeRun(bytes, mRunLength, mFlags, mDirection);
+        }
+        return bytes.toArray();
+    }
+
+    static void decode(int flags, int direction, GameInput input) {
+        input.braking = (flags & BRAKING_FLAG) != 0;
+        input.accelerating = (flags & ACCELERATING_FLAG) != 0;
+        input.triggeringBonus = (flags & TRIGGERING_BONUS_FLAG) != 0;
+        input.direction = (float) direction / DIRECTION_MAX;
+    }
+
+    private static int encodeFlags(GameInput input) {
+        int flags = 0;
+        if (input.braking) {
+            flags |= BRAKING_FLAG;
+        }
+        if (input.accelerating) {
+            flags |= ACCELERATING_FLAG;
+        }
+        if (input.triggeringBonus) {
+            flags |= TRIGGERING_BONUS_FLAG;
+        }
+        return flags;
+    }
+
+    private void writeRun() {
+        writeRun(mBytes, mRunLength, mFlags, mDirection);
+        mRunLength = 0;
+    }
+
+    private static void writeRun(ByteArray bytes, int runLength, int flags, int direction) {
+        // Run length is written 7 bits at a time, the high bit is set if more bytes follow
+        while (runLength >= 0x80) {
+            bytes.add((byte) (runLength | 0x80));
+            runLength >>>= 7;
+        }
+        bytes.add((byte) runLength);
+        bytes.add((byte) flags);
+        bytes.add((byte) direction);
+    }
+}
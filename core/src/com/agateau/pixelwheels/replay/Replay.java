@@ -0,0 +1,108 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.replay;
+
+import com.agateau.pixelwheels.gamesetup.GameInfo;
+import com.agateau.pixelwheels.map.Track;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Everything needed to run a race again: the track, the entrants, the seed of the world random
+ * generator and the inputs of the players. Since the simulation is deterministic, this is enough to
+ * reproduce the race.
+ */
+public class Replay {
+    private final String mTrackId;
+    private final long mSeed;
+    private final Array<Entrant> mEntrants = new Array<>();
+
+    public static class Entrant {
+        public final String vehicleId;
+        /** -1 for AI entrants */
+        public final int playerIndex;
+        /** Inputs of the player, as encoded by InputRecorder. null for AI entrants */
+        public final byte[] inputs;
+
+        public Entrant(String vehicleId, int playerIndex, byte[] inputs) {
+            this.vehicleId = vehicleId;
+            this.playerIndex = playerIndex;
+            this.inputs = inputs;
+        }
+
+        public boolean isPlayer() {
+            return playerIndex >= 0;
+        }
+    }
+
+    private static class ReplayGameInfo extends GameInfo {
+        private final Track mTrack;
+
+        ReplayGameInfo(Track track, Array<Replay.Entrant> entrants) {
+            mTrack = track;
+            for (Replay.Entrant entrant : entrants) {
+                if (entrant.isPlayer()) {
+                    getEntrants().add(new Player(entrant.playerIndex, entrant.vehicleId));
+                } else {
+                    getEntrants().add(new Entrant(entrant.vehicleId));
+                }
+            }
+        }
+
+        @Override
+        public Track getTrack() {
+            return mTrack;
+        }
+    }
+
+    public Replay(String trackId, long seed) {
+        mTrackId = trackId;
+        mSeed = seed;
+    }
+
+    public String getTrackId() {
+        return mTrackId;
+    }
+
+    public long getSeed() {
+        return mSeed;
+    }
+
+    /** Entrants, in the order of GameInfo.getEntrants() */
+    public Array<Entrant> getEntrants() {
+        return mEntrants;
+    }
+
+    public Entrant findPlayerEntrant(int playerIndex) {
+        for (Entrant entrant : mEntrants) {
+            if (entrant.playerIndex == playerIndex) {
+                return entrant;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Creates a GameInfo to race with the entrants of the replay on track, which must be the track
+     * the replay has been recorded on. Pass the world created from it to
+     * GameWorldImpl.startPlayback().
+     */
+    public GameInfo createGameInfo(Track track) {
+        return new ReplayGameInfo(track, mEntrants);
+    }
+}
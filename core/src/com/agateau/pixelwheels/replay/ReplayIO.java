@@ -0,0 +1,120 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.replay;
+
+import com.agateau.utils.log.NLog;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.StreamUtils;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Reads and writes replays. A replay file contains, in big-endian order:
+ *
+ * <pre>
+ * int      MAGIC
+ * int      VERSION
+ * UTF      track id
+ * long     seed
+ * int      entrant count
+ * for each entrant:
+ *   UTF    vehicle id
+ *   byte   player index, -1 for AI entrants
+ *   for players only:
+ *     int    input byte count
+ *     byte[] inputs, see InputRecorder
+ * </pre>
+ */
+public class ReplayIO {
+    /** Name of the file where the replay of the last race is saved */
+    public static final String LAST_RACE_FILE_NAME = "last-race.replay";
+
+    private static final int MAGIC = 0x50577270; // "PWrp"
+    /** Must be increased when the format or the simulation change in an incompatible way */
+    private static final int VERSION = 1;
+
+    public static void write(Replay replay, FileHandle file) {
+        DataOutputStream out = new DataOutputStream(file.write(false /* append */, 8192));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(replay.getTrackId());
+            out.writeLong(replay.getSeed());
+            out.writeInt(replay.getEntrants().size);
+            for (Replay.Entrant entrant : replay.getEntrants()) {
+                out.writeUTF(entrant.vehicleId);
+                out.writeByte(entrant.playerIndex);
+                if (entrant.isPlayer()) {
+                    out.writeInt(entrant.inputs.length);
+                    out.write(entrant.inputs);
+                }
+            }
+        } catch (IOException e) {
+            throw new GdxRuntimeException("Failed to write " + file.path(), e);
+        } finally {
+            StreamUtils.closeQuietly(out);
+        }
+    }
+
+    /** Returns the replay stored in file, or null if there is no such file or it cannot be read */
+    public static Replay read(FileHandle file) {
+        if (!file.exists()) {
+            NLog.e("%s does not exist", file.path());
+            return null;
+        }
+        DataInputStream in;
+        try {
+            in = new DataInputStream(file.read(8192));
+        } catch (GdxRuntimeException e) {
+            NLog.e("Failed to open %s: %s", file.path(), e);
+            return null;
+        }
+        try {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                NLog.e("%s: unsupported format", file.path());
+                return null;
+            }
+            Replay replay = new Replay(in.readUTF(), in.readLong());
+            int entrantCount = in.readInt();
+            for (int idx = 0; idx < entrantCount; ++idx) {
+                String vehicleId = in.readUTF();
+                int playerIndex = in.readByte();
+                byte[] inputs = null;
+                if (playerIndex >= 0) {
+                    int inputCount = in.readInt();
+                    if (inputCount < 0 || inputCount > file.length()) {
+                        NLog.e("%s: invalid input count %d", file.path(), inputCount);
+                        return null;
+                    }
+                    inputs = new byte[inputCount];
+                    in.readFully(inputs);
+                }
+                replay.getEntrants().add(new Replay.Entrant(vehicleId, playerIndex, inputs));
+            }
+            return replay;
+        } catch (IOException e) {
+            NLog.e("Failed to read %s: %s", file.path(), e);
+            return null;
+        } finally {
+            StreamUtils.closeQuietly(in);
+        }
+    }
+}
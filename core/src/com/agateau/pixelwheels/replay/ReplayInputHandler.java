@@ -0,0 +1,88 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.replay;
+
+import com.agateau.pixelwheels.Assets;
+import com.agateau.pixelwheels.bonus.Bonus;
+import com.agateau.pixelwheels.gameinput.GameInput;
+import com.agateau.pixelwheels.gameinput.GameInputHandler;
+import com.agateau.pixelwheels.racescreen.Hud;
+import com.badlogic.gdx.Preferences;
+
+/**
+ * A GameInputHandler which plays back inputs recorded by an InputRecorder, returning one input per
+ * call to getGameInput(). Once all inputs have been played back, it returns an idle input.
+ */
+public class ReplayInputHandler implements GameInputHandler {
+    private final byte[] mBytes;
+    private final GameInput mInput = new GameInput();
+    private int mPosition = 0;
+    private int mRemainingSteps = 0;
+
+    public ReplayInputHandler(byte[] bytes) {
+        mBytes = bytes;
+    }
+
+    @Override
+    public GameInput getGameInput() {
+        if (mRemainingSteps == 0) {
+            readRun();
+        }
+        if (mRemainingSteps > 0) {
+            --mRemainingSteps;
+        }
+        return mInput;
+    }
+
+    private void readRun() {
+        if (mPosition >= mBytes.length) {
+            InputRecorder.decode(0, 0, mInput);
+            return;
+        }
+        int runLength = 0;
+        int shift = 0;
+        byte value;
+        do {
+            value = mBytes[mPosition++];
+            runLength |= (value & 0x7f) << shift;
+            shift += 7;
+        } while ((value & 0x80) != 0);
+        int flags = mBytes[mPosition++];
+        int direction = mBytes[mPosition++];
+        InputRecorder.decode(flags, direction, mInput);
+        mRemainingSteps = runLength;
+    }
+
+    @Override
+    public void loadConfig(Preferences preferences, String prefix) {}
+
+    @Override
+    public void saveConfig(Preferences preferences, String prefix) {}
+
+    @Override
+    public void createHudButtons(Assets assets, Hud hud) {}
+
+    @Override
+    public void setBonus(Bonus bonus) {}
+
+    @Override
+    public boolean isAvailable() {
+        return true;
+    }
+}
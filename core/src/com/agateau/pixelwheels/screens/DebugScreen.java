@@ -18,6 +18,7 @@
  */
 package com.agateau.pixelwheels.screens;
 
+import com.agateau.pixelwheels.GamePlay;
 import com.agateau.pixelwheels.PwGame;
 import com.agateau.pixelwheels.PwRefreshHelper;
 import com.agateau.ui.UiBuilder;
@@ -71,9 +72,11 @@ public class DebugScreen extends PwStageScreen {
 
         mCurrentGroup = tabMenuItem.addPage("Race");
         addRange("Viewport width", "viewportWidth", 20, 800, 10);
-        addRange("Racer count", "racerCount", 1, 6);
+        addRange("Racer count", "racerCount", 1, GamePlay.MAX_RACER_COUNT);
         addRange("Max skidmarks", "maxSkidmarks", 10, 200, 10);
+        addCheckBox("Skidmark decals", "skidmarkDecals");
         addRange("Border restitution", "borderRestitution", 1, 50);
+        addRange("AI perception rate", "aiPerceptionRate", 5, 60, 5);
 
         mCurrentGroup = tabMenuItem.addPage("Speed");
         addTitle("Speed");
@@ -106,6 +109,7 @@ public class DebugScreen extends PwStageScreen {
         addCheckBox("- Draw tile corners", "drawTileCorners");
         addCheckBox("Hud debug lines", "showHudDebugLines");
         addCheckBox("Free camera", "freeCamera");
+        addCheckBox("Profile allocations", "profileAllocations");
 
         builder.getActor("backButton")
                 .addListener(
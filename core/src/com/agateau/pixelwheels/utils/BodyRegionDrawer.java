@@ -20,6 +20,7 @@ package com.agateau.pixelwheels.utils;
 
 import com.agateau.pixelwheels.Constants;
 import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.g2d.Animation;
 import com.badlogic.gdx.graphics.g2d.Batch;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.math.MathUtils;
@@ -38,6 +39,27 @@ public class BodyRegionDrawer {
     private float mOffsetX = 0;
     private float mOffsetY = 0;
 
+    /**
+     * Returns the radius of a circle centered on the body which contains region and its shadow, for
+     * bodies drawn at a scale of 1
+     */
+    public static float computeDrawRadius(TextureRegion region) {
+        float w = region.getRegionWidth();
+        float h = region.getRegionHeight();
+        float radius = (float) Math.sqrt(w * w + h * h) / 2;
+        float maxShadowOffset = (SHADOW_OFFSET_PX + Z_MAX_SHADOW_OFFSET_PX) * (float) Math.sqrt(2);
+        return (radius + maxShadowOffset) * Constants.UNIT_FOR_PIXEL;
+    }
+
+    /** Like computeDrawRadius(TextureRegion), for the largest frame of animation */
+    public static float computeDrawRadius(Animation<TextureRegion> animation) {
+        float radius = 0;
+        for (TextureRegion region : animation.getKeyFrames()) {
+            radius = Math.max(radius, computeDrawRadius(region));
+        }
+        return radius;
+    }
+
     public void setBatch(Batch batch) {
         mBatch = batch;
     }
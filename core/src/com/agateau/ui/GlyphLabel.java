@@ -0,0 +1,194 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ *
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.agateau.ui;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.scenes.scene2d.ui.Label;
+import com.badlogic.gdx.scenes.scene2d.ui.Skin;
+import com.badlogic.gdx.scenes.scene2d.ui.Widget;
+import com.badlogic.gdx.utils.Align;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.CharArray;
+import com.badlogic.gdx.utils.FloatArray;
+
+/**
+ * A single-line label for text which changes often, like the numbers of the hud.
+ *
+ * <p>Unlike Label, it does not lay its text out again when the text changes: it only looks up the
+ * glyphs of the characters which changed, and draws the glyphs directly. Setting the text and
+ * drawing it do not allocate memory once the label has held its longest text.
+ *
+ * <p>Kerning is applied, but color markup is not supported.
+ */
+public class GlyphLabel extends Widget {
+    private final Label.LabelStyle mStyle;
+    private final BitmapFont.BitmapFontData mFontData;
+    private final CharArray mText = new CharArray();
+    // Glyphs of mText. Characters without glyph get a null item
+    private final Array<BitmapFont.Glyph> mGlyphs = new Array<>();
+    // Offset of each glyph from the previous one, like GlyphLayout.GlyphRun.xAdvances
+    private final FloatArray mXAdvances = new FloatArray();
+    private float mTextWidth = 0;
+    private int mAlignment = Align.left;
+    private final Color mColor = new Color();
+
+    public GlyphLabel(Skin skin, String styleName) {
+        this(skin.get(styleName, Label.LabelStyle.class));
+    }
+
+    public GlyphLabel(Label.LabelStyle style) {
+        mStyle = style;
+        mFontData = style.font.getData();
+        setSize(getPrefWidth(), getPrefHeight());
+    }
+
+    /** Same as Label.setAlignment() */
+    public void setAlignment(int alignment) {
+        mAlignment = alignment;
+    }
+
+    public void setText(CharSequence text) {
+        int length = text.length();
+        boolean lengthChanged = length != mText.size;
+        if (lengthChanged) {
+            mText.setSize(length);
+            mGlyphs.setSize(length);
+        }
+        boolean changed = lengthChanged;
+        for (int idx = 0; idx < length; ++idx) {
+            char ch = text.charAt(idx);
+            if (!lengthChanged && mText.get(idx) == ch) {
+                continue;
+            }
+            mText.set(idx, ch);
+            BitmapFont.Glyph glyph = mFontData.getGlyph(ch);
+            mGlyphs.set(idx, glyph != null ? glyph : mFontData.missingGlyph);
+            changed = true;
+        }
+        if (changed) {
+            updateXAdvances();
+            invalidateHierarchy();
+        }
+    }
+
+    @Override
+    public float getPrefWidth() {
+        return mTextWidth;
+    }
+
+    @Override
+    public float getPrefHeight() {
+        // Same as Label
+        return mFontData.capHeight - mFontData.descent * 2;
+    }
+
+    @Override
+    public void draw(Batch batch, float parentAlpha) {
+        validate();
+        mColor.set(getColor());
+        if (mStyle.fontColor != null) {
+            mColor.mul(mStyle.fontColor);
+        }
+        mColor.a *= parentAlpha;
+        float oldColor = batch.getPackedColor();
+        batch.setColor(mColor);
+
+        // Compute the position of the top of the text, relative to the actor, like Label.layout()
+        // and BitmapFontCache.addText() do. Like BitmapFontCache, glyphs are positioned relative
+        // to the actor, then moved to the actor position.
+        float x = 0;
+        float y = 0;
+        if ((mAlignment & Align.right) != 0) {
+            x += getWidth() - mTextWidth;
+        } else if ((mAlignment & Align.left) == 0) {
+            x += (getWidth() - mTextWidth) / 2;
+        }
+        if ((mAlignment & Align.top) != 0) {
+            y += getHeight() + mFontData.descent;
+        } else if ((mAlignment & Align.bottom) != 0) {
+            y += mFontData.capHeight - mFontData.descent;
+        } else {
+            y += (getHeight() + mFontData.capHeight) / 2;
+        }
+        y += mFontData.ascent;
+
+        BitmapFont font = mStyle.font;
+        boolean integer = font.usesIntegerPositions();
+        float originX = integer ? Math.round(getX()) : getX();
+        float originY = integer ? Math.round(getY()) : getY();
+        float scaleX = mFontData.scaleX;
+        float scaleY = mFontData.scaleY;
+        for (int idx = 0; idx < mGlyphs.size; ++idx) {
+            x += mXAdvances.get(idx);
+            BitmapFont.Glyph glyph = mGlyphs.get(idx);
+            if (glyph == null) {
+                continue;
+            }
+            float glyphX = x + glyph.xoffset * scaleX;
+            float glyphY = y + glyph.yoffset * scaleY;
+            float width = glyph.width * scaleX;
+            float height = glyph.height * scaleY;
+            if (integer) {
+                glyphX = Math.round(glyphX);
+                glyphY = Math.round(glyphY);
+                width = Math.round(width);
+                height = Math.round(height);
+            }
+            TextureRegion region = font.getRegion(glyph.page);
+            batch.draw(
+                    region.getTexture(),
+                    originX + glyphX,
+                    originY + glyphY,
+                    width,
+                    height,
+                    glyph.u,
+                    glyph.v,
+                    glyph.u2,
+                    glyph.v2);
+        }
+
+        batch.setColor(oldColor);
+    }
+
+    /** Same computations as BitmapFontData.getGlyphs(), as called by GlyphLayout */
+    private void updateXAdvances() {
+        float scaleX = mFontData.scaleX;
+        mXAdvances.clear();
+        mTextWidth = 0;
+        BitmapFont.Glyph lastGlyph = null;
+        for (int idx = 0; idx < mGlyphs.size; ++idx) {
+            BitmapFont.Glyph glyph = mGlyphs.get(idx);
+            float advance = 0;
+            if (glyph != null && lastGlyph != null) {
+                advance = (lastGlyph.xadvance + lastGlyph.getKerning(mText.get(idx))) * scaleX;
+            }
+            mXAdvances.add(advance);
+            mTextWidth += advance;
+            if (glyph != null) {
+                lastGlyph = glyph;
+            }
+        }
+        if (lastGlyph != null) {
+            mTextWidth += lastGlyph.xadvance * scaleX;
+        }
+    }
+}
@@ -19,11 +19,13 @@
 package com.agateau.pixelwheels.desktop;
 
 import com.agateau.pixelwheels.PwGame;
+import com.agateau.pixelwheels.debug.AllocationProfiler;
 import com.agateau.pixelwheels.screens.PwStageScreen;
 import com.agateau.utils.FileUtils;
 import com.badlogic.gdx.Files;
 import com.badlogic.gdx.backends.lwjgl3.Lwjgl3Application;
 import com.badlogic.gdx.backends.lwjgl3.Lwjgl3ApplicationConfiguration;
+import java.io.File;
 
 public class DesktopLauncher {
     public static void main(String[] arg) {
@@ -34,6 +36,17 @@ public class DesktopLauncher {
         config.setPreferencesConfig(".config/agateau.com", Files.FileType.External);
         config.useVsync(true);
         FileUtils.appName = "pixelwheels";
-        new Lwjgl3Application(new PwGame(), config);
+        AllocationProfiler.setAllocatedBytesSource(ThreadAllocatedBytesSource.create());
+        PwGame game = new PwGame();
+        if (arg.length == 2 && arg[0].equals("--replay")) {
+            game.setStartupReplayPath(new File(arg[1]).getAbsolutePath());
+        }
+        if (arg.length == 2 && arg[0].equals("--render-benchmark")) {
+            // Argument is a replay file or a track ID
+            File file = new File(arg[1]);
+            game.setStartupRenderBenchmarkArg(file.exists() ? file.getAbsolutePath() : arg[1]);
+            config.useVsync(false);
+        }
+        new Lwjgl3Application(game, config);
     }
 }
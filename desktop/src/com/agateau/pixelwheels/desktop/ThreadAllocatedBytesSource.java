@@ -0,0 +1,51 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.desktop;
+
+import com.agateau.pixelwheels.debug.AllocationProfiler;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/** Counts allocated bytes using the HotSpot extension of ThreadMXBean */
+class ThreadAllocatedBytesSource implements AllocationProfiler.AllocatedBytesSource {
+    private final com.sun.management.ThreadMXBean mBean;
+
+    private ThreadAllocatedBytesSource(com.sun.management.ThreadMXBean bean) {
+        mBean = bean;
+    }
+
+    /** Returns a source, or null if the JVM cannot count allocated bytes */
+    static ThreadAllocatedBytesSource create() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            return null;
+        }
+        com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+        if (!sunBean.isThreadAllocatedMemorySupported()) {
+            return null;
+        }
+        sunBean.setThreadAllocatedMemoryEnabled(true);
+        return new ThreadAllocatedBytesSource(sunBean);
+    }
+
+    @Override
+    public long getAllocatedBytes() {
+        return mBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.tools;
+
+import com.agateau.pixelwheels.Assets;
+import com.agateau.pixelwheels.GamePlay;
+import com.agateau.pixelwheels.headless.HeadlessBatchRunner;
+import com.agateau.pixelwheels.headless.HeadlessGdx;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.utils.Array;
+import java.io.File;
+
+/**
+ * Runs AI-only races on all tracks in parallel, without rendering them, and writes their results as
+ * CSV files.
+ *
+ * <p>Must be run from the assets directory.
+ */
+public class RaceBatchRunner {
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.err.println("Usage: RaceBatchRunner <output-dir> [race-count] [thread-count]");
+            System.exit(1);
+        }
+        String outputDir = args[0];
+        int raceCount = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        int threadCount =
+                args.length > 2
+                        ? Integer.parseInt(args[2])
+                        : Runtime.getRuntime().availableProcessors();
+
+        HeadlessGdx.init(new File("."));
+        Assets assets = Assets.createHeadless();
+
+        Array<HeadlessBatchRunner.RaceSpec> specs = new Array<>();
+        for (int idx = 0; idx < raceCount; ++idx) {
+            Array<String> vehicleIds = new Array<>();
+            for (int racerIdx = 0; racerIdx < GamePlay.instance.racerCount; ++racerIdx) {
+                int vehicleIdx = (idx + racerIdx) % assets.vehicleDefs.size;
+                vehicleIds.add(assets.vehicleDefs.get(vehicleIdx).id);
+            }
+            specs.add(
+                    new HeadlessBatchRunner.RaceSpec(
+                            assets.tracks.get(idx % assets.tracks.size), vehicleIds));
+        }
+
+        HeadlessBatchRunner runner = new HeadlessBatchRunner(assets, threadCount);
+        HeadlessBatchRunner.BatchResult result =
+                runner.run(specs, Gdx.files.absolute(new File(outputDir).getAbsolutePath()));
+        System.out.printf(
+                "%d races in %.2fs with %d threads: %.2f races/s, %.0f steps/s\n",
+                result.raceCount,
+                result.duration,
+                threadCount,
+                result.getRacesPerSecond(),
+                result.getStepsPerSecond());
+        System.exit(0);
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.tools;
+
+import com.agateau.pixelwheels.Assets;
+import com.agateau.pixelwheels.headless.HeadlessGdx;
+import com.agateau.pixelwheels.headless.HeadlessRaceRunner;
+import com.agateau.pixelwheels.map.Track;
+import com.agateau.pixelwheels.replay.Replay;
+import com.agateau.pixelwheels.replay.ReplayIO;
+import com.badlogic.gdx.Gdx;
+import java.io.File;
+
+/**
+ * Plays a replay back without rendering it, as fast as possible, and prints the race results.
+ *
+ * <p>Must be run from the assets directory.
+ */
+public class ReplayRunner {
+    private static final float MAX_RACE_DURATION = 600;
+
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.err.println("Usage: ReplayRunner <replay-file> [repeat-count]");
+            System.exit(1);
+        }
+        HeadlessGdx.init(new File("."));
+        Assets assets = Assets.createHeadless();
+        Replay replay = ReplayIO.read(Gdx.files.absolute(new File(args[0]).getAbsolutePath()));
+        if (replay == null) {
+            System.exit(1);
+        }
+        int repeatCount = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+
+        HeadlessRaceRunner runner = new HeadlessRaceRunner(assets);
+        HeadlessRaceRunner.RaceResult result = null;
+        long startTime = System.nanoTime();
+        for (int idx = 0; idx < repeatCount; ++idx) {
+            Track track = new Track(replay.getTrackId(), replay.getTrackId());
+            result = runner.runReplay(replay, track, MAX_RACE_DURATION);
+        }
+        float duration = (System.nanoTime() - startTime) / 1e9f;
+
+        for (HeadlessRaceRunner.RacerResult racerResult : result.racerResults) {
+            System.out.printf(
+                    "%d. %-12s %-8s laps: %d best lap: %6.2fs total: %6.2fs\n",
+                    racerResult.rank,
+                    racerResult.vehicleId,
+                    racerResult.status,
+                    racerResult.lapCount,
+                    racerResult.bestLapTime,
+                    racerResult.totalTime);
+        }
+        System.out.printf(
+                "%d replays in %.2fs, %.0fx real time\n",
+                repeatCount, duration, result.simulatedTime * repeatCount / duration);
+        System.exit(0);
+    }
+}
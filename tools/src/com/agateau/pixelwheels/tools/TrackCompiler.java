@@ -0,0 +1,74 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.tools;
+
+import com.agateau.pixelwheels.headless.HeadlessGdx;
+import com.agateau.pixelwheels.map.CompiledTrackIO;
+import com.agateau.pixelwheels.map.Track;
+import com.agateau.utils.log.NLog;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import java.io.File;
+
+/**
+ * Writes the compiled tracks (.track files) of the maps. See CompiledTrackIO.
+ *
+ * <p>Must be run from the assets directory. If no map ids are passed, all maps are compiled.
+ */
+public class TrackCompiler {
+    public static void main(String[] args) {
+        HeadlessGdx.init(new File("."));
+        if (args.length > 0) {
+            for (String id : args) {
+                compile(id);
+            }
+        } else {
+            for (FileHandle tmxFile : Gdx.files.internal("maps").list(".tmx")) {
+                compile(tmxFile.nameWithoutExtension());
+            }
+        }
+        System.exit(0);
+    }
+
+    private static void compile(String id) {
+        Track track = new Track(id, id);
+        FileHandle tmxFile = track.getTmxFile();
+        FileHandle trackFile =
+                Gdx.files.absolute(
+                        CompiledTrackIO.getCompiledTrackFile(tmxFile).file().getAbsolutePath());
+        // Remove the existing file, so that Track.init() computes everything from the .tmx file
+        trackFile.delete();
+
+        long startTime = System.nanoTime();
+        track.init();
+        float duration = (System.nanoTime() - startTime) / 1e6f;
+        CompiledTrackIO.write(track, trackFile);
+        track.dispose();
+
+        startTime = System.nanoTime();
+        track = new Track(id, id);
+        track.init();
+        float compiledDuration = (System.nanoTime() - startTime) / 1e6f;
+        track.dispose();
+
+        NLog.i(
+                "%s: %d bytes, init time: %.1fms from .tmx, %.1fms from .track",
+                trackFile.path(), trackFile.length(), duration, compiledDuration);
+    }
+}